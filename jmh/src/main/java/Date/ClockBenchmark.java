@@ -0,0 +1,82 @@
+package Date;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of reading the time per call, and of new DateTime() with the system and the cached clock installed in Joda.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ClockBenchmark {
+	@Param({"system", "cached"})
+	String jodaClock;
+
+	private CachedClock cached;
+	private final MonotonicClock monotonic = new MonotonicClock();
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		cached = new CachedClock(1, TimeUnit.MILLISECONDS);
+		if (jodaClock.equals("cached")) {
+			Clock.install(cached);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		Clock.uninstall();
+		cached.close();
+	}
+
+	@Benchmark
+	public long systemMillis() {
+		return Clock.SYSTEM.millis();
+	}
+
+	@Benchmark
+	public long cachedMillis() {
+		return cached.millis();
+	}
+
+	@Benchmark
+	public long monotonicNanos() {
+		return monotonic.nanos();
+	}
+
+	@Benchmark
+	public long monotonicMillis() {
+		return monotonic.millis();
+	}
+
+	@Benchmark
+	public long jodaMillis() {
+		return DateTimeUtils.currentTimeMillis();
+	}
+
+	@Benchmark
+	public DateTime newDateTime() {
+		return new DateTime();
+	}
+}
@@ -0,0 +1,78 @@
+package Date;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Days;
+import org.joda.time.format.DateTimeFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The date arithmetic from Date.JodaTime, with DateTime objects and with Date.EpochTime on longs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JodaTimeBenchmark {
+	private final DateTime first = new DateTime(1986, 3, 6, 12, 0, DateTimeZone.UTC);
+	private final DateTime second = new DateTime(1989, 9, 14, 12, 0, DateTimeZone.UTC);
+	private final EpochTime time = EpochTime.utc();
+	private final long firstMillis = first.getMillis();
+	private final long secondMillis = second.getMillis();
+	private final StringBuilder text = new StringBuilder();
+
+	@Benchmark
+	public DateTime nowPlusMinutes() {
+		return new DateTime(DateTimeZone.UTC).plusMinutes(10);
+	}
+
+	@Benchmark
+	public DateTime withDate() {
+		return first.withDate(1989, 9, 14);
+	}
+
+	@Benchmark
+	public int daysBetween() {
+		return Days.daysBetween(first, second).getDays();
+	}
+
+	@Benchmark
+	public long epochNowPlusMinutes() {
+		return time.plusMinutes(time.now(), 10);
+	}
+
+	@Benchmark
+	public long epochWithDate() {
+		return time.withDate(firstMillis, 1989, 9, 14);
+	}
+
+	@Benchmark
+	public int epochDaysBetween() {
+		return time.daysBetween(firstMillis, secondMillis);
+	}
+
+	@Benchmark
+	public String format() {
+		return DateTimeFormat.forPattern("yyyy-MM-dd HH:mm").withZone(DateTimeZone.UTC).print(firstMillis);
+	}
+
+	@Benchmark
+	public int epochFormatTo() throws IOException {
+		text.setLength(0);
+		time.formatTo(text, firstMillis, "yyyy-MM-dd HH:mm");
+		return text.length();
+	}
+}
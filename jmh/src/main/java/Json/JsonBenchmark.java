@@ -0,0 +1,115 @@
+package Json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Json package against Jackson: token streaming, binding into a map and writing the same document.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonBenchmark {
+	@Param({"10", "1000"})
+	public int items;
+
+	private final JsonFactory factory = new JsonFactory();
+	private final ObjectMapper mapper = new ObjectMapper(factory);
+	private Map<String, Object> document;
+	private byte[] bytes;
+
+	@Setup
+	public void setUp() throws IOException {
+		List<Object> list = new ArrayList<>();
+		for (int i = 0; i < items; i++) {
+			Map<String, Object> item = new LinkedHashMap<>();
+			item.put("id", (long) i);
+			item.put("name", "item \"" + i + "\" żółw");
+			item.put("price", i * 1.25);
+			item.put("available", i % 2 == 0);
+			list.add(item);
+		}
+		document = new LinkedHashMap<>();
+		document.put("title", "Benchmark");
+		document.put("items", list);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JsonBinding.write(document, out);
+		bytes = out.toByteArray();
+	}
+
+	@Benchmark
+	public int tokens() throws IOException {
+		JsonReader reader = new JsonReader(new ByteArrayInputStream(bytes));
+		int count = 0;
+		while (reader.next() != JsonToken.END_DOCUMENT) {
+			count++;
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int jacksonTokens() throws IOException {
+		try (JsonParser parser = factory.createParser(new ByteArrayInputStream(bytes))) {
+			int count = 0;
+			while (parser.nextToken() != null) {
+				count++;
+			}
+			return count;
+		}
+	}
+
+	@Benchmark
+	public Map<String, Object> bind() throws IOException {
+		return JsonBinding.readObject(new ByteArrayInputStream(bytes));
+	}
+
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public Map<String, Object> jacksonBind() throws IOException {
+		return mapper.readValue(new ByteArrayInputStream(bytes), Map.class);
+	}
+
+	@Benchmark
+	public int write() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+		JsonBinding.write(document, out);
+		return out.size();
+	}
+
+	@Benchmark
+	public int jacksonWrite() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+		try (JsonGenerator generator = factory.createGenerator(out)) {
+			mapper.writeValue(generator, document);
+		}
+		return out.size();
+	}
+}
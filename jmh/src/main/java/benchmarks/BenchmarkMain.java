@@ -0,0 +1,39 @@
+package benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The same as org.openjdk.jmh.Main, but results are saved as JSON by default,
+ * so they can be archived by the build and compared between builds.
+ */
+public class BenchmarkMain {
+	public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		if (commandLine.shouldHelp()) {
+			commandLine.showHelp();
+			return;
+		}
+
+		OptionsBuilder options = new OptionsBuilder();
+		options.parent(commandLine);
+		if (!commandLine.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if (!commandLine.getResult().hasValue()) {
+			options.result(DEFAULT_RESULT_FILE);
+		}
+
+		Options built = options.build();
+		if (commandLine.shouldList()) {
+			new Runner(built).list();
+		} else {
+			new Runner(built).run();
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package javaSe.streams;
+
+import java.util.ArrayList;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The collector patterns from javaSe.streams.Collectors, sequential and parallel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CollectorsBenchmark {
+	@Param({"1000", "100000"})
+	int size;
+
+	@Param({"false", "true"})
+	boolean parallel;
+
+	private List<Person> persons;
+
+	@Setup
+	public void setUp() {
+		String[] names = {"Max", "Peter", "Pamela", "Ewa", "Jarek"};
+		Random random = new Random(42);
+		persons = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			persons.add(new Person(names[random.nextInt(names.length)], 18 + random.nextInt(60)));
+		}
+	}
+
+	@Benchmark
+	public Map<Integer, List<Person>> groupingBy() {
+		return stream().collect(Collectors.groupingBy(p -> p.age));
+	}
+
+	@Benchmark
+	public Map<Integer, String> toMapWithMergeFunction() {
+		return stream().collect(Collectors.toMap(p -> p.age, p -> p.name, (name1, name2) -> name1 + ";" + name2));
+	}
+
+	@Benchmark
+	public IntSummaryStatistics summarizingInt() {
+		return stream().collect(Collectors.summarizingInt(p -> p.age));
+	}
+
+	@Benchmark
+	public String joining() {
+		return stream()
+				.map(p -> p.name)
+				.collect(Collectors.joining(" and ", "In Germany ", " are of legal age."));
+	}
+
+	private Stream<Person> stream() {
+		return parallel ? persons.parallelStream() : persons.stream();
+	}
+
+	static class Person {
+		final Integer age;
+		final String name;
+
+		Person(String name, Integer age) {
+			this.name = name;
+			this.age = age;
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package javaSe.streams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The same filter, map and mapToInt stages as a Stream and as a reused fused Pipeline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+	@Param({"1000", "100000"})
+	int size;
+
+	private List<String> records;
+	private final IntPipeline<String> lengths = Pipeline.<String>start()
+			.filter(s -> s.charAt(0) != 'x')
+			.map(String::trim)
+			.mapToInt(String::length)
+			.filter(length -> length > 3);
+	private final Pipeline<String, String> upper = Pipeline.<String>start()
+			.filter(s -> s.charAt(0) != 'x')
+			.map(String::toUpperCase);
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		records = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			records.add((char) ('a' + random.nextInt(26)) + Integer.toString(random.nextInt(100_000)));
+		}
+		records.add("zz-last");
+	}
+
+	@Benchmark
+	public int streamSum() {
+		return records.stream()
+				.filter(s -> s.charAt(0) != 'x')
+				.map(String::trim)
+				.mapToInt(String::length)
+				.filter(length -> length > 3)
+				.sum();
+	}
+
+	@Benchmark
+	public int pipelineSum() {
+		return lengths.sum(records);
+	}
+
+	@Benchmark
+	public boolean streamAnyMatchLast() {
+		return records.stream()
+				.filter(s -> s.charAt(0) != 'x')
+				.map(String::toUpperCase)
+				.anyMatch(s -> s.startsWith("ZZ-"));
+	}
+
+	@Benchmark
+	public boolean pipelineAnyMatchLast() {
+		return upper.anyMatch(records, s -> s.startsWith("ZZ-"));
+	}
+}
@@ -0,0 +1,90 @@
+package javaSe.streams.columns;
+
+import java.util.ArrayList;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The same filter and groupBy over a List of objects with a stream and over a ColumnTable with a Query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ColumnTableBenchmark {
+	private static final String[] NAMES = {"Max", "Peter", "Pamela", "Ewa", "Jarek", "Ola", "Adam", "Zofia"};
+
+	static final class Person {
+		final String name;
+		final Integer age;
+
+		Person(String name, Integer age) {
+			this.name = name;
+			this.age = age;
+		}
+	}
+
+	@Param({"1000000"})
+	int size;
+
+	private List<Person> persons;
+	private ColumnTable table;
+	private Query adults;
+	private StringColumn name;
+	private IntColumn age;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		persons = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			persons.add(new Person(NAMES[random.nextInt(NAMES.length)], random.nextInt(100)));
+		}
+		table = ColumnTable.<Person>builder(size).strings("name", p -> p.name).ints("age", p -> p.age).addAll(persons).build();
+		name = table.stringColumn("name");
+		age = table.intColumn("age");
+		adults = table.query().where(age.atLeast(18));
+	}
+
+	@Benchmark
+	public Map<String, IntSummaryStatistics> streamGroupBy() {
+		return persons.stream()
+				.filter(p -> p.age >= 18)
+				.collect(Collectors.groupingBy(p -> p.name, Collectors.summarizingInt(p -> p.age)));
+	}
+
+	@Benchmark
+	public Map<String, IntSummaryStatistics> parallelStreamGroupBy() {
+		return persons.parallelStream()
+				.filter(p -> p.age >= 18)
+				.collect(Collectors.groupingByConcurrent(p -> p.name, Collectors.summarizingInt(p -> p.age)));
+	}
+
+	@Benchmark
+	public Map<String, IntSummaryStatistics> columnGroupBy() {
+		return adults.groupBy(name).summarizing(age);
+	}
+
+	@Benchmark
+	public Map<String, IntSummaryStatistics> parallelColumnGroupBy() {
+		return adults.parallel().groupBy(name).summarizing(age);
+	}
+}
@@ -0,0 +1,55 @@
+package velocity;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.runtime.RuntimeConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of getting a template: the velocity.BasicUsage way (new engine, init, parse) against the shared registry.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineInitBenchmark {
+	private static final String TEMPLATE = "velocity/Layers.vm";
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@Warmup(iterations = 0)
+	@Measurement(iterations = 1)
+	@Fork(10)
+	public Template coldEngineInFreshJvm() {
+		return createTemplate(TEMPLATE);
+	}
+
+	@Benchmark
+	public Template newEngineForEveryTemplate() {
+		return createTemplate(TEMPLATE);
+	}
+
+	@Benchmark
+	public Template sharedRegistry() {
+		return TemplateRegistry.shared().getTemplate(TEMPLATE);
+	}
+
+	private Template createTemplate(String path) {
+		VelocityEngine ve = new VelocityEngine();
+		ve.setProperty(RuntimeConstants.RESOURCE_LOADER, "class");
+		ve.setProperty("class.resource.loader.class",
+		               "org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader");
+		ve.init();
+
+		return ve.getTemplate(path);
+	}
+}
@@ -0,0 +1,93 @@
+package velocity;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.runtime.RuntimeConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Merge of a template reading bean properties, with the default (reflective) uberspector and with AccessorUberspect.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PropertyAccessBenchmark {
+	@Param({"reflection", "accessors"})
+	String uberspect;
+
+	private Template template;
+	private final VelocityContext context = new VelocityContext();
+	private final Writer writer = new Writer() {
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+		}
+
+		@Override
+		public void write(String str, int off, int len) {
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	};
+
+	public static class Person {
+		private final String name;
+		private final int age;
+
+		public Person(String name, int age) {
+			this.name = name;
+			this.age = age;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getAge() {
+			return age;
+		}
+	}
+
+	@Setup
+	public void setUp() {
+		VelocityEngine engine;
+		if (uberspect.equals("accessors")) {
+			engine = TemplateRegistry.classpathEngine();
+		} else {
+			engine = new VelocityEngine();
+			engine.setProperty(RuntimeConstants.RESOURCE_LOADER, "class");
+			engine.setProperty("class.resource.loader.class",
+			                   "org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader");
+			engine.init();
+		}
+		template = engine.getTemplate("velocity/Properties.vm");
+		context.put("person", new Person("Pamela", 33));
+	}
+
+	@Benchmark
+	public void merge() {
+		template.merge(context, writer);
+	}
+}
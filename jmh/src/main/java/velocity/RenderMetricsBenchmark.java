@@ -0,0 +1,79 @@
+package velocity;
+
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.velocity.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of MeasuredRenderer: a plain merge against disabled (NOOP) and in-memory metrics.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RenderMetricsBenchmark {
+	@Param({"noop", "inMemory"})
+	String metrics;
+
+	private Template template;
+	private ContextChainer chainer;
+	private MeasuredRenderer renderer;
+	private final Writer writer = new Writer() {
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+		}
+
+		@Override
+		public void write(String str, int off, int len) {
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	};
+
+	@Setup
+	public void setUp() {
+		template = TemplateRegistry.shared().getTemplate("velocity/Layers.vm");
+
+		Map<String, Object> defaults = new HashMap<>();
+		defaults.put("name", "World");
+		defaults.put("tenant", "Acme");
+		defaults.put("locale", "en_GB");
+		defaults.put("count", 42);
+		defaults.put("footer", "Regards");
+		chainer = new ContextChainer().chain(defaults);
+
+		renderer = new MeasuredRenderer(metrics.equals("noop") ? RenderMetrics.NOOP : new InMemoryRenderMetrics());
+	}
+
+	@Benchmark
+	public void plainMerge() {
+		template.merge(chainer.getContext(), writer);
+	}
+
+	@Benchmark
+	public void measuredMerge() {
+		renderer.merge(template, chainer, writer);
+	}
+}
@@ -0,0 +1,90 @@
+package velocity;
+
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.velocity.Template;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Merge of one template with a context built from 1-20 chained layers.
+ * Every referenced key lives in the bottom layer, so a nested chain is walked to its end on each lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TemplateMergeBenchmark {
+	@Param({"1", "5", "10", "20"})
+	int depth;
+
+	@Param({"false", "true"})
+	boolean flattened;
+
+	private Template template;
+	private ContextChainer chainer;
+	private final CountingWriter writer = new CountingWriter();
+
+	@Setup
+	public void setUp() {
+		template = TemplateRegistry.shared().getTemplate("velocity/Layers.vm");
+
+		Map<String, Object> defaults = new HashMap<>();
+		defaults.put("name", "World");
+		defaults.put("tenant", "Acme");
+		defaults.put("locale", "en_GB");
+		defaults.put("count", 42);
+		defaults.put("footer", "Regards");
+
+		chainer = new ContextChainer(flattened);
+		chainer.chain(defaults);
+		for (int i = 1; i < depth; i++) {
+			Map<String, Object> layer = new HashMap<>();
+			layer.put("layer" + i, i);
+			chainer.chain(layer);
+		}
+	}
+
+	@Benchmark
+	public long merge() {
+		writer.count = 0;
+		template.merge(chainer.getContext(), writer);
+		return writer.count;
+	}
+
+	private static final class CountingWriter extends Writer {
+		long count;
+
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			count += len;
+		}
+
+		@Override
+		public void write(String str, int off, int len) {
+			count += len;
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
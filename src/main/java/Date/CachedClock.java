@@ -0,0 +1,57 @@
+package Date;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Clock which reads its source only once per resolution period.
+ *
+ * A daemon thread stores the current time into a volatile field, so millis() is a plain memory read
+ * instead of a call into the operating system. The price is that the value is up to one resolution period old.
+ * Close the clock to stop the thread.
+ */
+public class CachedClock implements Clock, AutoCloseable {
+	private final Clock source;
+	private final long resolutionNanos;
+	private final Thread ticker;
+	private volatile long millis;
+	private volatile boolean running = true;
+
+	public CachedClock(long resolution, TimeUnit unit) {
+		this(SYSTEM, resolution, unit);
+	}
+
+	public CachedClock(Clock source, long resolution, TimeUnit unit) {
+		if (resolution <= 0) {
+			throw new IllegalArgumentException("resolution must be positive: " + resolution);
+		}
+		this.source = source;
+		this.resolutionNanos = unit.toNanos(resolution);
+		this.millis = source.millis();
+		this.ticker = new Thread(this::tick, "cached-clock");
+		ticker.setDaemon(true);
+		ticker.start();
+	}
+
+	@Override
+	public long millis() {
+		return millis;
+	}
+
+	public long getResolutionNanos() {
+		return resolutionNanos;
+	}
+
+	@Override
+	public void close() {
+		running = false;
+		LockSupport.unpark(ticker);
+	}
+
+	private void tick() {
+		while (running) {
+			LockSupport.parkNanos(this, resolutionNanos);
+			millis = source.millis();
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package Date;
+
+import org.joda.time.DateTimeUtils;
+
+/**
+ * Source of the current time in epoch milliseconds.
+ *
+ * Implementations: {@link #SYSTEM}, {@link #JODA}, {@link CachedClock} for frequent reads,
+ * {@link MonotonicClock} which never goes back, and {@link #fixed}, {@link #offset} and {@link ManualClock} for tests.
+ */
+public interface Clock {
+	/**
+	 * Reads DateTimeUtils.currentTimeMillis(), so DateTimeUtils.setCurrentMillisFixed in tests is respected.
+	 */
+	Clock JODA = DateTimeUtils::currentTimeMillis;
+
+	Clock SYSTEM = System::currentTimeMillis;
+
+	long millis();
+
+	static Clock fixed(long millis) {
+		return () -> millis;
+	}
+
+	/**
+	 * @return clock which is always offsetMillis ahead of the base clock (behind when negative)
+	 */
+	static Clock offset(Clock base, long offsetMillis) {
+		return () -> base.millis() + offsetMillis;
+	}
+
+	/**
+	 * Makes Joda (new DateTime(), DateTimeUtils.currentTimeMillis()) read the time from the clock.
+	 * A clock based on {@link #JODA}, e.g. an offset of it, reads the system time through it.
+	 */
+	static void install(Clock clock) {
+		if (clock == JODA) {
+			throw new IllegalArgumentException("Joda clock reads the installed provider itself");
+		}
+		DateTimeUtils.setCurrentMillisProvider(new InstalledClock(clock));
+	}
+
+	/**
+	 * Returns Joda to the system time.
+	 */
+	static void uninstall() {
+		DateTimeUtils.setCurrentMillisSystem();
+	}
+}
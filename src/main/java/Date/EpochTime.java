@@ -0,0 +1,196 @@
+package Date;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.joda.time.Chronology;
+import org.joda.time.DateTimeZone;
+import org.joda.time.chrono.ISOChronology;
+
+/**
+ * Date arithmetic on epoch milliseconds in one zone.
+ *
+ * DateTime is immutable, so new DateTime(millis).plusMinutes(10).getHourOfDay() creates two objects for one number.
+ * Here the same fields of the ISO chronology which DateTime uses are called directly on the long,
+ * so results are the same as with DateTime and nothing is allocated.
+ *
+ * Instances are thread safe and can be put into a Velocity context, e.g. $time.format($order.created, "yyyy-MM-dd").
+ */
+public final class EpochTime {
+	private static final Map<DateTimeZone, EpochTime> INSTANCES = new ConcurrentHashMap<>();
+	private static final EpochTime UTC = of(DateTimeZone.UTC);
+
+	private final DateTimeZone zone;
+	private final Chronology chronology;
+	private final Clock clock;
+
+	private EpochTime(DateTimeZone zone, Clock clock) {
+		this.zone = zone;
+		this.chronology = ISOChronology.getInstance(zone);
+		this.clock = clock;
+	}
+
+	public static EpochTime utc() {
+		return UTC;
+	}
+
+	/**
+	 * @return shared instance for the zone, with {@link Clock#JODA}
+	 */
+	public static EpochTime of(DateTimeZone zone) {
+		EpochTime time = INSTANCES.get(zone);
+		if (time == null) {
+			time = INSTANCES.computeIfAbsent(zone, key -> new EpochTime(key, Clock.JODA));
+		}
+		return time;
+	}
+
+	public static EpochTime of(DateTimeZone zone, Clock clock) {
+		return new EpochTime(zone, clock);
+	}
+
+	public EpochTime withClock(Clock clock) {
+		return new EpochTime(zone, clock);
+	}
+
+	public DateTimeZone getZone() {
+		return zone;
+	}
+
+	public Clock getClock() {
+		return clock;
+	}
+
+	public long now() {
+		return clock.millis();
+	}
+
+	public int year(long millis) {
+		return chronology.year().get(millis);
+	}
+
+	public int monthOfYear(long millis) {
+		return chronology.monthOfYear().get(millis);
+	}
+
+	public int dayOfMonth(long millis) {
+		return chronology.dayOfMonth().get(millis);
+	}
+
+	/**
+	 * @return 1 for Monday to 7 for Sunday
+	 */
+	public int dayOfWeek(long millis) {
+		return chronology.dayOfWeek().get(millis);
+	}
+
+	public int hourOfDay(long millis) {
+		return chronology.hourOfDay().get(millis);
+	}
+
+	public int minuteOfHour(long millis) {
+		return chronology.minuteOfHour().get(millis);
+	}
+
+	public int secondOfMinute(long millis) {
+		return chronology.secondOfMinute().get(millis);
+	}
+
+	public int millisOfSecond(long millis) {
+		return chronology.millisOfSecond().get(millis);
+	}
+
+	public long plusMinutes(long millis, int minutes) {
+		return chronology.minutes().add(millis, minutes);
+	}
+
+	public long plusHours(long millis, int hours) {
+		return chronology.hours().add(millis, hours);
+	}
+
+	/**
+	 * Calendar days, so the time of day is kept across daylight saving changes.
+	 */
+	public long plusDays(long millis, int days) {
+		return chronology.days().add(millis, days);
+	}
+
+	public long plusMonths(long millis, int months) {
+		return chronology.months().add(millis, months);
+	}
+
+	public long plusYears(long millis, int years) {
+		return chronology.years().add(millis, years);
+	}
+
+	public long minusMinutes(long millis, int minutes) {
+		return plusMinutes(millis, -minutes);
+	}
+
+	public long minusHours(long millis, int hours) {
+		return plusHours(millis, -hours);
+	}
+
+	public long minusDays(long millis, int days) {
+		return plusDays(millis, -days);
+	}
+
+	public long minusMonths(long millis, int months) {
+		return plusMonths(millis, -months);
+	}
+
+	public long minusYears(long millis, int years) {
+		return plusYears(millis, -years);
+	}
+
+	/**
+	 * The same as DateTime.withDate.
+	 */
+	public long withDate(long millis, int year, int monthOfYear, int dayOfMonth) {
+		millis = chronology.year().set(millis, year);
+		millis = chronology.monthOfYear().set(millis, monthOfYear);
+		return chronology.dayOfMonth().set(millis, dayOfMonth);
+	}
+
+	public long startOfDay(long millis) {
+		return chronology.dayOfMonth().roundFloor(millis);
+	}
+
+	/**
+	 * Start of the following day, 23 or 25 hours after startOfDay when daylight saving time changes.
+	 */
+	public long startOfNextDay(long millis) {
+		return chronology.dayOfMonth().roundCeiling(startOfDay(millis) + 1);
+	}
+
+	public long startOfHour(long millis) {
+		return chronology.hourOfDay().roundFloor(millis);
+	}
+
+	public long startOfNextHour(long millis) {
+		return chronology.hourOfDay().roundCeiling(startOfHour(millis) + 1);
+	}
+
+	/**
+	 * The same as Days.daysBetween for two DateTimes in this zone: whole days, negative when end is before start.
+	 */
+	public int daysBetween(long start, long end) {
+		return chronology.days().getDifference(end, start);
+	}
+
+	public String format(long millis, String pattern) {
+		return FormatterCache.get(pattern, zone).print(millis);
+	}
+
+	/**
+	 * Formats into the given StringBuilder or Writer, without an intermediate String.
+	 */
+	public void formatTo(Appendable target, long millis, String pattern) throws IOException {
+		FormatterCache.get(pattern, zone).printTo(target, millis);
+	}
+
+	public long parse(String text, String pattern) {
+		return FormatterCache.get(pattern, zone).parseMillis(text);
+	}
+}
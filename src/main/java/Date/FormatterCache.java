@@ -0,0 +1,40 @@
+package Date;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+/**
+ * Formatters by pattern and zone. Joda formatters are immutable and thread safe, but DateTimeFormatter.withZone
+ * creates a new one on every call, so the zoned formatters are kept here.
+ * Lookups go through a map per zone, so no key object is created.
+ */
+public final class FormatterCache {
+	/**
+	 * Patterns above the limit are still served, but not cached. The same limit as DateTimeFormat uses.
+	 */
+	public static final int MAX_PATTERNS_PER_ZONE = 500;
+
+	private static final Map<DateTimeZone, Map<String, DateTimeFormatter>> FORMATTERS = new ConcurrentHashMap<>();
+
+	private FormatterCache() {
+	}
+
+	public static DateTimeFormatter get(String pattern, DateTimeZone zone) {
+		Map<String, DateTimeFormatter> byPattern = FORMATTERS.get(zone);
+		if (byPattern == null) {
+			byPattern = FORMATTERS.computeIfAbsent(zone, key -> new ConcurrentHashMap<>());
+		}
+		DateTimeFormatter formatter = byPattern.get(pattern);
+		if (formatter == null) {
+			formatter = DateTimeFormat.forPattern(pattern).withZone(zone);
+			if (byPattern.size() < MAX_PATTERNS_PER_ZONE) {
+				byPattern.putIfAbsent(pattern, formatter);
+			}
+		}
+		return formatter;
+	}
+}
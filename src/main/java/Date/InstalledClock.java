@@ -0,0 +1,33 @@
+package Date;
+
+import org.joda.time.DateTimeUtils;
+
+/**
+ * Joda's millis provider which reads a {@link Clock}.
+ *
+ * A clock built on {@link Clock#JODA}, e.g. Clock.offset(Clock.JODA, 1000), calls back into the provider while it
+ * is read. Such a nested read gets the system time instead of recursing until the stack overflows.
+ */
+final class InstalledClock implements DateTimeUtils.MillisProvider {
+	private static final ThreadLocal<boolean[]> READING = ThreadLocal.withInitial(() -> new boolean[1]);
+
+	private final Clock clock;
+
+	InstalledClock(Clock clock) {
+		this.clock = clock;
+	}
+
+	@Override
+	public long getMillis() {
+		boolean[] reading = READING.get();
+		if (reading[0]) {
+			return System.currentTimeMillis();
+		}
+		reading[0] = true;
+		try {
+			return clock.millis();
+		} finally {
+			reading[0] = false;
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package Date;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clock for tests which moves only when it is told to.
+ */
+public class ManualClock implements Clock {
+	private volatile long millis;
+
+	public ManualClock(long millis) {
+		this.millis = millis;
+	}
+
+	@Override
+	public long millis() {
+		return millis;
+	}
+
+	public void set(long millis) {
+		this.millis = millis;
+	}
+
+	public synchronized void advance(long duration, TimeUnit unit) {
+		millis += unit.toMillis(duration);
+	}
+}
@@ -0,0 +1,33 @@
+package Date;
+
+/**
+ * Clock driven by System.nanoTime, so it never goes back when the system time is corrected.
+ *
+ * millis() is the wall time read when the clock was created plus the nanoTime elapsed since then,
+ * so it drifts away from the system time over long runs. Use it for durations and ordering of events.
+ */
+public class MonotonicClock implements Clock {
+	private final long originMillis;
+	private final long originNanos;
+
+	public MonotonicClock() {
+		this(SYSTEM);
+	}
+
+	public MonotonicClock(Clock origin) {
+		this.originNanos = System.nanoTime();
+		this.originMillis = origin.millis();
+	}
+
+	/**
+	 * Nanoseconds from an arbitrary origin, only differences between two readings have a meaning.
+	 */
+	public long nanos() {
+		return System.nanoTime();
+	}
+
+	@Override
+	public long millis() {
+		return originMillis + (System.nanoTime() - originNanos) / 1_000_000;
+	}
+}
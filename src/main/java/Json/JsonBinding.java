@@ -0,0 +1,83 @@
+package Json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binds JSON to plain collections: objects become LinkedHashMaps, arrays become ArrayLists,
+ * numbers become Long or Double. A bound object can be passed as a layer to {@link velocity.ContextChainer#chain}.
+ */
+public final class JsonBinding {
+	private JsonBinding() {
+	}
+
+	public static Map<String, Object> readObject(InputStream in) throws IOException {
+		return readObject(new JsonReader(in));
+	}
+
+	public static Map<String, Object> readObject(ByteBuffer source) throws IOException {
+		return readObject(new JsonReader(source));
+	}
+
+	private static Map<String, Object> readObject(JsonReader reader) throws IOException {
+		if (reader.next() != JsonToken.BEGIN_OBJECT) {
+			throw new JsonParseException("Document is not an object", 0);
+		}
+		Map<String, Object> object = readMembers(reader);
+		reader.next();
+		return object;
+	}
+
+	/**
+	 * Reads the value which starts with the next token of the reader.
+	 */
+	public static Object readValue(JsonReader reader) throws IOException {
+		return value(reader, reader.next());
+	}
+
+	public static void write(Object value, OutputStream out) throws IOException {
+		JsonWriter writer = new JsonWriter(out);
+		writer.value(value);
+		writer.flush();
+	}
+
+	private static Object value(JsonReader reader, JsonToken token) throws IOException {
+		switch (token) {
+			case BEGIN_OBJECT:
+				return readMembers(reader);
+			case BEGIN_ARRAY:
+				List<Object> array = new ArrayList<>();
+				for (JsonToken next = reader.next(); next != JsonToken.END_ARRAY; next = reader.next()) {
+					array.add(value(reader, next));
+				}
+				return array;
+			case STRING:
+				return reader.getString();
+			case NUMBER:
+				return reader.getNumber();
+			case TRUE:
+				return Boolean.TRUE;
+			case FALSE:
+				return Boolean.FALSE;
+			case NULL:
+				return null;
+			default:
+				throw new IllegalStateException("Unexpected " + token);
+		}
+	}
+
+	private static Map<String, Object> readMembers(JsonReader reader) throws IOException {
+		Map<String, Object> object = new LinkedHashMap<>();
+		while (reader.next() == JsonToken.NAME) {
+			String name = reader.getString();
+			object.put(name, value(reader, reader.next()));
+		}
+		return object;
+	}
+}
@@ -0,0 +1,19 @@
+package Json;
+
+import java.io.IOException;
+
+public class JsonParseException extends IOException {
+	private final long offset;
+
+	public JsonParseException(String message, long offset) {
+		super(message + " at byte " + offset);
+		this.offset = offset;
+	}
+
+	/**
+	 * Position of the unexpected byte in the input.
+	 */
+	public long getOffset() {
+		return offset;
+	}
+}
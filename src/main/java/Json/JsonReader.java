@@ -0,0 +1,483 @@
+package Json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Pull tokenizer for UTF-8 encoded JSON.
+ *
+ * The caller asks for tokens one by one with {@link #next()} and reads the value of the current token,
+ * so no tree of the document is built. Bytes are decoded straight from the input buffer
+ * (or from the array behind a heap ByteBuffer, without copying it) into one reused char buffer.
+ */
+public class JsonReader implements Closeable {
+	private static final int BUFFER_SIZE = 8192;
+
+	private static final byte EMPTY_DOCUMENT = 0;
+	private static final byte NONEMPTY_DOCUMENT = 1;
+	private static final byte EMPTY_ARRAY = 2;
+	private static final byte NONEMPTY_ARRAY = 3;
+	private static final byte EMPTY_OBJECT = 4;
+	private static final byte DANGLING_NAME = 5;
+	private static final byte NONEMPTY_OBJECT = 6;
+
+	private final InputStream in;
+	private final ByteBuffer source;
+	private byte[] buffer;
+	private int position;
+	private int limit;
+	private long bufferStart;
+
+	private char[] chars = new char[64];
+	private final String[] names = new String[256];
+	private int length;
+	private long longValue;
+	private double doubleValue;
+	private boolean integral;
+
+	private byte[] stack = new byte[32];
+	private int depth;
+	private JsonToken token;
+
+	public JsonReader(InputStream in) {
+		this.in = in;
+		this.source = null;
+		this.buffer = new byte[BUFFER_SIZE];
+		push(EMPTY_DOCUMENT);
+	}
+
+	/**
+	 * Reads the remaining bytes of the buffer. The position of the buffer is not changed.
+	 */
+	public JsonReader(ByteBuffer source) {
+		this.in = null;
+		if (source.hasArray()) {
+			this.source = null;
+			this.buffer = source.array();
+			this.position = source.arrayOffset() + source.position();
+			this.limit = source.arrayOffset() + source.limit();
+			this.bufferStart = -position;
+		} else {
+			this.source = source.duplicate();
+			this.buffer = new byte[BUFFER_SIZE];
+		}
+		push(EMPTY_DOCUMENT);
+	}
+
+	/**
+	 * The token the reader stands on, null before the first call of next().
+	 */
+	public JsonToken getToken() {
+		return token;
+	}
+
+	public JsonToken next() throws IOException {
+		token = advance();
+		return token;
+	}
+
+	/**
+	 * Value of NAME and STRING tokens, or the text of a NUMBER.
+	 */
+	public String getString() {
+		return token == JsonToken.NAME ? name() : new String(chars, 0, length);
+	}
+
+	/**
+	 * Compares the current NAME or STRING with the given text without creating a String.
+	 */
+	public boolean textEquals(String text) {
+		if (text.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (chars[i] != text.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public boolean isIntegral() {
+		return integral;
+	}
+
+	public long getLong() {
+		return integral ? longValue : (long) doubleValue;
+	}
+
+	public int getInt() {
+		return (int) getLong();
+	}
+
+	public double getDouble() {
+		return integral ? longValue : doubleValue;
+	}
+
+	/**
+	 * Long for integral numbers which fit in a long, Double otherwise.
+	 */
+	public Number getNumber() {
+		return integral ? (Number) longValue : (Number) doubleValue;
+	}
+
+	/**
+	 * Skips the current value. When the reader stands on BEGIN_OBJECT or BEGIN_ARRAY,
+	 * everything up to the matching end is skipped.
+	 */
+	public void skipValue() throws IOException {
+		if (token != JsonToken.BEGIN_OBJECT && token != JsonToken.BEGIN_ARRAY) {
+			return;
+		}
+		int level = 1;
+		while (level > 0) {
+			JsonToken skipped = next();
+			if (skipped == JsonToken.BEGIN_OBJECT || skipped == JsonToken.BEGIN_ARRAY) {
+				level++;
+			} else if (skipped == JsonToken.END_OBJECT || skipped == JsonToken.END_ARRAY) {
+				level--;
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (in != null) {
+			in.close();
+		}
+	}
+
+	private JsonToken advance() throws IOException {
+		int c;
+		switch (stack[depth - 1]) {
+			case EMPTY_DOCUMENT:
+				stack[depth - 1] = NONEMPTY_DOCUMENT;
+				c = skipWhitespace();
+				if (c < 0) {
+					throw error("Empty document");
+				}
+				return value(c);
+			case NONEMPTY_DOCUMENT:
+				c = skipWhitespace();
+				if (c < 0) {
+					return JsonToken.END_DOCUMENT;
+				}
+				throw error("Unexpected data after the document");
+			case EMPTY_ARRAY:
+				stack[depth - 1] = NONEMPTY_ARRAY;
+				c = skipWhitespace();
+				if (c == ']') {
+					depth--;
+					return JsonToken.END_ARRAY;
+				}
+				return value(c);
+			case NONEMPTY_ARRAY:
+				c = skipWhitespace();
+				if (c == ']') {
+					depth--;
+					return JsonToken.END_ARRAY;
+				}
+				if (c != ',') {
+					throw error("Expected ',' or ']'");
+				}
+				return value(skipWhitespace());
+			case EMPTY_OBJECT:
+			case NONEMPTY_OBJECT:
+				c = skipWhitespace();
+				if (c == '}') {
+					depth--;
+					return JsonToken.END_OBJECT;
+				}
+				if (stack[depth - 1] == NONEMPTY_OBJECT) {
+					if (c != ',') {
+						throw error("Expected ',' or '}'");
+					}
+					c = skipWhitespace();
+				}
+				if (c != '"') {
+					throw error("Expected name");
+				}
+				readString();
+				stack[depth - 1] = DANGLING_NAME;
+				return JsonToken.NAME;
+			case DANGLING_NAME:
+				if (skipWhitespace() != ':') {
+					throw error("Expected ':'");
+				}
+				stack[depth - 1] = NONEMPTY_OBJECT;
+				return value(skipWhitespace());
+			default:
+				throw new IllegalStateException();
+		}
+	}
+
+	private JsonToken value(int c) throws IOException {
+		switch (c) {
+			case '{':
+				push(EMPTY_OBJECT);
+				return JsonToken.BEGIN_OBJECT;
+			case '[':
+				push(EMPTY_ARRAY);
+				return JsonToken.BEGIN_ARRAY;
+			case '"':
+				readString();
+				return JsonToken.STRING;
+			case 't':
+				literal("rue");
+				return JsonToken.TRUE;
+			case 'f':
+				literal("alse");
+				return JsonToken.FALSE;
+			case 'n':
+				literal("ull");
+				return JsonToken.NULL;
+			default:
+				if (c == '-' || (c >= '0' && c <= '9')) {
+					readNumber(c);
+					return JsonToken.NUMBER;
+				}
+				throw error(c < 0 ? "Unexpected end of input" : "Unexpected character '" + (char) c + "'");
+		}
+	}
+
+	private void literal(String rest) throws IOException {
+		for (int i = 0; i < rest.length(); i++) {
+			if (read() != rest.charAt(i)) {
+				throw error("Invalid literal");
+			}
+		}
+	}
+
+	private void readNumber(int first) throws IOException {
+		length = 0;
+		append((char) first);
+		boolean fraction = false;
+		while (true) {
+			int c = peek();
+			if (c >= '0' && c <= '9' || c == '-' || c == '+') {
+				append((char) c);
+			} else if (c == '.' || c == 'e' || c == 'E') {
+				append((char) c);
+				fraction = true;
+			} else {
+				break;
+			}
+			position++;
+		}
+
+		int start = chars[0] == '-' ? 1 : 0;
+		if (start == length || chars[start] < '0' || chars[start] > '9') {
+			throw error("Invalid number");
+		}
+		integral = !fraction && length - start <= 18;
+		if (!fraction && !integral) {
+			// 19 digits may still fit in a long
+			try {
+				longValue = Long.parseLong(new String(chars, 0, length));
+				integral = true;
+				return;
+			} catch (NumberFormatException e) {
+				// too big, read as double
+			}
+		}
+		if (integral) {
+			long value = 0;
+			for (int i = start; i < length; i++) {
+				char digit = chars[i];
+				if (digit < '0' || digit > '9') {
+					throw error("Invalid number");
+				}
+				value = value * 10 + (digit - '0');
+			}
+			longValue = start == 1 ? -value : value;
+		} else {
+			try {
+				doubleValue = Double.parseDouble(new String(chars, 0, length));
+			} catch (NumberFormatException e) {
+				throw error("Invalid number");
+			}
+		}
+	}
+
+	private void readString() throws IOException {
+		length = 0;
+		while (true) {
+			// fast path for ASCII without escapes
+			while (position < limit) {
+				byte b = buffer[position];
+				if (b < 0x20 || b == '"' || b == '\\') {
+					break;
+				}
+				append((char) b);
+				position++;
+			}
+			int c = read();
+			if (c == '"') {
+				return;
+			} else if (c == '\\') {
+				escape();
+			} else if (c < 0) {
+				throw error("Unterminated string");
+			} else if (c < 0x20) {
+				throw error("Control character in string");
+			} else if (c < 0x80) {
+				// the fast path stopped at the end of the buffer
+				append((char) c);
+			} else {
+				decode(c);
+			}
+		}
+	}
+
+	private void escape() throws IOException {
+		int c = read();
+		switch (c) {
+			case '"':
+			case '\\':
+			case '/':
+				append((char) c);
+				break;
+			case 'b':
+				append('\b');
+				break;
+			case 'f':
+				append('\f');
+				break;
+			case 'n':
+				append('\n');
+				break;
+			case 'r':
+				append('\r');
+				break;
+			case 't':
+				append('\t');
+				break;
+			case 'u':
+				int value = 0;
+				for (int i = 0; i < 4; i++) {
+					int digit = Character.digit(read(), 16);
+					if (digit < 0) {
+						throw error("Invalid unicode escape");
+					}
+					value = value << 4 | digit;
+				}
+				append((char) value);
+				break;
+			default:
+				throw error("Invalid escape");
+		}
+	}
+
+	/**
+	 * Decodes a multi-byte UTF-8 sequence which starts with the given byte.
+	 */
+	private void decode(int first) throws IOException {
+		int codePoint;
+		int continuation;
+		if (first >= 0xC0 && first < 0xE0) {
+			codePoint = first & 0x1F;
+			continuation = 1;
+		} else if (first >= 0xE0 && first < 0xF0) {
+			codePoint = first & 0x0F;
+			continuation = 2;
+		} else if (first >= 0xF0 && first < 0xF8) {
+			codePoint = first & 0x07;
+			continuation = 3;
+		} else {
+			throw error("Malformed UTF-8");
+		}
+		for (int i = 0; i < continuation; i++) {
+			int c = read();
+			if ((c & 0xC0) != 0x80) {
+				throw error("Malformed UTF-8");
+			}
+			codePoint = codePoint << 6 | (c & 0x3F);
+		}
+		if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+			append(Character.highSurrogate(codePoint));
+			append(Character.lowSurrogate(codePoint));
+		} else {
+			append((char) codePoint);
+		}
+	}
+
+	/**
+	 * Documents repeat the same names, so the last String created for each hash bucket is reused.
+	 */
+	private String name() {
+		int hash = 0;
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + chars[i];
+		}
+		int index = (hash ^ hash >>> 16) & (names.length - 1);
+		String name = names[index];
+		if (name == null || !textEquals(name)) {
+			name = new String(chars, 0, length);
+			names[index] = name;
+		}
+		return name;
+	}
+
+	private void append(char c) {
+		if (length == chars.length) {
+			chars = Arrays.copyOf(chars, length * 2);
+		}
+		chars[length++] = c;
+	}
+
+	private int skipWhitespace() throws IOException {
+		while (true) {
+			int c = read();
+			if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+				return c;
+			}
+		}
+	}
+
+	private int peek() throws IOException {
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		return buffer[position] & 0xFF;
+	}
+
+	private int read() throws IOException {
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		return buffer[position++] & 0xFF;
+	}
+
+	private boolean fill() throws IOException {
+		int read;
+		if (in != null) {
+			read = in.read(buffer, 0, buffer.length);
+		} else if (source != null && source.hasRemaining()) {
+			read = Math.min(buffer.length, source.remaining());
+			source.get(buffer, 0, read);
+		} else {
+			return false;
+		}
+		if (read <= 0) {
+			return false;
+		}
+		bufferStart += limit;
+		position = 0;
+		limit = read;
+		return true;
+	}
+
+	private void push(byte state) {
+		if (depth == stack.length) {
+			stack = Arrays.copyOf(stack, depth * 2);
+		}
+		stack[depth++] = state;
+	}
+
+	private JsonParseException error(String message) {
+		return new JsonParseException(message, bufferStart + position - 1);
+	}
+}
@@ -0,0 +1,15 @@
+package Json;
+
+public enum JsonToken {
+	BEGIN_OBJECT,
+	END_OBJECT,
+	BEGIN_ARRAY,
+	END_ARRAY,
+	NAME,
+	STRING,
+	NUMBER,
+	TRUE,
+	FALSE,
+	NULL,
+	END_DOCUMENT
+}
@@ -0,0 +1,310 @@
+package Json;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Streaming JSON writer. Characters are encoded as UTF-8 straight into a byte buffer
+ * which is passed to the OutputStream when it is full, so the document never exists as a String.
+ */
+public class JsonWriter implements Closeable, Flushable {
+	private static final int BUFFER_SIZE = 8192;
+	private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+	private static final byte EMPTY_DOCUMENT = 0;
+	private static final byte NONEMPTY_DOCUMENT = 1;
+	private static final byte EMPTY_ARRAY = 2;
+	private static final byte NONEMPTY_ARRAY = 3;
+	private static final byte EMPTY_OBJECT = 4;
+	private static final byte DANGLING_NAME = 5;
+	private static final byte NONEMPTY_OBJECT = 6;
+
+	private final OutputStream out;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int count;
+
+	private byte[] stack = new byte[32];
+	private int depth;
+
+	public JsonWriter(OutputStream out) {
+		this.out = out;
+		push(EMPTY_DOCUMENT);
+	}
+
+	public JsonWriter beginObject() throws IOException {
+		beforeValue();
+		push(EMPTY_OBJECT);
+		write('{');
+		return this;
+	}
+
+	public JsonWriter endObject() throws IOException {
+		byte top = stack[depth - 1];
+		if (top != EMPTY_OBJECT && top != NONEMPTY_OBJECT) {
+			throw new IllegalStateException("Not in an object or a value is missing");
+		}
+		depth--;
+		write('}');
+		return this;
+	}
+
+	public JsonWriter beginArray() throws IOException {
+		beforeValue();
+		push(EMPTY_ARRAY);
+		write('[');
+		return this;
+	}
+
+	public JsonWriter endArray() throws IOException {
+		byte top = stack[depth - 1];
+		if (top != EMPTY_ARRAY && top != NONEMPTY_ARRAY) {
+			throw new IllegalStateException("Not in an array");
+		}
+		depth--;
+		write(']');
+		return this;
+	}
+
+	public JsonWriter name(CharSequence name) throws IOException {
+		byte top = stack[depth - 1];
+		if (top == NONEMPTY_OBJECT) {
+			write(',');
+		} else if (top != EMPTY_OBJECT) {
+			throw new IllegalStateException("Name outside of an object");
+		}
+		stack[depth - 1] = DANGLING_NAME;
+		string(name);
+		write(':');
+		return this;
+	}
+
+	public JsonWriter value(CharSequence value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		}
+		beforeValue();
+		string(value);
+		return this;
+	}
+
+	public JsonWriter value(long value) throws IOException {
+		beforeValue();
+		if (value == Long.MIN_VALUE) {
+			ascii(Long.toString(value));
+			return this;
+		}
+		if (value < 0) {
+			write('-');
+			value = -value;
+		}
+		ensure(20);
+		int digits = 1;
+		for (long rest = value / 10; rest != 0; rest /= 10) {
+			digits++;
+		}
+		for (int i = count + digits - 1; i >= count; i--) {
+			buffer[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		count += digits;
+		return this;
+	}
+
+	public JsonWriter value(double value) throws IOException {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			throw new IllegalArgumentException("JSON has no " + value);
+		}
+		if (value == (long) value && Math.abs(value) < 1e15) {
+			return value((long) value);
+		}
+		beforeValue();
+		ascii(Double.toString(value));
+		return this;
+	}
+
+	public JsonWriter value(boolean value) throws IOException {
+		beforeValue();
+		ascii(value ? "true" : "false");
+		return this;
+	}
+
+	public JsonWriter nullValue() throws IOException {
+		beforeValue();
+		ascii("null");
+		return this;
+	}
+
+	/**
+	 * Writes maps, iterables, arrays, numbers, booleans, char sequences and null. Other objects are written as strings.
+	 */
+	public JsonWriter value(Object value) throws IOException {
+		if (value == null) {
+			return nullValue();
+		} else if (value instanceof CharSequence) {
+			return value((CharSequence) value);
+		} else if (value instanceof BigDecimal || value instanceof BigInteger) {
+			// exact and always finite, their toString is a JSON number
+			beforeValue();
+			ascii(value.toString());
+			return this;
+		} else if (value instanceof Double || value instanceof Float) {
+			return value(((Number) value).doubleValue());
+		} else if (value instanceof Number) {
+			return value(((Number) value).longValue());
+		} else if (value instanceof Boolean) {
+			return value(((Boolean) value).booleanValue());
+		} else if (value instanceof Map) {
+			beginObject();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				name(String.valueOf(entry.getKey()));
+				value(entry.getValue());
+			}
+			return endObject();
+		} else if (value instanceof Iterable) {
+			beginArray();
+			for (Object element : (Iterable<?>) value) {
+				value(element);
+			}
+			return endArray();
+		} else if (value.getClass().isArray()) {
+			beginArray();
+			for (int i = 0; i < Array.getLength(value); i++) {
+				value(Array.get(value, i));
+			}
+			return endArray();
+		}
+		return value(value.toString());
+	}
+
+	@Override
+	public void flush() throws IOException {
+		drain();
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		flush();
+		out.close();
+	}
+
+	private void beforeValue() throws IOException {
+		switch (stack[depth - 1]) {
+			case EMPTY_DOCUMENT:
+				stack[depth - 1] = NONEMPTY_DOCUMENT;
+				break;
+			case EMPTY_ARRAY:
+				stack[depth - 1] = NONEMPTY_ARRAY;
+				break;
+			case NONEMPTY_ARRAY:
+				write(',');
+				break;
+			case DANGLING_NAME:
+				stack[depth - 1] = NONEMPTY_OBJECT;
+				break;
+			case NONEMPTY_DOCUMENT:
+				throw new IllegalStateException("Document has only one top-level value");
+			default:
+				throw new IllegalStateException("Name expected");
+		}
+	}
+
+	private void string(CharSequence text) throws IOException {
+		write('"');
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			// worst case: \\uXXXX or 4 bytes of a surrogate pair
+			ensure(6);
+			if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+				buffer[count++] = (byte) c;
+			} else if (c < 0x80) {
+				escape(c);
+			} else if (c < 0x800) {
+				buffer[count++] = (byte) (0xC0 | c >> 6);
+				buffer[count++] = (byte) (0x80 | c & 0x3F);
+			} else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+					&& Character.isLowSurrogate(text.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, text.charAt(++i));
+				buffer[count++] = (byte) (0xF0 | codePoint >> 18);
+				buffer[count++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+				buffer[count++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+				buffer[count++] = (byte) (0x80 | codePoint & 0x3F);
+			} else if (Character.isSurrogate(c)) {
+				// unpaired surrogate cannot be encoded as UTF-8, it is escaped
+				escape(c);
+			} else {
+				buffer[count++] = (byte) (0xE0 | c >> 12);
+				buffer[count++] = (byte) (0x80 | c >> 6 & 0x3F);
+				buffer[count++] = (byte) (0x80 | c & 0x3F);
+			}
+		}
+		write('"');
+	}
+
+	private void escape(char c) {
+		buffer[count++] = '\\';
+		switch (c) {
+			case '"':
+			case '\\':
+				buffer[count++] = (byte) c;
+				break;
+			case '\n':
+				buffer[count++] = 'n';
+				break;
+			case '\r':
+				buffer[count++] = 'r';
+				break;
+			case '\t':
+				buffer[count++] = 't';
+				break;
+			default:
+				buffer[count++] = 'u';
+				buffer[count++] = HEX[c >> 12 & 0xF];
+				buffer[count++] = HEX[c >> 8 & 0xF];
+				buffer[count++] = HEX[c >> 4 & 0xF];
+				buffer[count++] = HEX[c & 0xF];
+		}
+	}
+
+	private void ascii(String text) throws IOException {
+		// big numbers may be longer than the buffer
+		for (int start = 0; start < text.length(); ) {
+			ensure(Math.min(text.length() - start, buffer.length));
+			int end = Math.min(text.length(), start + buffer.length - count);
+			for (int i = start; i < end; i++) {
+				buffer[count++] = (byte) text.charAt(i);
+			}
+			start = end;
+		}
+	}
+
+	private void write(char c) throws IOException {
+		ensure(1);
+		buffer[count++] = (byte) c;
+	}
+
+	private void ensure(int bytes) throws IOException {
+		if (count + bytes > buffer.length) {
+			drain();
+		}
+	}
+
+	private void drain() throws IOException {
+		out.write(buffer, 0, count);
+		count = 0;
+	}
+
+	private void push(byte state) {
+		if (depth == stack.length) {
+			stack = Arrays.copyOf(stack, depth * 2);
+		}
+		stack[depth++] = state;
+	}
+}
@@ -0,0 +1,193 @@
+package javaSe.map;
+
+import java.util.BitSet;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Spliterators over the dense key and value arrays of the primitive maps.
+ *
+ * Entries are stored in positions [0, used), so a part is just a range of positions and is split in halves,
+ * which gives parallel streams parts of equal size without walking the hash table. Without removed entries
+ * the parts are SIZED and SUBSIZED. Spliterators read the arrays of the map directly, so the map
+ * must not be modified while they are used.
+ */
+final class DenseSpliterators {
+	private DenseSpliterators() {
+	}
+
+	static Spliterator.OfInt ofInt(int[] array, int used, BitSet holes, int characteristics) {
+		return new IntRange(array, 0, used, holes, characteristics | Spliterator.NONNULL);
+	}
+
+	static Spliterator.OfDouble ofDouble(double[] array, int used, BitSet holes, int characteristics) {
+		return new DoubleRange(array, 0, used, holes, characteristics | Spliterator.NONNULL);
+	}
+
+	static <T> Spliterator<T> of(Object[] array, int used, BitSet holes, int characteristics) {
+		return new ObjectRange<>(array, 0, used, holes, characteristics);
+	}
+
+	private abstract static class Range<S extends Range<S>> {
+		final BitSet holes;
+		final int fence;
+		final int characteristics;
+		int origin;
+
+		Range(int origin, int fence, BitSet holes, int characteristics) {
+			this.origin = origin;
+			this.fence = fence;
+			this.holes = holes;
+			this.characteristics = holes == null ? characteristics | Spliterator.SIZED | Spliterator.SUBSIZED : characteristics;
+		}
+
+		abstract S create(int origin, int fence);
+
+		public S trySplit() {
+			int middle = (origin + fence) >>> 1;
+			if (middle <= origin) {
+				return null;
+			}
+			S prefix = create(origin, middle);
+			origin = middle;
+			return prefix;
+		}
+
+		public long estimateSize() {
+			return fence - origin;
+		}
+
+		public int characteristics() {
+			return characteristics;
+		}
+
+		/**
+		 * @return the next live position or -1 at the end of the range
+		 */
+		int next() {
+			while (origin < fence) {
+				int position = origin++;
+				if (holes == null || !holes.get(position)) {
+					return position;
+				}
+			}
+			return -1;
+		}
+
+		boolean isLive(int position) {
+			return holes == null || !holes.get(position);
+		}
+	}
+
+	private static final class IntRange extends Range<IntRange> implements Spliterator.OfInt {
+		private final int[] array;
+
+		IntRange(int[] array, int origin, int fence, BitSet holes, int characteristics) {
+			super(origin, fence, holes, characteristics);
+			this.array = array;
+		}
+
+		@Override
+		IntRange create(int origin, int fence) {
+			return new IntRange(array, origin, fence, holes, characteristics);
+		}
+
+		@Override
+		public boolean tryAdvance(IntConsumer action) {
+			int position = next();
+			if (position < 0) {
+				return false;
+			}
+			action.accept(array[position]);
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(IntConsumer action) {
+			int[] array = this.array;
+			int end = fence;
+			for (int position = origin; position < end; position++) {
+				if (isLive(position)) {
+					action.accept(array[position]);
+				}
+			}
+			origin = end;
+		}
+	}
+
+	private static final class DoubleRange extends Range<DoubleRange> implements Spliterator.OfDouble {
+		private final double[] array;
+
+		DoubleRange(double[] array, int origin, int fence, BitSet holes, int characteristics) {
+			super(origin, fence, holes, characteristics);
+			this.array = array;
+		}
+
+		@Override
+		DoubleRange create(int origin, int fence) {
+			return new DoubleRange(array, origin, fence, holes, characteristics);
+		}
+
+		@Override
+		public boolean tryAdvance(DoubleConsumer action) {
+			int position = next();
+			if (position < 0) {
+				return false;
+			}
+			action.accept(array[position]);
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(DoubleConsumer action) {
+			double[] array = this.array;
+			int end = fence;
+			for (int position = origin; position < end; position++) {
+				if (isLive(position)) {
+					action.accept(array[position]);
+				}
+			}
+			origin = end;
+		}
+	}
+
+	private static final class ObjectRange<T> extends Range<ObjectRange<T>> implements Spliterator<T> {
+		private final Object[] array;
+
+		ObjectRange(Object[] array, int origin, int fence, BitSet holes, int characteristics) {
+			super(origin, fence, holes, characteristics);
+			this.array = array;
+		}
+
+		@Override
+		ObjectRange<T> create(int origin, int fence) {
+			return new ObjectRange<>(array, origin, fence, holes, characteristics);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public boolean tryAdvance(Consumer<? super T> action) {
+			int position = next();
+			if (position < 0) {
+				return false;
+			}
+			action.accept((T) array[position]);
+			return true;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public void forEachRemaining(Consumer<? super T> action) {
+			Object[] array = this.array;
+			int end = fence;
+			for (int position = origin; position < end; position++) {
+				if (isLive(position)) {
+					action.accept((T) array[position]);
+				}
+			}
+			origin = end;
+		}
+	}
+}
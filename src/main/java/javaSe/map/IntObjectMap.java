@@ -0,0 +1,332 @@
+package javaSe.map;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Map from int to objects, without boxed keys and without an entry object per mapping.
+ *
+ * Entries are kept in dense arrays in the order they were put. A separate open addressing table with linear probing
+ * stores only positions in those arrays, so lookups touch two small arrays and iteration is a plain loop.
+ *
+ * Removal can be done in two ways:
+ * - by default the last entry is moved into the freed position, which is O(1) but changes the order,
+ * - with insertionOrder the position is left empty until the arrays are compacted, so entries are always
+ *   iterated in insertion order (like LinkedHashMap, and unlike HashMap whose order depends on hashes).
+ */
+public class IntObjectMap<V> {
+	private static final int FREE = -1;
+
+	public interface EntryConsumer<V> {
+		void accept(int key, V value);
+	}
+
+	private final boolean insertionOrder;
+	private int[] index;
+	private int mask;
+	private int[] keys;
+	private Object[] values;
+	private int used;
+	private int size;
+	private BitSet holes;
+
+	public IntObjectMap() {
+		this(16, false);
+	}
+
+	public IntObjectMap(int expectedSize) {
+		this(expectedSize, false);
+	}
+
+	public IntObjectMap(int expectedSize, boolean insertionOrder) {
+		this.insertionOrder = insertionOrder;
+		int capacity = Math.max(4, expectedSize);
+		keys = new int[capacity];
+		values = new Object[capacity];
+		rebuildIndex();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean containsKey(int key) {
+		return find(key) >= 0;
+	}
+
+	public V get(int key) {
+		return getOrDefault(key, null);
+	}
+
+	@SuppressWarnings("unchecked")
+	public V getOrDefault(int key, V defaultValue) {
+		int slot = find(key);
+		return slot < 0 ? defaultValue : (V) values[index[slot]];
+	}
+
+	/**
+	 * @return previous value or null when there was no mapping for the key
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(int key, V value) {
+		int slot = find(key);
+		if (slot >= 0) {
+			int position = index[slot];
+			V previous = (V) values[position];
+			values[position] = value;
+			return previous;
+		}
+		if (used == keys.length) {
+			ensureCapacity(size + 1);
+		}
+		insert(key, value);
+		return null;
+	}
+
+	public void putAll(IntObjectMap<? extends V> other) {
+		ensureCapacity(size + other.size);
+		for (int position = 0; position < other.used; position++) {
+			if (other.isLive(position)) {
+				put(other.keys[position], other.valueAt(position));
+			}
+		}
+	}
+
+	public void putAll(int[] keys, V[] values) {
+		if (keys.length != values.length) {
+			throw new IllegalArgumentException("keys and values have different length");
+		}
+		ensureCapacity(size + keys.length);
+		for (int i = 0; i < keys.length; i++) {
+			put(keys[i], values[i]);
+		}
+	}
+
+	/**
+	 * @return removed value or null when there was no mapping for the key
+	 */
+	public V remove(int key) {
+		int slot = find(key);
+		if (slot < 0) {
+			return null;
+		}
+		int position = index[slot];
+		V previous = valueAt(position);
+		deleteSlot(slot);
+		size--;
+
+		int last = used - 1;
+		if (insertionOrder && position != last) {
+			values[position] = null;
+			if (holes == null) {
+				holes = new BitSet();
+			}
+			holes.set(position);
+		} else {
+			if (position != last) {
+				keys[position] = keys[last];
+				values[position] = values[last];
+				index[find(keys[last])] = position;
+			}
+			values[last] = null;
+			used--;
+		}
+		return previous;
+	}
+
+	public void clear() {
+		Arrays.fill(values, 0, used, null);
+		Arrays.fill(index, FREE);
+		used = 0;
+		size = 0;
+		holes = null;
+	}
+
+	/**
+	 * Visits entries without creating any object per entry.
+	 */
+	public void forEach(EntryConsumer<? super V> consumer) {
+		for (int position = 0; position < used; position++) {
+			if (isLive(position)) {
+				consumer.accept(keys[position], valueAt(position));
+			}
+		}
+	}
+
+	/**
+	 * Keys in the order of forEach. The spliterator splits the dense key array in halves,
+	 * so keys().parallel() gives every thread an equal part. The map must not be modified while it is used.
+	 */
+	public Spliterator.OfInt keySpliterator() {
+		return DenseSpliterators.ofInt(keys, used, holes, Spliterator.DISTINCT | order());
+	}
+
+	public Spliterator<V> valueSpliterator() {
+		return DenseSpliterators.of(values, used, holes, order());
+	}
+
+	public IntStream keys() {
+		return StreamSupport.intStream(keySpliterator(), false);
+	}
+
+	public Stream<V> values() {
+		return StreamSupport.stream(valueSpliterator(), false);
+	}
+
+	private int order() {
+		return insertionOrder ? Spliterator.ORDERED : 0;
+	}
+
+	/**
+	 * Iterator which reuses itself for every entry:
+	 * <pre>
+	 * for (IntObjectMap&lt;String&gt;.Cursor c = map.cursor(); c.advance(); ) {
+	 *     c.key(); c.value();
+	 * }
+	 * </pre>
+	 */
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	public final class Cursor {
+		private int position = -1;
+
+		private Cursor() {
+		}
+
+		public boolean advance() {
+			while (++position < used) {
+				if (isLive(position)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		public int key() {
+			return keys[position];
+		}
+
+		public V value() {
+			return valueAt(position);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("{");
+		forEach((key, value) -> {
+			if (result.length() > 1) {
+				result.append(", ");
+			}
+			result.append(key).append('=').append(value);
+		});
+		return result.append('}').toString();
+	}
+
+	@SuppressWarnings("unchecked")
+	private V valueAt(int position) {
+		return (V) values[position];
+	}
+
+	private boolean isLive(int position) {
+		return holes == null || !holes.get(position);
+	}
+
+	private int find(int key) {
+		for (int slot = slotOf(key); ; slot = (slot + 1) & mask) {
+			int position = index[slot];
+			if (position == FREE) {
+				return -1;
+			}
+			if (keys[position] == key) {
+				return slot;
+			}
+		}
+	}
+
+	private void insert(int key, Object value) {
+		int slot = slotOf(key);
+		while (index[slot] != FREE) {
+			slot = (slot + 1) & mask;
+		}
+		keys[used] = key;
+		values[used] = value;
+		index[slot] = used++;
+		size++;
+	}
+
+	/**
+	 * Backward shift deletion: entries after the slot are moved back if it brings them closer to their home slot,
+	 * so the table never needs tombstones.
+	 */
+	private void deleteSlot(int slot) {
+		int hole = slot;
+		for (int i = (slot + 1) & mask; index[i] != FREE; i = (i + 1) & mask) {
+			int home = slotOf(keys[index[i]]);
+			if (((i - home) & mask) >= ((i - hole) & mask)) {
+				index[hole] = index[i];
+				hole = i;
+			}
+		}
+		index[hole] = FREE;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (holes != null) {
+			compact();
+		}
+		if (capacity > keys.length) {
+			int newCapacity = Math.max(capacity, keys.length * 2);
+			keys = Arrays.copyOf(keys, newCapacity);
+			values = Arrays.copyOf(values, newCapacity);
+			rebuildIndex();
+		}
+	}
+
+	private void compact() {
+		int target = 0;
+		for (int position = 0; position < used; position++) {
+			if (!holes.get(position)) {
+				keys[target] = keys[position];
+				values[target] = values[position];
+				target++;
+			}
+		}
+		Arrays.fill(values, target, used, null);
+		used = target;
+		holes = null;
+		rebuildIndex();
+	}
+
+	private void rebuildIndex() {
+		// the table is at most half full, so probe sequences stay short
+		int tableSize = Integer.highestOneBit(keys.length * 2 - 1) << 1;
+		if (index == null || index.length != tableSize) {
+			index = new int[tableSize];
+			mask = tableSize - 1;
+		}
+		Arrays.fill(index, FREE);
+		for (int position = 0; position < used; position++) {
+			int slot = slotOf(keys[position]);
+			while (index[slot] != FREE) {
+				slot = (slot + 1) & mask;
+			}
+			index[slot] = position;
+		}
+	}
+
+	private int slotOf(int key) {
+		int h = key * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+}
@@ -0,0 +1,512 @@
+package javaSe.map;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map&lt;String, V&gt; kept in a memory-mapped file instead of the heap.
+ *
+ * The file is a header followed by a table of fixed-size slots (open addressing with linear probing):
+ * <pre>
+ * slot: state(1) flags(1) keyLength(2) valueLength(4) hash(4) key[maxKeyBytes] value[maxValueBytes]
+ * </pre>
+ * Keys are stored as UTF-8 and values are written by a {@link ValueCodec} straight into the mapped memory.
+ * Opening an existing file only maps it, nothing is loaded or rebuilt, so a restart is instant.
+ *
+ * Behaves like HashMap: null key and null values are allowed, the table is doubled when it is 75% full,
+ * and buckets are chosen with the same hash spreading, so a small map without collisions iterates in the same order.
+ * It is not thread-safe. Changes are written to disk by the OS, call {@link #force()} to do it immediately.
+ */
+public class MappedFileMap<V> extends AbstractMap<String, V> implements Closeable {
+	private static final int MAGIC = 0x4D4D4150;
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 64;
+	private static final int SLOT_HEADER_SIZE = 12;
+
+	private static final byte FREE = 0;
+	private static final byte USED = 1;
+	private static final byte NULL_KEY = 1;
+	private static final byte NULL_VALUE = 2;
+
+	private final Path path;
+	private final ValueCodec<V> codec;
+	private final int maxKeyBytes;
+	private final int maxValueBytes;
+	private final int slotSize;
+
+	private FileChannel channel;
+	private MappedByteBuffer header;
+	private MappedByteBuffer[] segments;
+	private int slotsPerSegment;
+	private int capacity;
+	private int mask;
+	private int size;
+	private int modifications;
+
+	public MappedFileMap(Path path, ValueCodec<V> codec, int maxKeyBytes, int maxValueBytes) throws IOException {
+		this(path, codec, maxKeyBytes, maxValueBytes, 16);
+	}
+
+	/**
+	 * Opens the map stored in the file, or creates the file when it does not exist.
+	 */
+	public MappedFileMap(Path path, ValueCodec<V> codec, int maxKeyBytes, int maxValueBytes, int initialCapacity)
+			throws IOException {
+		if (maxKeyBytes < 1 || maxKeyBytes > Short.MAX_VALUE || maxValueBytes < 0) {
+			throw new IllegalArgumentException("Invalid slot size: " + maxKeyBytes + "/" + maxValueBytes);
+		}
+		this.path = path;
+		this.codec = codec;
+		this.maxKeyBytes = maxKeyBytes;
+		this.maxValueBytes = maxValueBytes;
+		this.slotSize = (SLOT_HEADER_SIZE + maxKeyBytes + maxValueBytes + 7) & ~7;
+
+		if (Files.exists(path) && Files.size(path) > 0) {
+			open();
+		} else {
+			create(Integer.highestOneBit(Math.max(2, initialCapacity) - 1) << 1);
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return (key == null || key instanceof String) && find((String) key, encode((String) key)) >= 0;
+	}
+
+	@Override
+	public V get(Object key) {
+		if (key != null && !(key instanceof String)) {
+			return null;
+		}
+		int slot = find((String) key, encode((String) key));
+		return slot < 0 ? null : readValue(slot);
+	}
+
+	/**
+	 * Zero-copy read: read-only view of the serialized value in the mapped file, or null when the key is missing.
+	 * The view is valid until the map is modified.
+	 */
+	public ByteBuffer getBuffer(String key) {
+		int slot = find(key, encode(key));
+		if (slot < 0 || (flags(slot) & NULL_VALUE) != 0) {
+			return null;
+		}
+		return valueView(slot).asReadOnlyBuffer();
+	}
+
+	@Override
+	public V put(String key, V value) {
+		byte[] keyBytes = encode(key);
+		if (keyBytes != null && keyBytes.length > maxKeyBytes) {
+			throw new IllegalArgumentException("Key is longer than " + maxKeyBytes + " bytes: " + key);
+		}
+		int slot = find(key, keyBytes);
+		if (slot >= 0) {
+			V previous = readValue(slot);
+			writeValue(slot, value);
+			return previous;
+		}
+		if (size + 1 > capacity / 4 * 3) {
+			resize(capacity * 2);
+			slot = find(key, keyBytes);
+		}
+
+		slot = ~slot;
+		ByteBuffer segment = segmentOf(slot);
+		int offset = offsetOf(slot);
+		int hash = hash(key);
+		segment.put(offset + 1, key == null ? NULL_KEY : 0);
+		segment.putShort(offset + 2, (short) (keyBytes == null ? 0 : keyBytes.length));
+		segment.putInt(offset + 8, hash);
+		if (keyBytes != null) {
+			ByteBuffer keyArea = segment.duplicate();
+			keyArea.position(offset + SLOT_HEADER_SIZE);
+			keyArea.put(keyBytes);
+		}
+		writeValue(slot, value);
+		segment.put(offset, USED);
+		setSize(size + 1);
+		return null;
+	}
+
+	@Override
+	public V remove(Object key) {
+		if (key != null && !(key instanceof String)) {
+			return null;
+		}
+		int slot = find((String) key, encode((String) key));
+		if (slot < 0) {
+			return null;
+		}
+		V previous = readValue(slot);
+		deleteSlot(slot);
+		return previous;
+	}
+
+	@Override
+	public void clear() {
+		for (int slot = 0; slot < capacity; slot++) {
+			segmentOf(slot).put(offsetOf(slot), FREE);
+		}
+		setSize(0);
+	}
+
+	@Override
+	public Set<Entry<String, V>> entrySet() {
+		return new AbstractSet<Entry<String, V>>() {
+			@Override
+			public Iterator<Entry<String, V>> iterator() {
+				return new SlotIterator();
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+
+			@Override
+			public void clear() {
+				MappedFileMap.this.clear();
+			}
+		};
+	}
+
+	/**
+	 * Writes all changes to the storage device.
+	 */
+	public void force() {
+		header.force();
+		for (MappedByteBuffer segment : segments) {
+			segment.force();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		force();
+		channel.close();
+	}
+
+	private void create(int newCapacity) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		capacity = newCapacity;
+		map();
+		header.putInt(0, MAGIC);
+		header.putInt(4, VERSION);
+		header.putInt(8, capacity);
+		header.putInt(12, maxKeyBytes);
+		header.putInt(16, maxValueBytes);
+		setSize(0);
+	}
+
+	private void open() throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		ByteBuffer fields = ByteBuffer.allocate(HEADER_SIZE);
+		channel.read(fields, 0);
+		if (fields.getInt(0) != MAGIC || fields.getInt(4) != VERSION) {
+			channel.close();
+			throw new IOException(path + " is not a map file");
+		}
+		if (fields.getInt(12) != maxKeyBytes || fields.getInt(16) != maxValueBytes) {
+			channel.close();
+			throw new IOException(path + " has slots of " + fields.getInt(12) + "/" + fields.getInt(16) + " bytes");
+		}
+		capacity = fields.getInt(8);
+		map();
+		size = header.getInt(20);
+	}
+
+	private void map() throws IOException {
+		mask = capacity - 1;
+		slotsPerSegment = Math.min(capacity, Integer.MAX_VALUE / slotSize);
+		long length = HEADER_SIZE + (long) capacity * slotSize;
+		if (channel.size() < length) {
+			channel.write(ByteBuffer.allocate(1), length - 1);
+		}
+
+		header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+		segments = new MappedByteBuffer[(capacity + slotsPerSegment - 1) / slotsPerSegment];
+		for (int i = 0; i < segments.length; i++) {
+			long start = HEADER_SIZE + (long) i * slotsPerSegment * slotSize;
+			int slots = Math.min(slotsPerSegment, capacity - i * slotsPerSegment);
+			segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, (long) slots * slotSize);
+		}
+	}
+
+	/**
+	 * The table is copied slot by slot to a new file, which then replaces this one.
+	 */
+	private void resize(int newCapacity) {
+		Path resized = Paths.get(path.toString() + ".resize");
+		try {
+			Files.deleteIfExists(resized);
+			MappedFileMap<V> target = new MappedFileMap<>(resized, codec, maxKeyBytes, maxValueBytes, newCapacity);
+			for (int slot = 0; slot < capacity; slot++) {
+				if (state(slot) == USED) {
+					target.copySlot(segmentOf(slot), offsetOf(slot));
+				}
+			}
+			target.close();
+			channel.close();
+			Files.move(resized, path, StandardCopyOption.REPLACE_EXISTING);
+			open();
+			modifications++;
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot resize " + path, e);
+		}
+	}
+
+	private void copySlot(ByteBuffer source, int sourceOffset) {
+		int hash = source.getInt(sourceOffset + 8);
+		int slot = hash & mask;
+		while (state(slot) != FREE) {
+			slot = (slot + 1) & mask;
+		}
+		moveSlot(source, sourceOffset, slot);
+		setSize(size + 1);
+	}
+
+	/**
+	 * Backward shift deletion, so the table never needs tombstones.
+	 */
+	private void deleteSlot(int slot) {
+		deleteSlot(slot, null);
+	}
+
+	/**
+	 * @param shiftedAcrossEnd if not null, gets keys moved from slots before the removed one to slots after it
+	 */
+	private void deleteSlot(int slot, Set<String> shiftedAcrossEnd) {
+		int hole = slot;
+		for (int i = (slot + 1) & mask; state(i) != FREE; i = (i + 1) & mask) {
+			int home = segmentOf(i).getInt(offsetOf(i) + 8) & mask;
+			if (((i - home) & mask) >= ((i - hole) & mask)) {
+				if (shiftedAcrossEnd != null && i < slot && hole >= slot) {
+					shiftedAcrossEnd.add(readKey(i));
+				}
+				moveSlot(segmentOf(i), offsetOf(i), hole);
+				hole = i;
+			}
+		}
+		segmentOf(hole).put(offsetOf(hole), FREE);
+		setSize(size - 1);
+	}
+
+	private void moveSlot(ByteBuffer source, int sourceOffset, int targetSlot) {
+		ByteBuffer from = source.duplicate();
+		from.position(sourceOffset).limit(sourceOffset + slotSize);
+		ByteBuffer to = segmentOf(targetSlot).duplicate();
+		to.position(offsetOf(targetSlot));
+		to.put(from);
+	}
+
+	/**
+	 * @return slot of the key, or ~slot where it can be inserted
+	 */
+	private int find(String key, byte[] keyBytes) {
+		int hash = hash(key);
+		for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+			ByteBuffer segment = segmentOf(slot);
+			int offset = offsetOf(slot);
+			if (segment.get(offset) == FREE) {
+				return ~slot;
+			}
+			if (segment.getInt(offset + 8) == hash && keyEquals(segment, offset, keyBytes)) {
+				return slot;
+			}
+		}
+	}
+
+	private boolean keyEquals(ByteBuffer segment, int offset, byte[] keyBytes) {
+		boolean nullKey = (segment.get(offset + 1) & NULL_KEY) != 0;
+		if (keyBytes == null || nullKey) {
+			return keyBytes == null && nullKey;
+		}
+		if (segment.getShort(offset + 2) != keyBytes.length) {
+			return false;
+		}
+		int start = offset + SLOT_HEADER_SIZE;
+		for (int i = 0; i < keyBytes.length; i++) {
+			if (segment.get(start + i) != keyBytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String readKey(int slot) {
+		ByteBuffer segment = segmentOf(slot);
+		int offset = offsetOf(slot);
+		if ((segment.get(offset + 1) & NULL_KEY) != 0) {
+			return null;
+		}
+		ByteBuffer key = segment.duplicate();
+		key.position(offset + SLOT_HEADER_SIZE).limit(offset + SLOT_HEADER_SIZE + segment.getShort(offset + 2));
+		return StandardCharsets.UTF_8.decode(key).toString();
+	}
+
+	private V readValue(int slot) {
+		if ((flags(slot) & NULL_VALUE) != 0) {
+			return null;
+		}
+		return codec.read(valueView(slot));
+	}
+
+	private ByteBuffer valueView(int slot) {
+		ByteBuffer segment = segmentOf(slot);
+		int start = offsetOf(slot) + SLOT_HEADER_SIZE + maxKeyBytes;
+		ByteBuffer value = segment.duplicate();
+		value.position(start).limit(start + segment.getInt(offsetOf(slot) + 4));
+		return value.slice();
+	}
+
+	private void writeValue(int slot, V value) {
+		ByteBuffer segment = segmentOf(slot);
+		int offset = offsetOf(slot);
+		int keyFlags = segment.get(offset + 1) & NULL_KEY;
+		if (value == null) {
+			segment.put(offset + 1, (byte) (keyFlags | NULL_VALUE));
+			segment.putInt(offset + 4, 0);
+			return;
+		}
+		ByteBuffer area = segment.duplicate();
+		int start = offset + SLOT_HEADER_SIZE + maxKeyBytes;
+		area.position(start).limit(start + maxValueBytes);
+		area = area.slice();
+		try {
+			codec.write(value, area);
+		} catch (BufferOverflowException e) {
+			throw new IllegalArgumentException("Value is longer than " + maxValueBytes + " bytes", e);
+		}
+		segment.put(offset + 1, (byte) keyFlags);
+		segment.putInt(offset + 4, area.position());
+	}
+
+	private byte state(int slot) {
+		return segmentOf(slot).get(offsetOf(slot));
+	}
+
+	private byte flags(int slot) {
+		return segmentOf(slot).get(offsetOf(slot) + 1);
+	}
+
+	private void setSize(int newSize) {
+		size = newSize;
+		header.putInt(20, newSize);
+		modifications++;
+	}
+
+	private ByteBuffer segmentOf(int slot) {
+		return segments[slot / slotsPerSegment];
+	}
+
+	private int offsetOf(int slot) {
+		return (slot % slotsPerSegment) * slotSize;
+	}
+
+	private static byte[] encode(String key) {
+		return key == null ? null : key.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static int hash(String key) {
+		int h;
+		return key == null ? 0 : (h = key.hashCode()) ^ (h >>> 16);
+	}
+
+	/**
+	 * Iterates slots from the first one, like HashMap iterates its buckets. Backward shift deletion moves entries only
+	 * towards the removed slot, so after remove() the same slot is checked again and nothing is skipped. Only an entry
+	 * of the first slots, already visited, can be shifted back across the end of the table, and it is not returned again.
+	 */
+	private final class SlotIterator implements Iterator<Entry<String, V>> {
+		private final Set<String> shiftedAcrossEnd = new HashSet<>();
+		private int next = -1;
+		private int current = -1;
+		private int expectedModifications = modifications;
+
+		SlotIterator() {
+			advance(0);
+		}
+
+		private void advance(int from) {
+			next = -1;
+			for (int slot = from; slot < capacity; slot++) {
+				if (state(slot) == USED && (shiftedAcrossEnd.isEmpty() || !shiftedAcrossEnd.remove(readKey(slot)))) {
+					next = slot;
+					return;
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next >= 0;
+		}
+
+		@Override
+		public Entry<String, V> next() {
+			if (modifications != expectedModifications) {
+				throw new ConcurrentModificationException();
+			}
+			if (next < 0) {
+				throw new NoSuchElementException();
+			}
+			current = next;
+			Entry<String, V> entry = new MappedEntry(readKey(current), readValue(current));
+			advance(current + 1);
+			return entry;
+		}
+
+		@Override
+		public void remove() {
+			if (current < 0) {
+				throw new IllegalStateException();
+			}
+			if (modifications != expectedModifications) {
+				throw new ConcurrentModificationException();
+			}
+			deleteSlot(current, shiftedAcrossEnd);
+			expectedModifications = modifications;
+			// an entry may have been shifted into the removed slot, it has not been visited yet
+			advance(current);
+			current = -1;
+		}
+	}
+
+	private final class MappedEntry extends SimpleEntry<String, V> {
+		private static final long serialVersionUID = 1L;
+
+		MappedEntry(String key, V value) {
+			super(key, value);
+		}
+
+		@Override
+		public V setValue(V value) {
+			put(getKey(), value);
+			return super.setValue(value);
+		}
+	}
+}
@@ -0,0 +1,332 @@
+package javaSe.map;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Spliterator;
+import java.util.stream.DoubleStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Map from objects to double, like Map&lt;String, Double&gt; from howToStringOnMapWorks but without boxed values.
+ * The layout is the same as in {@link IntObjectMap}. Null keys are not allowed.
+ *
+ * A missing key is reported with the no entry value (0 by default).
+ */
+public class ObjectDoubleMap<K> {
+	private static final int FREE = -1;
+
+	public interface EntryConsumer<K> {
+		void accept(K key, double value);
+	}
+
+	private final boolean insertionOrder;
+	private final double noEntryValue;
+	private int[] index;
+	private int mask;
+	private Object[] keys;
+	private double[] values;
+	private int used;
+	private int size;
+	private BitSet holes;
+
+	public ObjectDoubleMap() {
+		this(16, false, 0.0d);
+	}
+
+	public ObjectDoubleMap(int expectedSize) {
+		this(expectedSize, false, 0.0d);
+	}
+
+	public ObjectDoubleMap(int expectedSize, boolean insertionOrder, double noEntryValue) {
+		this.insertionOrder = insertionOrder;
+		this.noEntryValue = noEntryValue;
+		int capacity = Math.max(4, expectedSize);
+		keys = new Object[capacity];
+		values = new double[capacity];
+		rebuildIndex();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public double getNoEntryValue() {
+		return noEntryValue;
+	}
+
+	public boolean containsKey(Object key) {
+		return find(key) >= 0;
+	}
+
+	public double get(Object key) {
+		return getOrDefault(key, noEntryValue);
+	}
+
+	public double getOrDefault(Object key, double defaultValue) {
+		int slot = find(key);
+		return slot < 0 ? defaultValue : values[index[slot]];
+	}
+
+	/**
+	 * @return previous value or the no entry value when there was no mapping for the key
+	 */
+	public double put(K key, double value) {
+		int slot = find(key);
+		if (slot >= 0) {
+			int position = index[slot];
+			double previous = values[position];
+			values[position] = value;
+			return previous;
+		}
+		if (used == keys.length) {
+			ensureCapacity(size + 1);
+		}
+		insert(key, value);
+		return noEntryValue;
+	}
+
+	/**
+	 * Adds delta to the value of the key, a missing key starts from the no entry value.
+	 *
+	 * @return the new value
+	 */
+	public double addTo(K key, double delta) {
+		int slot = find(key);
+		if (slot >= 0) {
+			return values[index[slot]] += delta;
+		}
+		if (used == keys.length) {
+			ensureCapacity(size + 1);
+		}
+		insert(key, noEntryValue + delta);
+		return noEntryValue + delta;
+	}
+
+	public void putAll(ObjectDoubleMap<? extends K> other) {
+		ensureCapacity(size + other.size);
+		for (int position = 0; position < other.used; position++) {
+			if (other.isLive(position)) {
+				put(other.keyAt(position), other.values[position]);
+			}
+		}
+	}
+
+	public void putAll(K[] keys, double[] values) {
+		if (keys.length != values.length) {
+			throw new IllegalArgumentException("keys and values have different length");
+		}
+		ensureCapacity(size + keys.length);
+		for (int i = 0; i < keys.length; i++) {
+			put(keys[i], values[i]);
+		}
+	}
+
+	/**
+	 * @return removed value or the no entry value when there was no mapping for the key
+	 */
+	public double remove(Object key) {
+		int slot = find(key);
+		if (slot < 0) {
+			return noEntryValue;
+		}
+		int position = index[slot];
+		double previous = values[position];
+		deleteSlot(slot);
+		size--;
+
+		int last = used - 1;
+		if (insertionOrder && position != last) {
+			keys[position] = null;
+			if (holes == null) {
+				holes = new BitSet();
+			}
+			holes.set(position);
+		} else {
+			if (position != last) {
+				keys[position] = keys[last];
+				values[position] = values[last];
+				index[find(keys[last])] = position;
+			}
+			keys[last] = null;
+			used--;
+		}
+		return previous;
+	}
+
+	public void clear() {
+		Arrays.fill(keys, 0, used, null);
+		Arrays.fill(index, FREE);
+		used = 0;
+		size = 0;
+		holes = null;
+	}
+
+	public void forEach(EntryConsumer<? super K> consumer) {
+		for (int position = 0; position < used; position++) {
+			if (isLive(position)) {
+				consumer.accept(keyAt(position), values[position]);
+			}
+		}
+	}
+
+	/**
+	 * Keys in the order of forEach. The spliterator splits the dense key array in halves,
+	 * so keys().parallel() gives every thread an equal part. The map must not be modified while it is used.
+	 */
+	public Spliterator<K> keySpliterator() {
+		return DenseSpliterators.of(keys, used, holes, Spliterator.DISTINCT | Spliterator.NONNULL | order());
+	}
+
+	public Spliterator.OfDouble valueSpliterator() {
+		return DenseSpliterators.ofDouble(values, used, holes, order());
+	}
+
+	public Stream<K> keys() {
+		return StreamSupport.stream(keySpliterator(), false);
+	}
+
+	public DoubleStream values() {
+		return StreamSupport.doubleStream(valueSpliterator(), false);
+	}
+
+	private int order() {
+		return insertionOrder ? Spliterator.ORDERED : 0;
+	}
+
+	public Cursor cursor() {
+		return new Cursor();
+	}
+
+	public final class Cursor {
+		private int position = -1;
+
+		private Cursor() {
+		}
+
+		public boolean advance() {
+			while (++position < used) {
+				if (isLive(position)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		public K key() {
+			return keyAt(position);
+		}
+
+		public double value() {
+			return values[position];
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("{");
+		forEach((key, value) -> {
+			if (result.length() > 1) {
+				result.append(", ");
+			}
+			result.append(key).append('=').append(value);
+		});
+		return result.append('}').toString();
+	}
+
+	@SuppressWarnings("unchecked")
+	private K keyAt(int position) {
+		return (K) keys[position];
+	}
+
+	private boolean isLive(int position) {
+		return holes == null || !holes.get(position);
+	}
+
+	private int find(Object key) {
+		for (int slot = slotOf(key); ; slot = (slot + 1) & mask) {
+			int position = index[slot];
+			if (position == FREE) {
+				return -1;
+			}
+			if (key.equals(keys[position])) {
+				return slot;
+			}
+		}
+	}
+
+	private void insert(K key, double value) {
+		int slot = slotOf(key);
+		while (index[slot] != FREE) {
+			slot = (slot + 1) & mask;
+		}
+		keys[used] = key;
+		values[used] = value;
+		index[slot] = used++;
+		size++;
+	}
+
+	private void deleteSlot(int slot) {
+		int hole = slot;
+		for (int i = (slot + 1) & mask; index[i] != FREE; i = (i + 1) & mask) {
+			int home = slotOf(keys[index[i]]);
+			if (((i - home) & mask) >= ((i - hole) & mask)) {
+				index[hole] = index[i];
+				hole = i;
+			}
+		}
+		index[hole] = FREE;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (holes != null) {
+			compact();
+		}
+		if (capacity > keys.length) {
+			int newCapacity = Math.max(capacity, keys.length * 2);
+			keys = Arrays.copyOf(keys, newCapacity);
+			values = Arrays.copyOf(values, newCapacity);
+			rebuildIndex();
+		}
+	}
+
+	private void compact() {
+		int target = 0;
+		for (int position = 0; position < used; position++) {
+			if (!holes.get(position)) {
+				keys[target] = keys[position];
+				values[target] = values[position];
+				target++;
+			}
+		}
+		Arrays.fill(keys, target, used, null);
+		used = target;
+		holes = null;
+		rebuildIndex();
+	}
+
+	private void rebuildIndex() {
+		int tableSize = Integer.highestOneBit(keys.length * 2 - 1) << 1;
+		if (index == null || index.length != tableSize) {
+			index = new int[tableSize];
+			mask = tableSize - 1;
+		}
+		Arrays.fill(index, FREE);
+		for (int position = 0; position < used; position++) {
+			int slot = slotOf(keys[position]);
+			while (index[slot] != FREE) {
+				slot = (slot + 1) & mask;
+			}
+			index[slot] = position;
+		}
+	}
+
+	private int slotOf(Object key) {
+		int h = key.hashCode() * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+}
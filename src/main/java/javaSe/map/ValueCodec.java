@@ -0,0 +1,65 @@
+package javaSe.map;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes values into and reads them from off-heap memory, e.g. slots of a {@link MappedFileMap}.
+ *
+ * The buffer given to write is positioned at the start of the value area and limited to its size,
+ * the buffer given to read contains exactly the written bytes. Both are views of the mapped file,
+ * so nothing is copied on the heap unless the codec does it.
+ */
+public interface ValueCodec<V> {
+	void write(V value, ByteBuffer target);
+
+	V read(ByteBuffer source);
+
+	ValueCodec<String> STRING = new ValueCodec<String>() {
+		@Override
+		public void write(String value, ByteBuffer target) {
+			target.put(value.getBytes(StandardCharsets.UTF_8));
+		}
+
+		@Override
+		public String read(ByteBuffer source) {
+			return StandardCharsets.UTF_8.decode(source).toString();
+		}
+	};
+
+	ValueCodec<Double> DOUBLE = new ValueCodec<Double>() {
+		@Override
+		public void write(Double value, ByteBuffer target) {
+			target.putDouble(value);
+		}
+
+		@Override
+		public Double read(ByteBuffer source) {
+			return source.getDouble();
+		}
+	};
+
+	ValueCodec<Long> LONG = new ValueCodec<Long>() {
+		@Override
+		public void write(Long value, ByteBuffer target) {
+			target.putLong(value);
+		}
+
+		@Override
+		public Long read(ByteBuffer source) {
+			return source.getLong();
+		}
+	};
+
+	ValueCodec<Integer> INTEGER = new ValueCodec<Integer>() {
+		@Override
+		public void write(Integer value, ByteBuffer target) {
+			target.putInt(value);
+		}
+
+		@Override
+		public Integer read(ByteBuffer source) {
+			return source.getInt();
+		}
+	};
+}
@@ -0,0 +1,428 @@
+package javaSe.streams;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javaSe.map.ValueCodec;
+
+/**
+ * Sort for inputs which do not fit into memory, a replacement of sorted() whose buffer holds the whole input
+ * (see sortsArePerformedHorizontally).
+ *
+ * The input is cut into runs of at most maxRecordsInMemory / (parallelism + 1) records. Full runs are sorted
+ * and written to temporary files by the executor while the next run is read, at most parallelism runs at once,
+ * so no more than maxRecordsInMemory records are on the heap. A record is written as its length and the bytes
+ * of the {@link ValueCodec}. The files are merged into a lazy Stream, runs in the order of the input, so the sort
+ * is stable. With more runs than {@link #MAX_MERGE_FAN_IN} groups of them are merged into longer runs first.
+ * <pre>
+ * try (Stream&lt;String&gt; sorted = new ExternalSort&lt;&gt;(naturalOrder(), ValueCodec.STRING, 1_000_000).sort(lines)) {
+ *     sorted.filter(...).forEach(...);
+ * }
+ * </pre>
+ * The files are deleted when the stream is closed or read to the end. An input which fits into one run
+ * is sorted in memory and nothing is written. Null records are not supported.
+ */
+public class ExternalSort<T> {
+	public static final int DEFAULT_MAX_RECORDS_IN_MEMORY = 1_000_000;
+	/**
+	 * Runs merged at once, every one of them has an open file and a read buffer.
+	 */
+	public static final int MAX_MERGE_FAN_IN = 64;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Comparator<? super T> comparator;
+	private final ValueCodec<T> codec;
+	private final int runSize;
+	private final int parallelism;
+	private final Path directory;
+	private final Executor executor;
+
+	public ExternalSort(Comparator<? super T> comparator, ValueCodec<T> codec) {
+		this(comparator, codec, DEFAULT_MAX_RECORDS_IN_MEMORY);
+	}
+
+	public ExternalSort(Comparator<? super T> comparator, ValueCodec<T> codec, int maxRecordsInMemory) {
+		this(comparator, codec, maxRecordsInMemory, null, ForkJoinPool.commonPool(),
+				Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+	}
+
+	/**
+	 * @param directory of the temporary files, null for the default temporary directory
+	 * @param parallelism runs sorted and written at once
+	 */
+	public ExternalSort(Comparator<? super T> comparator, ValueCodec<T> codec, int maxRecordsInMemory,
+	                    Path directory, Executor executor, int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+		}
+		if (maxRecordsInMemory <= parallelism) {
+			throw new IllegalArgumentException("maxRecordsInMemory must be greater than parallelism: " + maxRecordsInMemory);
+		}
+		this.comparator = comparator;
+		this.codec = codec;
+		this.runSize = maxRecordsInMemory / (parallelism + 1);
+		this.parallelism = parallelism;
+		this.directory = directory;
+		this.executor = executor;
+	}
+
+	public int getRunSize() {
+		return runSize;
+	}
+
+	/**
+	 * Reads the whole input and closes it.
+	 *
+	 * @return sorted records, must be closed when it is not read to the end
+	 */
+	public Stream<T> sort(Stream<? extends T> input) {
+		try (Stream<? extends T> records = input) {
+			return sort(records.iterator());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public Stream<T> sort(Iterator<? extends T> input) {
+		List<Path> runs = new ArrayList<>();
+		List<CompletableFuture<Void>> spills = new ArrayList<>();
+		Semaphore inFlight = new Semaphore(parallelism);
+		try {
+			Object[] run = new Object[runSize];
+			int count = 0;
+			while (input.hasNext()) {
+				T record = input.next();
+				if (record == null) {
+					throw new NullPointerException("Null records cannot be sorted");
+				}
+				run[count++] = record;
+				if (count == runSize) {
+					spills.add(spill(run, count, runs, inFlight));
+					run = new Object[runSize];
+					count = 0;
+				}
+			}
+			if (runs.isEmpty()) {
+				Arrays.sort(run, 0, count, (Comparator<Object>) comparator);
+				return Arrays.stream(run, 0, count).map(record -> (T) record);
+			}
+			if (count > 0) {
+				spills.add(spill(run, count, runs, inFlight));
+			}
+			CompletableFuture.allOf(spills.toArray(new CompletableFuture<?>[0])).join();
+			while (runs.size() > MAX_MERGE_FAN_IN) {
+				runs = mergePass(runs);
+			}
+			Merge merge = new Merge(runs);
+			return StreamSupport.stream(merge, false).onClose(merge::close);
+		} catch (CompletionException e) {
+			abort(spills, runs);
+			throw unwrap(e);
+		} catch (RuntimeException | Error e) {
+			abort(spills, runs);
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the exception of the failed spill, a checked one wrapped in an unchecked exception
+	 */
+	private static RuntimeException unwrap(CompletionException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		if (cause instanceof IOException) {
+			return new UncheckedIOException((IOException) cause);
+		}
+		return cause == null ? e : new IllegalStateException(cause);
+	}
+
+	/**
+	 * Waits for the runs which are still written and deletes all files.
+	 */
+	private static void abort(List<CompletableFuture<Void>> spills, List<Path> runs) {
+		for (CompletableFuture<Void> spill : spills) {
+			try {
+				spill.join();
+			} catch (CompletionException ignored) {
+				// the first failure is rethrown
+			}
+		}
+		delete(runs);
+	}
+
+	@SuppressWarnings("unchecked")
+	private CompletableFuture<Void> spill(Object[] records, int count, List<Path> runs, Semaphore inFlight) {
+		inFlight.acquireUninterruptibly();
+		Path file;
+		try {
+			file = createRunFile();
+		} catch (RuntimeException e) {
+			inFlight.release();
+			throw e;
+		}
+		runs.add(file);
+		return CompletableFuture.runAsync(() -> {
+			try {
+				Arrays.sort(records, 0, count, (Comparator<Object>) comparator);
+				try (RunWriter writer = new RunWriter(file)) {
+					for (int i = 0; i < count; i++) {
+						writer.write((T) records[i]);
+					}
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} finally {
+				inFlight.release();
+			}
+		}, executor);
+	}
+
+	/**
+	 * Merges consecutive groups of runs, so the order of runs and the stability are kept.
+	 */
+	private List<Path> mergePass(List<Path> runs) {
+		List<Path> merged = new ArrayList<>();
+		try {
+			for (int from = 0; from < runs.size(); from += MAX_MERGE_FAN_IN) {
+				List<Path> group = new ArrayList<>(runs.subList(from, Math.min(runs.size(), from + MAX_MERGE_FAN_IN)));
+				Path file = createRunFile();
+				merged.add(file);
+				try (Merge merge = new Merge(group); RunWriter writer = new RunWriter(file)) {
+					merge.forEachRemaining(writer::writeUnchecked);
+				}
+			}
+			return merged;
+		} catch (IOException e) {
+			delete(merged);
+			throw new UncheckedIOException(e);
+		} catch (RuntimeException | Error e) {
+			delete(merged);
+			throw e;
+		}
+	}
+
+	private Path createRunFile() {
+		try {
+			return directory == null
+					? Files.createTempFile("sort-run-", ".bin")
+					: Files.createTempFile(directory, "sort-run-", ".bin");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void delete(List<Path> files) {
+		for (Path file : files) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (IOException ignored) {
+				// a temporary file, nothing more can be done
+			}
+		}
+	}
+
+	/**
+	 * K-way merge of sorted runs, the run with the smallest head is kept on top of a priority queue.
+	 * Equal records are taken from the earlier run first.
+	 */
+	private final class Merge extends Spliterators.AbstractSpliterator<T> implements Closeable {
+		private final List<Path> files;
+		private final List<RunReader> readers = new ArrayList<>();
+		private final PriorityQueue<RunReader> queue;
+		private boolean closed;
+
+		Merge(List<Path> files) {
+			super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+			this.files = files;
+			this.queue = new PriorityQueue<>(Math.max(1, files.size()), (reader1, reader2) -> {
+				int result = comparator.compare(reader1.head, reader2.head);
+				return result != 0 ? result : Integer.compare(reader1.order, reader2.order);
+			});
+			try {
+				for (int order = 0; order < files.size(); order++) {
+					RunReader reader = new RunReader(files.get(order), order);
+					readers.add(reader);
+					if (reader.advance()) {
+						queue.add(reader);
+					}
+				}
+			} catch (IOException e) {
+				close();
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			RunReader reader = queue.poll();
+			if (reader == null) {
+				close();
+				return false;
+			}
+			T record = reader.head;
+			try {
+				if (reader.advance()) {
+					queue.add(reader);
+				}
+			} catch (IOException e) {
+				close();
+				throw new UncheckedIOException(e);
+			}
+			action.accept(record);
+			return true;
+		}
+
+		@Override
+		public void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			queue.clear();
+			for (RunReader reader : readers) {
+				try {
+					reader.close();
+				} catch (IOException ignored) {
+					// the file is deleted anyway
+				}
+			}
+			delete(files);
+		}
+	}
+
+	private final class RunWriter implements Closeable {
+		private final OutputStream output;
+		private ByteBuffer scratch = ByteBuffer.allocate(256);
+
+		RunWriter(Path file) throws IOException {
+			this.output = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+		}
+
+		void write(T record) throws IOException {
+			while (true) {
+				scratch.clear();
+				try {
+					codec.write(record, scratch);
+					break;
+				} catch (BufferOverflowException e) {
+					scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+				}
+			}
+			int length = scratch.position();
+			writeVarInt(length);
+			output.write(scratch.array(), 0, length);
+		}
+
+		void writeUnchecked(T record) {
+			try {
+				write(record);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		private void writeVarInt(int value) throws IOException {
+			while ((value & ~0x7F) != 0) {
+				output.write((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			output.write(value);
+		}
+
+		@Override
+		public void close() throws IOException {
+			output.close();
+		}
+	}
+
+	private final class RunReader implements Closeable {
+		private final InputStream input;
+		private final int order;
+		private byte[] bytes = new byte[256];
+		T head;
+
+		RunReader(Path file, int order) throws IOException {
+			this.input = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+			this.order = order;
+		}
+
+		/**
+		 * @return false at the end of the run
+		 */
+		boolean advance() throws IOException {
+			int length = readVarInt();
+			if (length < 0) {
+				head = null;
+				return false;
+			}
+			if (length > bytes.length) {
+				bytes = new byte[Math.max(length, bytes.length * 2)];
+			}
+			for (int read = 0; read < length; ) {
+				int n = input.read(bytes, read, length - read);
+				if (n < 0) {
+					throw new EOFException("Truncated run file");
+				}
+				read += n;
+			}
+			head = codec.read(ByteBuffer.wrap(bytes, 0, length));
+			return true;
+		}
+
+		/**
+		 * @return the value or -1 at the end of the file
+		 */
+		private int readVarInt() throws IOException {
+			int value = 0;
+			for (int shift = 0; ; shift += 7) {
+				int b = input.read();
+				if (b < 0) {
+					if (shift == 0) {
+						return -1;
+					}
+					throw new EOFException("Truncated run file");
+				}
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			input.close();
+		}
+	}
+}
@@ -0,0 +1,297 @@
+package javaSe.streams;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Stages of a {@link Pipeline}, kept as an immutable array and linked into a chain of nodes on the first run.
+ *
+ * A Stream builds a new chain of Sinks for every execution and calls begin, accept and cancellationRequested on each.
+ * Here the chain is built once per pipeline, a filter followed by a map is one node, and a node only calls
+ * the lambdas of its stages and the next node. After mapToInt values are passed on as ints, so nothing is boxed.
+ * Adding a stage copies the array.
+ */
+final class FusedOps {
+	static final FusedOps EMPTY = new FusedOps(new int[0], new Object[0], false);
+
+	private static final int FILTER = 0;
+	private static final int MAP = 1;
+	private static final int MAP_TO_INT = 2;
+	private static final int INT_FILTER = 3;
+	private static final int INT_MAP = 4;
+
+	/**
+	 * Terminal operation of a pipeline of objects, returns false to stop the loop.
+	 */
+	interface Sink {
+		boolean accept(Object value);
+
+		default boolean acceptInt(int value) {
+			throw new IllegalStateException("Pipeline of objects received an int");
+		}
+	}
+
+	/**
+	 * Terminal operation of a pipeline after mapToInt.
+	 */
+	interface IntSink extends Sink {
+		@Override
+		boolean acceptInt(int value);
+
+		@Override
+		default boolean accept(Object value) {
+			throw new IllegalStateException("Pipeline of ints received an object");
+		}
+	}
+
+	private final int[] kinds;
+	private final Object[] functions;
+	private final boolean ints;
+	private Node head;
+
+	private FusedOps(int[] kinds, Object[] functions, boolean ints) {
+		this.kinds = kinds;
+		this.functions = functions;
+		this.ints = ints;
+	}
+
+	FusedOps filter(Predicate<?> predicate) {
+		return add(FILTER, predicate, false);
+	}
+
+	FusedOps map(Function<?, ?> mapper) {
+		return add(MAP, mapper, false);
+	}
+
+	FusedOps mapToInt(ToIntFunction<?> mapper) {
+		return add(MAP_TO_INT, mapper, true);
+	}
+
+	FusedOps filterInt(IntPredicate predicate) {
+		return add(INT_FILTER, predicate, true);
+	}
+
+	FusedOps mapInt(IntUnaryOperator mapper) {
+		return add(INT_MAP, mapper, true);
+	}
+
+	private FusedOps add(int kind, Object function, boolean ints) {
+		if (function == null) {
+			throw new NullPointerException();
+		}
+		int[] kinds = Arrays.copyOf(this.kinds, this.kinds.length + 1);
+		Object[] functions = Arrays.copyOf(this.functions, this.functions.length + 1);
+		kinds[kinds.length - 1] = kind;
+		functions[functions.length - 1] = function;
+		return new FusedOps(kinds, functions, ints);
+	}
+
+	int size() {
+		return kinds.length;
+	}
+
+	/**
+	 * Pushes elements of the source through the stages into the sink until the source ends or the sink stops.
+	 */
+	void run(Iterable<?> source, Sink sink) {
+		Node head = head();
+		if (source instanceof List && source instanceof RandomAccess) {
+			List<?> list = (List<?>) source;
+			for (int i = 0, size = list.size(); i < size; i++) {
+				if (!head.push(list.get(i), sink)) {
+					return;
+				}
+			}
+		} else {
+			for (Iterator<?> iterator = source.iterator(); iterator.hasNext(); ) {
+				if (!head.push(iterator.next(), sink)) {
+					return;
+				}
+			}
+		}
+	}
+
+	private Node head() {
+		Node head = this.head;
+		if (head == null) {
+			// immutable, so building it twice in a race does no harm
+			head = this.head = link(0);
+		}
+		return head;
+	}
+
+	/**
+	 * Builds nodes from the stage at the given index to the end. A filter followed by a map becomes one node.
+	 */
+	@SuppressWarnings("unchecked")
+	private Node link(int i) {
+		if (i == kinds.length) {
+			return ints ? new IntEnd() : new End();
+		}
+		Object function = functions[i];
+		boolean mapFollows = i + 1 < kinds.length && kinds[i + 1] == (kinds[i] == FILTER ? MAP : INT_MAP);
+		switch (kinds[i]) {
+			case FILTER:
+				if (mapFollows) {
+					return new FilterMap((Predicate<Object>) function, (Function<Object, Object>) functions[i + 1], link(i + 2));
+				}
+				return new Filter((Predicate<Object>) function, link(i + 1));
+			case MAP:
+				return new Mapping((Function<Object, Object>) function, link(i + 1));
+			case MAP_TO_INT:
+				return new MapToInt((ToIntFunction<Object>) function, link(i + 1));
+			case INT_FILTER:
+				if (mapFollows) {
+					return new IntFilterMap((IntPredicate) function, (IntUnaryOperator) functions[i + 1], link(i + 2));
+				}
+				return new IntFilter((IntPredicate) function, link(i + 1));
+			case INT_MAP:
+				return new IntMap((IntUnaryOperator) function, link(i + 1));
+			default:
+				throw new IllegalStateException("Unknown stage " + kinds[i]);
+		}
+	}
+
+	/**
+	 * Stage which passes the value on to the next node, returns false when the sink stopped the loop.
+	 */
+	private abstract static class Node {
+		boolean push(Object value, Sink sink) {
+			throw new IllegalStateException("Stage of ints received an object");
+		}
+
+		boolean pushInt(int value, Sink sink) {
+			throw new IllegalStateException("Stage of objects received an int");
+		}
+	}
+
+	private static final class Filter extends Node {
+		private final Predicate<Object> predicate;
+		private final Node next;
+
+		Filter(Predicate<Object> predicate, Node next) {
+			this.predicate = predicate;
+			this.next = next;
+		}
+
+		@Override
+		boolean push(Object value, Sink sink) {
+			return !predicate.test(value) || next.push(value, sink);
+		}
+	}
+
+	private static final class Mapping extends Node {
+		private final Function<Object, Object> mapper;
+		private final Node next;
+
+		Mapping(Function<Object, Object> mapper, Node next) {
+			this.mapper = mapper;
+			this.next = next;
+		}
+
+		@Override
+		boolean push(Object value, Sink sink) {
+			return next.push(mapper.apply(value), sink);
+		}
+	}
+
+	private static final class FilterMap extends Node {
+		private final Predicate<Object> predicate;
+		private final Function<Object, Object> mapper;
+		private final Node next;
+
+		FilterMap(Predicate<Object> predicate, Function<Object, Object> mapper, Node next) {
+			this.predicate = predicate;
+			this.mapper = mapper;
+			this.next = next;
+		}
+
+		@Override
+		boolean push(Object value, Sink sink) {
+			return !predicate.test(value) || next.push(mapper.apply(value), sink);
+		}
+	}
+
+	private static final class MapToInt extends Node {
+		private final ToIntFunction<Object> mapper;
+		private final Node next;
+
+		MapToInt(ToIntFunction<Object> mapper, Node next) {
+			this.mapper = mapper;
+			this.next = next;
+		}
+
+		@Override
+		boolean push(Object value, Sink sink) {
+			return next.pushInt(mapper.applyAsInt(value), sink);
+		}
+	}
+
+	private static final class IntFilter extends Node {
+		private final IntPredicate predicate;
+		private final Node next;
+
+		IntFilter(IntPredicate predicate, Node next) {
+			this.predicate = predicate;
+			this.next = next;
+		}
+
+		@Override
+		boolean pushInt(int value, Sink sink) {
+			return !predicate.test(value) || next.pushInt(value, sink);
+		}
+	}
+
+	private static final class IntMap extends Node {
+		private final IntUnaryOperator mapper;
+		private final Node next;
+
+		IntMap(IntUnaryOperator mapper, Node next) {
+			this.mapper = mapper;
+			this.next = next;
+		}
+
+		@Override
+		boolean pushInt(int value, Sink sink) {
+			return next.pushInt(mapper.applyAsInt(value), sink);
+		}
+	}
+
+	private static final class IntFilterMap extends Node {
+		private final IntPredicate predicate;
+		private final IntUnaryOperator mapper;
+		private final Node next;
+
+		IntFilterMap(IntPredicate predicate, IntUnaryOperator mapper, Node next) {
+			this.predicate = predicate;
+			this.mapper = mapper;
+			this.next = next;
+		}
+
+		@Override
+		boolean pushInt(int value, Sink sink) {
+			return !predicate.test(value) || next.pushInt(mapper.applyAsInt(value), sink);
+		}
+	}
+
+	private static final class End extends Node {
+		@Override
+		boolean push(Object value, Sink sink) {
+			return sink.accept(value);
+		}
+	}
+
+	private static final class IntEnd extends Node {
+		@Override
+		boolean pushInt(int value, Sink sink) {
+			return sink.acceptInt(value);
+		}
+	}
+}
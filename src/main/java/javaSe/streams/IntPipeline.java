@@ -0,0 +1,99 @@
+package javaSe.streams;
+
+import java.util.OptionalInt;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * {@link Pipeline} after mapToInt, values are passed between stages and into terminal operations as ints.
+ *
+ * @param <S> type of elements of the source
+ */
+public final class IntPipeline<S> {
+	private final FusedOps ops;
+
+	IntPipeline(FusedOps ops) {
+		this.ops = ops;
+	}
+
+	public IntPipeline<S> filter(IntPredicate predicate) {
+		return new IntPipeline<>(ops.filterInt(predicate));
+	}
+
+	public IntPipeline<S> map(IntUnaryOperator mapper) {
+		return new IntPipeline<>(ops.mapInt(mapper));
+	}
+
+	public int stages() {
+		return ops.size();
+	}
+
+	public void forEach(Iterable<? extends S> source, IntConsumer action) {
+		run(source, value -> {
+			action.accept(value);
+			return true;
+		});
+	}
+
+	/**
+	 * Like IntStream.sum, overflows silently.
+	 */
+	public int sum(Iterable<? extends S> source) {
+		int[] sum = {0};
+		run(source, value -> {
+			sum[0] += value;
+			return true;
+		});
+		return sum[0];
+	}
+
+	public long count(Iterable<? extends S> source) {
+		long[] count = {0};
+		run(source, value -> {
+			count[0]++;
+			return true;
+		});
+		return count[0];
+	}
+
+	public OptionalInt max(Iterable<? extends S> source) {
+		int[] max = {Integer.MIN_VALUE};
+		boolean[] found = {false};
+		run(source, value -> {
+			max[0] = Math.max(max[0], value);
+			found[0] = true;
+			return true;
+		});
+		return found[0] ? OptionalInt.of(max[0]) : OptionalInt.empty();
+	}
+
+	public boolean anyMatch(Iterable<? extends S> source, IntPredicate predicate) {
+		boolean[] found = {false};
+		run(source, value -> !(found[0] = predicate.test(value)));
+		return found[0];
+	}
+
+	public boolean allMatch(Iterable<? extends S> source, IntPredicate predicate) {
+		return !anyMatch(source, predicate.negate());
+	}
+
+	public boolean noneMatch(Iterable<? extends S> source, IntPredicate predicate) {
+		return !anyMatch(source, predicate);
+	}
+
+	public OptionalInt findFirst(Iterable<? extends S> source) {
+		int[] first = {0};
+		boolean[] found = {false};
+		run(source, value -> {
+			first[0] = value;
+			found[0] = true;
+			return false;
+		});
+		return found[0] ? OptionalInt.of(first[0]) : OptionalInt.empty();
+	}
+
+	private void run(Iterable<? extends S> source, FusedOps.IntSink sink) {
+		ops.run(source, sink);
+	}
+}
@@ -0,0 +1,147 @@
+package javaSe.streams;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Spliterator which lets its source be split into no more than a given number of parts.
+ *
+ * Every part owns a share of the limit. A split divides the share between both halves and a part with a share
+ * of one is not split any more, so the limit holds for the whole tree of parts without any shared counter,
+ * and the parts stay of similar size. Splits and traversed parts are counted in the executor.
+ */
+class LimitedSpliterator<T> implements Spliterator<T> {
+	private final Spliterator<T> source;
+	private final StreamExecutor executor;
+	private int share;
+	private boolean started;
+
+	LimitedSpliterator(Spliterator<T> source, int share, StreamExecutor executor) {
+		this.source = source;
+		this.share = share;
+		this.executor = executor;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super T> action) {
+		start();
+		return source.tryAdvance(action);
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super T> action) {
+		start();
+		source.forEachRemaining(action);
+	}
+
+	@Override
+	public Spliterator<T> trySplit() {
+		if (share < 2 || started) {
+			return null;
+		}
+		Spliterator<T> prefix = source.trySplit();
+		if (prefix == null) {
+			return null;
+		}
+		executor.splitCreated();
+		int prefixShare = share / 2;
+		share -= prefixShare;
+		return new LimitedSpliterator<>(prefix, prefixShare, executor);
+	}
+
+	@Override
+	public long estimateSize() {
+		return source.estimateSize();
+	}
+
+	@Override
+	public long getExactSizeIfKnown() {
+		return source.getExactSizeIfKnown();
+	}
+
+	@Override
+	public int characteristics() {
+		return source.characteristics();
+	}
+
+	@Override
+	public Comparator<? super T> getComparator() {
+		return source.getComparator();
+	}
+
+	private void start() {
+		if (!started) {
+			started = true;
+			executor.partStarted();
+		}
+	}
+
+	static final class Ints implements Spliterator.OfInt {
+		private final Spliterator.OfInt source;
+		private final StreamExecutor executor;
+		private int share;
+		private boolean started;
+
+		Ints(Spliterator.OfInt source, int share, StreamExecutor executor) {
+			this.source = source;
+			this.share = share;
+			this.executor = executor;
+		}
+
+		@Override
+		public boolean tryAdvance(IntConsumer action) {
+			start();
+			return source.tryAdvance(action);
+		}
+
+		@Override
+		public void forEachRemaining(IntConsumer action) {
+			start();
+			source.forEachRemaining(action);
+		}
+
+		@Override
+		public Spliterator.OfInt trySplit() {
+			if (share < 2 || started) {
+				return null;
+			}
+			Spliterator.OfInt prefix = source.trySplit();
+			if (prefix == null) {
+				return null;
+			}
+			executor.splitCreated();
+			int prefixShare = share / 2;
+			share -= prefixShare;
+			return new Ints(prefix, prefixShare, executor);
+		}
+
+		@Override
+		public long estimateSize() {
+			return source.estimateSize();
+		}
+
+		@Override
+		public long getExactSizeIfKnown() {
+			return source.getExactSizeIfKnown();
+		}
+
+		@Override
+		public int characteristics() {
+			return source.characteristics();
+		}
+
+		@Override
+		public Comparator<? super Integer> getComparator() {
+			return source.getComparator();
+		}
+
+		private void start() {
+			if (!started) {
+				started = true;
+				executor.partStarted();
+			}
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package javaSe.streams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Lazy pipeline of filter and map stages which, unlike a Stream, can be executed any number of times.
+ *
+ * A Stream is the pipeline and its source at once, so it can be consumed only once
+ * (see streamsCannotBeReused_CallingAnyTerminateOperationCloseTheStream). Here the pipeline is an immutable
+ * description and every terminal operation gets its source:
+ * <pre>
+ * Pipeline&lt;Order, String&gt; customers = Pipeline.&lt;Order&gt;start().filter(Order::isPaid).map(Order::getCustomer);
+ * customers.toList(today);
+ * customers.anyMatch(yesterday, "Ala"::equals);
+ * </pre>
+ * Stages are fused: one loop over the source pushes every element through a chain of nodes built once
+ * per pipeline, a filter and the map after it in one node (see {@link FusedOps}). After
+ * {@link #mapToInt} values stay ints. anyMatch, allMatch, noneMatch and findFirst stop at the first element
+ * which decides the result, the rest of the source is not read.
+ *
+ * @param <S> type of elements of the source
+ * @param <T> type of elements after the last stage
+ */
+public final class Pipeline<S, T> {
+	private static final Pipeline<?, ?> START = new Pipeline<>(FusedOps.EMPTY);
+
+	private final FusedOps ops;
+
+	private Pipeline(FusedOps ops) {
+		this.ops = ops;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <S> Pipeline<S, S> start() {
+		return (Pipeline<S, S>) START;
+	}
+
+	public Pipeline<S, T> filter(Predicate<? super T> predicate) {
+		return new Pipeline<>(ops.filter(predicate));
+	}
+
+	public <R> Pipeline<S, R> map(Function<? super T, ? extends R> mapper) {
+		return new Pipeline<>(ops.map(mapper));
+	}
+
+	public IntPipeline<S> mapToInt(ToIntFunction<? super T> mapper) {
+		return new IntPipeline<>(ops.mapToInt(mapper));
+	}
+
+	public int stages() {
+		return ops.size();
+	}
+
+	public void forEach(Iterable<? extends S> source, Consumer<? super T> action) {
+		ops.run(source, value -> {
+			action.accept(cast(value));
+			return true;
+		});
+	}
+
+	public List<T> toList(Iterable<? extends S> source) {
+		List<T> result = new ArrayList<>();
+		ops.run(source, value -> result.add(cast(value)));
+		return result;
+	}
+
+	public long count(Iterable<? extends S> source) {
+		long[] count = {0};
+		ops.run(source, value -> {
+			count[0]++;
+			return true;
+		});
+		return count[0];
+	}
+
+	public boolean anyMatch(Iterable<? extends S> source, Predicate<? super T> predicate) {
+		boolean[] found = {false};
+		ops.run(source, value -> !(found[0] = predicate.test(cast(value))));
+		return found[0];
+	}
+
+	public boolean allMatch(Iterable<? extends S> source, Predicate<? super T> predicate) {
+		return !anyMatch(source, predicate.negate());
+	}
+
+	public boolean noneMatch(Iterable<? extends S> source, Predicate<? super T> predicate) {
+		return !anyMatch(source, predicate);
+	}
+
+	/**
+	 * @throws NullPointerException when the first element is null, like Stream.findFirst
+	 */
+	public Optional<T> findFirst(Iterable<? extends S> source) {
+		Object[] first = {null};
+		boolean[] found = {false};
+		ops.run(source, value -> {
+			first[0] = value;
+			found[0] = true;
+			return false;
+		});
+		return found[0] ? Optional.of(cast(first[0])) : Optional.empty();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T cast(Object value) {
+		return (T) value;
+	}
+}
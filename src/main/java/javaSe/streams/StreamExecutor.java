@@ -0,0 +1,222 @@
+package javaSe.streams;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Runs parallel streams on its own ForkJoinPool instead of the common one.
+ *
+ * A parallel stream forks its tasks into the pool of the thread which calls the terminal operation, so a pipeline
+ * started from a task of this pool never touches ForkJoinPool.commonPool():
+ * <pre>
+ * StreamExecutor reports = StreamExecutor.named("reports", 4);
+ * List&lt;String&gt; names = reports.execute(orders, 2, stream -&gt; stream
+ *         .filter(Order::isPaid).map(Order::getCustomer).sorted().collect(toList()));
+ * </pre>
+ * The stream framework picks the size of parts from the parallelism of the common pool, whatever pool runs it,
+ * so the limit per pipeline is applied to the source: its spliterator is split into at most maxParallelism parts,
+ * and no more than maxParallelism threads process the source at once. Stages which split again, like sorted(),
+ * may still use the whole pool.
+ *
+ * Named executors are shared, e.g. all report pipelines of the application use one pool of a known size.
+ */
+public final class StreamExecutor implements AutoCloseable {
+	private static final Map<String, StreamExecutor> NAMED = new ConcurrentHashMap<>();
+
+	private final String name;
+	private final ForkJoinPool pool;
+	private final LongAdder pipelines = new LongAdder();
+	private final LongAdder splits = new LongAdder();
+	private final LongAdder parts = new LongAdder();
+
+	public StreamExecutor(String name, int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+		}
+		this.name = name;
+		this.pool = new ForkJoinPool(parallelism, new WorkerFactory(name), null, false);
+	}
+
+	/**
+	 * @return executor registered under the name, created with the given parallelism on the first call
+	 * @throws IllegalArgumentException when the executor exists with a different parallelism
+	 */
+	public static StreamExecutor named(String name, int parallelism) {
+		StreamExecutor executor = NAMED.computeIfAbsent(name, key -> new StreamExecutor(key, parallelism));
+		if (executor.getParallelism() != parallelism) {
+			throw new IllegalArgumentException("Executor " + name + " has parallelism " + executor.getParallelism()
+					+ ", not " + parallelism);
+		}
+		return executor;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Runs the pipeline in the pool and waits for its result. Exceptions of the pipeline are rethrown.
+	 */
+	public <R> R execute(Supplier<R> pipeline) {
+		pipelines.increment();
+		Thread current = Thread.currentThread();
+		if (current instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) current).getPool() == pool) {
+			return pipeline.get();
+		}
+		return pool.submit(pipeline::get).join();
+	}
+
+	public void run(Runnable pipeline) {
+		execute(() -> {
+			pipeline.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Runs the pipeline on a parallel stream of the source limited to maxParallelism parts.
+	 */
+	public <T, R> R execute(Collection<T> source, int maxParallelism, Function<? super Stream<T>, R> pipeline) {
+		return execute(() -> pipeline.apply(stream(source, maxParallelism)));
+	}
+
+	/**
+	 * @return parallel stream whose source is split into at most maxParallelism parts, for use inside execute
+	 */
+	public <T> Stream<T> stream(Collection<T> source, int maxParallelism) {
+		return stream(source.spliterator(), maxParallelism);
+	}
+
+	public <T> Stream<T> stream(Spliterator<T> source, int maxParallelism) {
+		return StreamSupport.stream(new LimitedSpliterator<>(source, checked(maxParallelism), this), true);
+	}
+
+	/**
+	 * For sources like IntObjectMap.keySpliterator(), without boxing the elements.
+	 */
+	public IntStream intStream(Spliterator.OfInt source, int maxParallelism) {
+		return StreamSupport.intStream(new LimitedSpliterator.Ints(source, checked(maxParallelism), this), true);
+	}
+
+	private static int checked(int maxParallelism) {
+		if (maxParallelism <= 0) {
+			throw new IllegalArgumentException("maxParallelism must be positive: " + maxParallelism);
+		}
+		return maxParallelism;
+	}
+
+	void splitCreated() {
+		splits.increment();
+	}
+
+	void partStarted() {
+		parts.increment();
+	}
+
+	public Stats getStats() {
+		return new Stats(pipelines.sum(), splits.sum(), parts.sum(), pool.getStealCount(),
+				pool.getParallelism(), pool.getPoolSize());
+	}
+
+	/**
+	 * Shuts the pool down, running pipelines are completed. A named executor is removed from the registry.
+	 */
+	@Override
+	public void close() {
+		NAMED.remove(name, this);
+		pool.shutdown();
+	}
+
+	@Override
+	public String toString() {
+		return name + " " + getStats();
+	}
+
+	public static final class Stats {
+		private final long pipelines;
+		private final long splits;
+		private final long parts;
+		private final long steals;
+		private final int parallelism;
+		private final int poolSize;
+
+		Stats(long pipelines, long splits, long parts, long steals, int parallelism, int poolSize) {
+			this.pipelines = pipelines;
+			this.splits = splits;
+			this.parts = parts;
+			this.steals = steals;
+			this.parallelism = parallelism;
+			this.poolSize = poolSize;
+		}
+
+		public long getPipelines() {
+			return pipelines;
+		}
+
+		/**
+		 * @return successful trySplit calls on limited sources
+		 */
+		public long getSplits() {
+			return splits;
+		}
+
+		/**
+		 * @return parts of limited sources whose elements were traversed
+		 */
+		public long getParts() {
+			return parts;
+		}
+
+		/**
+		 * @return tasks taken from the queue of another worker, as counted by the pool
+		 */
+		public long getSteals() {
+			return steals;
+		}
+
+		public int getParallelism() {
+			return parallelism;
+		}
+
+		public int getPoolSize() {
+			return poolSize;
+		}
+
+		@Override
+		public String toString() {
+			return "{pipelines=" + pipelines + ", splits=" + splits + ", parts=" + parts + ", steals=" + steals
+					+ ", parallelism=" + parallelism + ", poolSize=" + poolSize + '}';
+		}
+	}
+
+	private static final class WorkerFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+		private final String name;
+		private final AtomicInteger counter = new AtomicInteger();
+
+		WorkerFactory(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName(name + "-worker-" + counter.incrementAndGet());
+			return thread;
+		}
+	}
+}
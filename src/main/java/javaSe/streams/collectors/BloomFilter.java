@@ -0,0 +1,136 @@
+package javaSe.streams.collectors;
+
+/**
+ * Set membership in a few bits per element: mightContain is false only for elements which were never added,
+ * and true for other elements with the false positive probability the filter was sized for.
+ *
+ * Every element sets numHashes bits chosen by hashes derived from one 64-bit hash (h1 + i * h2, which is as good
+ * as independent hashes, Kirsch and Mitzenmacher). Filters of the same size are combined with bitwise or,
+ * which gives the filter of the union of both sets.
+ */
+public class BloomFilter {
+	static final byte TYPE = 'B';
+
+	private final long[] words;
+	private final long bitCount;
+	private final int numHashes;
+
+	/**
+	 * @param falsePositiveProbability e.g. 0.01 for about 10 bits and 7 hashes per element
+	 */
+	public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+		this(bits(expectedInsertions, falsePositiveProbability),
+				hashes(expectedInsertions, bits(expectedInsertions, falsePositiveProbability)));
+	}
+
+	private BloomFilter(long bitCount, int numHashes) {
+		this.words = new long[(int) ((bitCount + 63) >>> 6)];
+		this.bitCount = (long) words.length << 6;
+		this.numHashes = numHashes;
+	}
+
+	public void add(Object element) {
+		addHash(Hashing.hash(element));
+	}
+
+	public void addHash(long hash) {
+		long h1 = hash;
+		long h2 = Hashing.mix(hash) | 1;
+		for (int i = 0; i < numHashes; i++) {
+			long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+			words[(int) (bit >>> 6)] |= 1L << bit;
+		}
+	}
+
+	public boolean mightContain(Object element) {
+		return mightContainHash(Hashing.hash(element));
+	}
+
+	public boolean mightContainHash(long hash) {
+		long h1 = hash;
+		long h2 = Hashing.mix(hash) | 1;
+		for (int i = 0; i < numHashes; i++) {
+			long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+			if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public BloomFilter combine(BloomFilter other) {
+		if (other.bitCount != bitCount || other.numHashes != numHashes) {
+			throw new IllegalArgumentException("Cannot combine filters of " + bitCount + " bits and " + numHashes
+					+ " hashes with " + other.bitCount + " bits and " + other.numHashes + " hashes");
+		}
+		for (int i = 0; i < words.length; i++) {
+			words[i] |= other.words[i];
+		}
+		return this;
+	}
+
+	public long getBitCount() {
+		return bitCount;
+	}
+
+	public int getNumHashes() {
+		return numHashes;
+	}
+
+	/**
+	 * @return probability of a false positive with the bits set so far
+	 */
+	public double getFalsePositiveProbability() {
+		long set = 0;
+		for (long word : words) {
+			set += Long.bitCount(word);
+		}
+		return Math.pow((double) set / bitCount, numHashes);
+	}
+
+	public byte[] toBytes() {
+		SketchBytes.Writer writer = new SketchBytes.Writer(TYPE, 16 + words.length * 8);
+		writer.writeVarLong(bitCount).writeVarLong(numHashes);
+		for (long word : words) {
+			writer.writeLong(word);
+		}
+		return writer.toByteArray();
+	}
+
+	public static BloomFilter fromBytes(byte[] bytes) {
+		SketchBytes input = SketchBytes.read(bytes, TYPE);
+		long bitCount = input.readVarLong();
+		int numHashes = input.readVarInt();
+		if (bitCount < 64 || bitCount % 64 != 0 || bitCount >>> 6 > Integer.MAX_VALUE - 8 || numHashes < 1) {
+			throw new IllegalArgumentException("Corrupted filter of " + bitCount + " bits and " + numHashes + " hashes");
+		}
+		BloomFilter filter = new BloomFilter(bitCount, numHashes);
+		for (int i = 0; i < filter.words.length; i++) {
+			filter.words[i] = input.readLong();
+		}
+		return filter;
+	}
+
+	private static long bits(long expectedInsertions, double falsePositiveProbability) {
+		if (expectedInsertions < 1) {
+			throw new IllegalArgumentException("expectedInsertions must be positive: " + expectedInsertions);
+		}
+		if (!(falsePositiveProbability > 0 && falsePositiveProbability < 1)) {
+			throw new IllegalArgumentException("falsePositiveProbability must be in (0, 1): " + falsePositiveProbability);
+		}
+		long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+		if (bits > (long) (Integer.MAX_VALUE - 8) << 6) {
+			throw new IllegalArgumentException("Filter of " + bits + " bits is too large");
+		}
+		return Math.max(64, bits);
+	}
+
+	private static int hashes(long expectedInsertions, long bits) {
+		return Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+	}
+
+	@Override
+	public String toString() {
+		return "BloomFilter{bits=" + bitCount + ", hashes=" + numHashes + "}";
+	}
+}
@@ -0,0 +1,55 @@
+package javaSe.streams.collectors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StringJoiner which is merged by linking chunks instead of copying characters.
+ *
+ * Every part of a parallel stream fills its own chunk. Merging only appends references
+ * to the chunk list, and characters are copied once, when the final String is built.
+ */
+final class ChunkedJoiner {
+	private final String delimiter;
+	private final List<StringBuilder> chunks = new ArrayList<>();
+	private StringBuilder current;
+
+	ChunkedJoiner(String delimiter) {
+		this.delimiter = delimiter;
+	}
+
+	void add(CharSequence element) {
+		if (current == null) {
+			current = new StringBuilder();
+			chunks.add(current);
+		} else {
+			current.append(delimiter);
+		}
+		current.append(element);
+	}
+
+	ChunkedJoiner merge(ChunkedJoiner other) {
+		if (!other.chunks.isEmpty()) {
+			chunks.addAll(other.chunks);
+			current = other.current;
+		}
+		return this;
+	}
+
+	String toString(String prefix, String suffix) {
+		int length = prefix.length() + suffix.length();
+		for (StringBuilder chunk : chunks) {
+			length += chunk.length();
+		}
+		length += Math.max(0, chunks.size() - 1) * delimiter.length();
+
+		StringBuilder result = new StringBuilder(length).append(prefix);
+		for (int i = 0; i < chunks.size(); i++) {
+			if (i > 0) {
+				result.append(delimiter);
+			}
+			result.append(chunks.get(i));
+		}
+		return result.append(suffix).toString();
+	}
+}
@@ -0,0 +1,131 @@
+package javaSe.streams.collectors;
+
+/**
+ * Estimates how many times elements occurred, in memory which does not grow with the number of distinct elements.
+ *
+ * Every element increments one counter in each of depth rows of width counters, chosen by different hashes.
+ * Other elements may share a counter, so the smallest of the counters of an element is never below its count,
+ * and with probability confidence it exceeds the count by at most epsilon * total. Sketches of the same
+ * dimensions are combined by adding counters.
+ */
+public class CountMinSketch {
+	static final byte TYPE = 'C';
+
+	private final int width;
+	private final int depth;
+	private final long[] counters;
+	private long total;
+
+	/**
+	 * @param epsilon    overestimation as a fraction of the total count, e.g. 0.001
+	 * @param confidence probability that the overestimation is within epsilon, e.g. 0.99
+	 */
+	public CountMinSketch(double epsilon, double confidence) {
+		this(width(epsilon), depth(confidence));
+	}
+
+	public CountMinSketch(int width, int depth) {
+		if (width < 1 || depth < 1 || (long) width * depth > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Invalid dimensions " + width + " x " + depth);
+		}
+		this.width = width;
+		this.depth = depth;
+		this.counters = new long[width * depth];
+	}
+
+	public void add(Object element) {
+		addHash(Hashing.hash(element), 1);
+	}
+
+	public void add(Object element, long count) {
+		addHash(Hashing.hash(element), count);
+	}
+
+	public void addHash(long hash, long count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("Negative count: " + count);
+		}
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int row = 0; row < depth; row++) {
+			counters[row * width + Hashing.index(h1 + row * h2, width)] += count;
+		}
+		total += count;
+	}
+
+	public long estimate(Object element) {
+		return estimateHash(Hashing.hash(element));
+	}
+
+	public long estimateHash(long hash) {
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		long estimate = Long.MAX_VALUE;
+		for (int row = 0; row < depth; row++) {
+			estimate = Math.min(estimate, counters[row * width + Hashing.index(h1 + row * h2, width)]);
+		}
+		return estimate;
+	}
+
+	public CountMinSketch combine(CountMinSketch other) {
+		if (other.width != width || other.depth != depth) {
+			throw new IllegalArgumentException("Cannot combine sketches of " + width + " x " + depth
+					+ " and " + other.width + " x " + other.depth + " counters");
+		}
+		for (int i = 0; i < counters.length; i++) {
+			counters[i] += other.counters[i];
+		}
+		total += other.total;
+		return this;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public byte[] toBytes() {
+		SketchBytes.Writer writer = new SketchBytes.Writer(TYPE, 16 + counters.length * 2);
+		writer.writeVarLong(width).writeVarLong(depth).writeVarLong(total);
+		for (long counter : counters) {
+			writer.writeVarLong(counter);
+		}
+		return writer.toByteArray();
+	}
+
+	public static CountMinSketch fromBytes(byte[] bytes) {
+		SketchBytes input = SketchBytes.read(bytes, TYPE);
+		CountMinSketch sketch = new CountMinSketch(input.readVarInt(), input.readVarInt());
+		sketch.total = input.readVarLong();
+		for (int i = 0; i < sketch.counters.length; i++) {
+			sketch.counters[i] = input.readVarLong();
+		}
+		return sketch;
+	}
+
+	private static int width(double epsilon) {
+		if (!(epsilon > 0 && epsilon < 1)) {
+			throw new IllegalArgumentException("epsilon must be in (0, 1): " + epsilon);
+		}
+		return (int) Math.ceil(Math.E / epsilon);
+	}
+
+	private static int depth(double confidence) {
+		if (!(confidence > 0 && confidence < 1)) {
+			throw new IllegalArgumentException("confidence must be in (0, 1): " + confidence);
+		}
+		return (int) Math.ceil(Math.log(1 / (1 - confidence)));
+	}
+
+	@Override
+	public String toString() {
+		return "CountMinSketch{width=" + width + ", depth=" + depth + ", total=" + total + "}";
+	}
+}
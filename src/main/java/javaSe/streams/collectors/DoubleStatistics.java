@@ -0,0 +1,91 @@
+package javaSe.streams.collectors;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * DoubleSummaryStatistics with variance, see {@link LongStatistics}.
+ */
+public class DoubleStatistics implements DoubleConsumer {
+	private long count;
+	private double sum;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+	private double mean;
+	private double m2;
+
+	@Override
+	public void accept(double value) {
+		count++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+		double delta = value - mean;
+		mean += delta / count;
+		m2 += delta * (value - mean);
+	}
+
+	public DoubleStatistics combine(DoubleStatistics other) {
+		if (other.count == 0) {
+			return this;
+		}
+		if (count == 0) {
+			count = other.count;
+			sum = other.sum;
+			min = other.min;
+			max = other.max;
+			mean = other.mean;
+			m2 = other.m2;
+			return this;
+		}
+		long total = count + other.count;
+		double delta = other.mean - mean;
+		mean += delta * other.count / total;
+		m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+		count = total;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		return this;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getSum() {
+		return sum;
+	}
+
+	public double getMin() {
+		return min;
+	}
+
+	public double getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * Population variance.
+	 */
+	public double getVariance() {
+		return count > 0 ? m2 / count : 0.0d;
+	}
+
+	public double getSampleVariance() {
+		return count > 1 ? m2 / (count - 1) : 0.0d;
+	}
+
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	@Override
+	public String toString() {
+		return String.format("DoubleStatistics{count=%d, sum=%f, min=%f, mean=%f, max=%f, variance=%f}",
+				getCount(), getSum(), getMin(), getMean(), getMax(), getVariance());
+	}
+}
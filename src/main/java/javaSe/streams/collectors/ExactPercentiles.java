@@ -0,0 +1,79 @@
+package javaSe.streams.collectors;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Exact percentiles. Every value is kept in a growing primitive array, which is sorted on the first query.
+ * Longs greater than 2^53 are rounded, as they are stored as doubles.
+ * Use {@link Histogram} when memory has to stay constant.
+ */
+public class ExactPercentiles implements IntConsumer, LongConsumer, DoubleConsumer {
+	private double[] values = new double[16];
+	private int count;
+	private boolean sorted = true;
+
+	@Override
+	public void accept(int value) {
+		accept((double) value);
+	}
+
+	@Override
+	public void accept(long value) {
+		accept((double) value);
+	}
+
+	@Override
+	public void accept(double value) {
+		if (count == values.length) {
+			values = Arrays.copyOf(values, count * 2);
+		}
+		values[count++] = value;
+		sorted = false;
+	}
+
+	public ExactPercentiles combine(ExactPercentiles other) {
+		if (count + other.count > values.length) {
+			values = Arrays.copyOf(values, Math.max(values.length * 2, count + other.count));
+		}
+		System.arraycopy(other.values, 0, values, count, other.count);
+		count += other.count;
+		sorted = false;
+		return this;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Nearest-rank percentile: the smallest recorded value which is greater than or equal to
+	 * the given percent of all values.
+	 *
+	 * @param percent value from (0, 100]
+	 */
+	public double getPercentile(double percent) {
+		if (count == 0) {
+			throw new IllegalStateException("No values");
+		}
+		if (percent <= 0 || percent > 100) {
+			throw new IllegalArgumentException("Percent must be in (0, 100]: " + percent);
+		}
+		sort();
+		int rank = (int) Math.ceil(percent / 100 * count);
+		return values[Math.max(rank, 1) - 1];
+	}
+
+	public double getMedian() {
+		return getPercentile(50);
+	}
+
+	private void sort() {
+		if (!sorted) {
+			Arrays.sort(values, 0, count);
+			sorted = true;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package javaSe.streams.collectors;
+
+/**
+ * 64-bit hashes for sketches. hashCode has only 32 bits and is poorly spread for numbers (Integer.hashCode is
+ * the value), which is not enough for distinct counting of billions of keys, so strings and numbers are hashed
+ * here and other objects get their hashCode mixed.
+ */
+final class Hashing {
+	private Hashing() {
+	}
+
+	static long hash(Object value) {
+		if (value instanceof CharSequence) {
+			CharSequence text = (CharSequence) value;
+			long h = 0xcbf29ce484222325L;
+			for (int i = 0; i < text.length(); i++) {
+				h = (h ^ text.charAt(i)) * 0x100000001b3L;
+			}
+			return mix(h);
+		}
+		if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			return mix(((Number) value).longValue());
+		}
+		return mix(value == null ? 0 : value.hashCode());
+	}
+
+	/**
+	 * Finalizer of SplitMix64: every bit of the input changes about half of the bits of the result.
+	 */
+	static long mix(long value) {
+		long z = value + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Maps a hash to [0, size) with a multiplication instead of a division.
+	 */
+	static int index(int hash, int size) {
+		return (int) (((hash & 0xFFFFFFFFL) * size) >>> 32);
+	}
+}
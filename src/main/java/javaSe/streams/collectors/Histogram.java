@@ -0,0 +1,159 @@
+package javaSe.streams.collectors;
+
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Histogram of non-negative values with log-linear buckets, in the style of HdrHistogram.
+ *
+ * Values below 2^precisionBits have their own buckets. Every higher power of two range is split into
+ * 2^(precisionBits - 1) equal buckets, so a value is known with relative error below 2^(1 - precisionBits)
+ * (e.g. 1.6% for 7 bits) and the whole long range fits in a few thousand counters.
+ */
+public class Histogram implements IntConsumer, LongConsumer {
+	public static final int DEFAULT_PRECISION_BITS = 7;
+
+	private final int precisionBits;
+	private final int half;
+	private final long[] counts;
+	private long count;
+	private long min = Long.MAX_VALUE;
+	private long max = Long.MIN_VALUE;
+
+	public interface BucketConsumer {
+		void accept(long lowerBound, long upperBound, long count);
+	}
+
+	public Histogram() {
+		this(DEFAULT_PRECISION_BITS);
+	}
+
+	public Histogram(int precisionBits) {
+		if (precisionBits < 2 || precisionBits > 16) {
+			throw new IllegalArgumentException("precisionBits must be in [2, 16]: " + precisionBits);
+		}
+		this.precisionBits = precisionBits;
+		this.half = 1 << (precisionBits - 1);
+		this.counts = new long[indexOf(Long.MAX_VALUE) + 1];
+	}
+
+	@Override
+	public void accept(int value) {
+		accept((long) value);
+	}
+
+	@Override
+	public void accept(long value) {
+		record(value, 1);
+	}
+
+	public void record(long value, long times) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Negative value: " + value);
+		}
+		counts[indexOf(value)] += times;
+		count += times;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	public Histogram combine(Histogram other) {
+		if (other.precisionBits != precisionBits) {
+			throw new IllegalArgumentException("Histograms have different precision");
+		}
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		return this;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMin() {
+		return min;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Approximate nearest-rank percentile: the highest value of the bucket which holds the rank.
+	 *
+	 * @param percent value from (0, 100]
+	 */
+	public long getPercentile(double percent) {
+		if (count == 0) {
+			throw new IllegalStateException("No values");
+		}
+		if (percent <= 0 || percent > 100) {
+			throw new IllegalArgumentException("Percent must be in (0, 100]: " + percent);
+		}
+		long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.max(min, Math.min(max, upperBound(i)));
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * @return count of the buckets holding lowValue to highValue, both inclusive, 0 when the range has no values
+	 */
+	public long getCountBetween(long lowValue, long highValue) {
+		lowValue = Math.max(0, lowValue);
+		if (highValue < lowValue) {
+			return 0;
+		}
+		long result = 0;
+		int high = indexOf(highValue);
+		for (int i = indexOf(lowValue); i <= high; i++) {
+			result += counts[i];
+		}
+		return result;
+	}
+
+	/**
+	 * Visits non-empty buckets in ascending order.
+	 */
+	public void forEachBucket(BucketConsumer consumer) {
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] != 0) {
+				consumer.accept(lowerBound(i), upperBound(i), counts[i]);
+			}
+		}
+	}
+
+	private int indexOf(long value) {
+		int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		if (magnitude < precisionBits) {
+			return (int) value;
+		}
+		int shift = magnitude - precisionBits + 1;
+		return shift * half + (int) (value >>> shift);
+	}
+
+	private long lowerBound(int index) {
+		if (index < 2 * half) {
+			return index;
+		}
+		int shift = index / half - 1;
+		return (long) (index - shift * half) << shift;
+	}
+
+	private long upperBound(int index) {
+		if (index < 2 * half) {
+			return index;
+		}
+		int shift = index / half - 1;
+		return ((long) (index - shift * half + 1) << shift) - 1;
+	}
+}
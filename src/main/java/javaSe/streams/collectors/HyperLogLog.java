@@ -0,0 +1,143 @@
+package javaSe.streams.collectors;
+
+/**
+ * Estimates the number of distinct elements in a fixed amount of memory (HyperLogLog).
+ *
+ * The first precision bits of the hash of an element select one of 2^precision registers, which keeps the largest
+ * number of leading zeros seen in the rest of the hash. Many distinct elements are needed to see long runs of zeros,
+ * so the registers together tell how many there were, with relative standard error 1.04 / sqrt(2^precision),
+ * e.g. 0.8% for the default precision 14 in 16 KB, whether there were a thousand elements or a billion.
+ * Adding the same element again changes nothing, and two sketches of the same precision are combined
+ * by taking the larger register, so the result is the same as if one sketch saw both streams.
+ */
+public class HyperLogLog {
+	public static final int DEFAULT_PRECISION = 14;
+	static final byte TYPE = 'H';
+
+	private final int precision;
+	private final byte[] registers;
+
+	public HyperLogLog() {
+		this(DEFAULT_PRECISION);
+	}
+
+	public HyperLogLog(int precision) {
+		if (precision < 4 || precision > 18) {
+			throw new IllegalArgumentException("precision must be in [4, 18]: " + precision);
+		}
+		this.precision = precision;
+		this.registers = new byte[1 << precision];
+	}
+
+	public void add(Object element) {
+		addHash(Hashing.hash(element));
+	}
+
+	public void addLong(long value) {
+		addHash(Hashing.mix(value));
+	}
+
+	/**
+	 * @param hash well spread 64-bit hash of an element
+	 */
+	public void addHash(long hash) {
+		int register = (int) (hash >>> (64 - precision));
+		int rank = Math.min(Long.numberOfLeadingZeros(hash << precision), 64 - precision) + 1;
+		if (rank > registers[register]) {
+			registers[register] = (byte) rank;
+		}
+	}
+
+	public HyperLogLog combine(HyperLogLog other) {
+		if (other.precision != precision) {
+			throw new IllegalArgumentException("Cannot combine sketches of precision " + precision + " and " + other.precision);
+		}
+		for (int i = 0; i < registers.length; i++) {
+			registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+		}
+		return this;
+	}
+
+	/**
+	 * Small counts, when some registers are still empty, are estimated from the number of empty registers
+	 * (linear counting), which is more accurate there.
+	 */
+	public long estimate() {
+		int m = registers.length;
+		double sum = 0;
+		int zeros = 0;
+		for (byte register : registers) {
+			sum += Math.scalb(1.0, -register);
+			zeros += register == 0 ? 1 : 0;
+		}
+		double estimate = alpha(m) * m * m / sum;
+		if (estimate <= 2.5 * m && zeros > 0) {
+			estimate = m * Math.log((double) m / zeros);
+		}
+		return Math.round(estimate);
+	}
+
+	public int getPrecision() {
+		return precision;
+	}
+
+	public double getRelativeError() {
+		return 1.04 / Math.sqrt(registers.length);
+	}
+
+	/**
+	 * Registers take 6 bits each, 12 KB for the default precision.
+	 */
+	public byte[] toBytes() {
+		SketchBytes.Writer writer = new SketchBytes.Writer(TYPE, 3 + registers.length * 6 / 8 + 1);
+		writer.writeByte(precision);
+		long bits = 0;
+		int count = 0;
+		for (byte register : registers) {
+			bits = bits << 6 | register;
+			count += 6;
+			if (count >= 8) {
+				count -= 8;
+				writer.writeByte((int) (bits >>> count));
+			}
+		}
+		if (count > 0) {
+			writer.writeByte((int) (bits << (8 - count)));
+		}
+		return writer.toByteArray();
+	}
+
+	public static HyperLogLog fromBytes(byte[] bytes) {
+		SketchBytes input = SketchBytes.read(bytes, TYPE);
+		HyperLogLog sketch = new HyperLogLog(input.readByte());
+		long bits = 0;
+		int count = 0;
+		for (int i = 0; i < sketch.registers.length; i++) {
+			if (count < 6) {
+				bits = bits << 8 | input.readByte();
+				count += 8;
+			}
+			count -= 6;
+			sketch.registers[i] = (byte) ((bits >>> count) & 0x3F);
+		}
+		return sketch;
+	}
+
+	private static double alpha(int m) {
+		switch (m) {
+			case 16:
+				return 0.673;
+			case 32:
+				return 0.697;
+			case 64:
+				return 0.709;
+			default:
+				return 0.7213 / (1 + 1.079 / m);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "HyperLogLog{precision=" + precision + ", estimate=" + estimate() + "}";
+	}
+}
@@ -0,0 +1,100 @@
+package javaSe.streams.collectors;
+
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * LongSummaryStatistics with variance. Accepts int and long values, so nothing is boxed.
+ *
+ * Mean and variance are updated with Welford's method, which is numerically stable,
+ * and partial results of a parallel stream are merged with Chan's formula.
+ */
+public class LongStatistics implements IntConsumer, LongConsumer {
+	private long count;
+	private long sum;
+	private long min = Long.MAX_VALUE;
+	private long max = Long.MIN_VALUE;
+	private double mean;
+	private double m2;
+
+	@Override
+	public void accept(int value) {
+		accept((long) value);
+	}
+
+	@Override
+	public void accept(long value) {
+		count++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+		double delta = value - mean;
+		mean += delta / count;
+		m2 += delta * (value - mean);
+	}
+
+	public LongStatistics combine(LongStatistics other) {
+		if (other.count == 0) {
+			return this;
+		}
+		if (count == 0) {
+			count = other.count;
+			sum = other.sum;
+			min = other.min;
+			max = other.max;
+			mean = other.mean;
+			m2 = other.m2;
+			return this;
+		}
+		long total = count + other.count;
+		double delta = other.mean - mean;
+		mean += delta * other.count / total;
+		m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+		count = total;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		return this;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getSum() {
+		return sum;
+	}
+
+	public long getMin() {
+		return min;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return count > 0 ? (double) sum / count : 0.0d;
+	}
+
+	/**
+	 * Population variance.
+	 */
+	public double getVariance() {
+		return count > 0 ? m2 / count : 0.0d;
+	}
+
+	public double getSampleVariance() {
+		return count > 1 ? m2 / (count - 1) : 0.0d;
+	}
+
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	@Override
+	public String toString() {
+		return String.format("LongStatistics{count=%d, sum=%d, min=%d, mean=%f, max=%d, variance=%f}",
+				getCount(), getSum(), getMin(), getMean(), getMax(), getVariance());
+	}
+}
@@ -0,0 +1,81 @@
+package javaSe.streams.collectors;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * Collectors for parallel streams, counterparts of the ones shown in javaSe.streams.Collectors.
+ *
+ * A combiner is called only for parallel streams, when results of split parts are merged,
+ * that is why customCollectorCanBeDefined never reaches "step 3". Here every combiner is cheap,
+ * and collectors whose result does not depend on encounter order are CONCURRENT and UNORDERED:
+ * all threads accumulate into one shared container and the combiner is not needed at all.
+ */
+public final class ParallelCollectors {
+	private static final int DEFAULT_STRIPES = Runtime.getRuntime().availableProcessors() * 4;
+
+	private ParallelCollectors() {
+	}
+
+	/**
+	 * Like Collectors.groupingBy(classifier), but elements are added to a map split into independently locked stripes.
+	 * Order of elements inside a group is not defined for parallel streams.
+	 */
+	public static <T, K> Collector<T, ?, Map<K, List<T>>> groupingByConcurrent(Function<? super T, ? extends K> classifier) {
+		return groupingByConcurrent(classifier, DEFAULT_STRIPES);
+	}
+
+	public static <T, K> Collector<T, ?, Map<K, List<T>>> groupingByConcurrent(Function<? super T, ? extends K> classifier,
+	                                                                          int stripes) {
+		return Collector.<T, StripedGroups<K, T>, Map<K, List<T>>>of(
+				() -> new StripedGroups<>(stripes),
+				(groups, element) -> groups.add(classifier.apply(element), element),
+				StripedGroups::merge,
+				StripedGroups::toMap,
+				Collector.Characteristics.CONCURRENT,
+				Collector.Characteristics.UNORDERED);
+	}
+
+	/**
+	 * Like Collectors.joining(delimiter), but parts of a parallel stream are merged without copying characters.
+	 * Joining depends on encounter order, so it is neither CONCURRENT nor UNORDERED.
+	 */
+	public static Collector<CharSequence, ?, String> joining(String delimiter) {
+		return joining(delimiter, "", "");
+	}
+
+	public static Collector<CharSequence, ?, String> joining(String delimiter, String prefix, String suffix) {
+		return Collector.of(
+				() -> new ChunkedJoiner(delimiter),
+				ChunkedJoiner::add,
+				ChunkedJoiner::merge,
+				joiner -> joiner.toString(prefix, suffix));
+	}
+
+	/**
+	 * Like Collectors.toMap(keyMapper, valueMapper, mergeFunction) from convertToMapWithTheSameKeyHandling,
+	 * but all threads put into one ConcurrentHashMap, which locks only the bin of the merged key.
+	 * For parallel streams values of the same key are merged in any order.
+	 */
+	public static <T, K, U> Collector<T, ?, ConcurrentMap<K, U>> toConcurrentMap(Function<? super T, ? extends K> keyMapper,
+	                                                                             Function<? super T, ? extends U> valueMapper,
+	                                                                             BinaryOperator<U> mergeFunction) {
+		return Collector.<T, ConcurrentMap<K, U>>of(
+				ConcurrentHashMap::new,
+				(map, element) -> map.merge(keyMapper.apply(element), valueMapper.apply(element), mergeFunction),
+				(map1, map2) -> {
+					for (Map.Entry<K, U> entry : map2.entrySet()) {
+						map1.merge(entry.getKey(), entry.getValue(), mergeFunction);
+					}
+					return map1;
+				},
+				Collector.Characteristics.CONCURRENT,
+				Collector.Characteristics.UNORDERED,
+				Collector.Characteristics.IDENTITY_FINISH);
+	}
+}
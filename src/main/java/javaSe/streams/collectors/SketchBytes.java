@@ -0,0 +1,144 @@
+package javaSe.streams.collectors;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import javaSe.map.ValueCodec;
+
+/**
+ * Binary form of sketches: a type byte, a version byte and the fields, counts as varints,
+ * so the many small counters of a sketch take one or two bytes each.
+ */
+final class SketchBytes {
+	static final byte VERSION = 1;
+
+	private final byte[] bytes;
+	private final ByteBuffer source;
+
+	private SketchBytes(byte[] bytes) {
+		this.bytes = bytes;
+		this.source = ByteBuffer.wrap(bytes);
+	}
+
+	/**
+	 * @throws IllegalArgumentException when the bytes are not a sketch of the type
+	 */
+	static SketchBytes read(byte[] bytes, byte type) {
+		if (bytes.length < 2 || bytes[0] != type) {
+			throw new IllegalArgumentException("Not a serialized sketch of type " + type);
+		}
+		if (bytes[1] != VERSION) {
+			throw new IllegalArgumentException("Unsupported sketch version " + bytes[1]);
+		}
+		SketchBytes input = new SketchBytes(bytes);
+		input.source.position(2);
+		return input;
+	}
+
+	int readByte() {
+		return source.get() & 0xFF;
+	}
+
+	long readLong() {
+		return source.getLong();
+	}
+
+	int readVarInt() {
+		long value = readVarLong();
+		if (value > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Corrupted sketch, too large value " + value);
+		}
+		return (int) value;
+	}
+
+	long readVarLong() {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = source.get();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Corrupted sketch, varint is too long");
+	}
+
+	<T> T readValue(ValueCodec<T> codec) {
+		int length = readVarInt();
+		ByteBuffer value = ByteBuffer.wrap(bytes, source.position(), length).slice();
+		source.position(source.position() + length);
+		return codec.read(value);
+	}
+
+	boolean hasRemaining() {
+		return source.hasRemaining();
+	}
+
+	static final class Writer {
+		private byte[] bytes;
+		private int size;
+		private ByteBuffer scratch;
+
+		Writer(byte type, int expectedSize) {
+			bytes = new byte[Math.max(16, expectedSize)];
+			bytes[size++] = type;
+			bytes[size++] = VERSION;
+		}
+
+		Writer writeByte(int value) {
+			ensure(1);
+			bytes[size++] = (byte) value;
+			return this;
+		}
+
+		Writer writeLong(long value) {
+			ensure(8);
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				bytes[size++] = (byte) (value >>> shift);
+			}
+			return this;
+		}
+
+		Writer writeVarLong(long value) {
+			ensure(10);
+			while ((value & ~0x7FL) != 0) {
+				bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[size++] = (byte) value;
+			return this;
+		}
+
+		<T> Writer writeValue(T value, ValueCodec<T> codec) {
+			if (scratch == null) {
+				scratch = ByteBuffer.allocate(256);
+			}
+			while (true) {
+				scratch.clear();
+				try {
+					codec.write(value, scratch);
+					break;
+				} catch (BufferOverflowException e) {
+					scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+				}
+			}
+			int length = scratch.position();
+			writeVarLong(length);
+			ensure(length);
+			System.arraycopy(scratch.array(), 0, bytes, size, length);
+			size += length;
+			return this;
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(bytes, size);
+		}
+
+		private void ensure(int length) {
+			if (size + length > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(size + length, bytes.length * 2));
+			}
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package javaSe.streams.collectors;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * Collectors which answer "how many distinct", "how often" and "which are the most frequent" in fixed memory,
+ * where groupingBy or toMap would keep every distinct key, e.g.
+ * <pre>
+ * long visitors = requests.stream().collect(SketchCollectors.countDistinct(Request::getUserId));
+ * List&lt;SpaceSaving.Entry&lt;String&gt;&gt; pages = requests.stream().collect(SketchCollectors.topK(Request::getPath, 100));
+ * </pre>
+ * The results are estimates with the errors described by the sketches. Every sketch has a combine method,
+ * so parallel streams are merged part by part, and toBytes, so partial results can be stored and combined later.
+ */
+public final class SketchCollectors {
+	private SketchCollectors() {
+	}
+
+	public static <T> Collector<T, ?, HyperLogLog> distinct(Function<? super T, ?> key) {
+		return distinct(key, HyperLogLog.DEFAULT_PRECISION);
+	}
+
+	public static <T> Collector<T, ?, HyperLogLog> distinct(Function<? super T, ?> key, int precision) {
+		return Collector.of(
+				() -> new HyperLogLog(precision),
+				(sketch, element) -> sketch.add(key.apply(element)),
+				HyperLogLog::combine,
+				Collector.Characteristics.IDENTITY_FINISH,
+				Collector.Characteristics.UNORDERED);
+	}
+
+	/**
+	 * Estimated number of distinct keys, within 0.8% for 68% of streams (and 2.4% for 99.7%).
+	 */
+	public static <T> Collector<T, ?, Long> countDistinct(Function<? super T, ?> key) {
+		return java.util.stream.Collectors.collectingAndThen(distinct(key), HyperLogLog::estimate);
+	}
+
+	public static <T> Collector<T, ?, CountMinSketch> frequencies(Function<? super T, ?> key, double epsilon, double confidence) {
+		return Collector.of(
+				() -> new CountMinSketch(epsilon, confidence),
+				(sketch, element) -> sketch.add(key.apply(element)),
+				CountMinSketch::combine,
+				Collector.Characteristics.IDENTITY_FINISH,
+				Collector.Characteristics.UNORDERED);
+	}
+
+	/**
+	 * Keys counted with the given number of counters, a few times more than the number of keys which will be read.
+	 */
+	public static <T, K> Collector<T, ?, SpaceSaving<K>> heavyHitters(Function<? super T, ? extends K> key, int capacity) {
+		return Collector.of(
+				() -> new SpaceSaving<K>(capacity),
+				(summary, element) -> summary.add(key.apply(element)),
+				SpaceSaving::combine,
+				Collector.Characteristics.IDENTITY_FINISH,
+				Collector.Characteristics.UNORDERED);
+	}
+
+	/**
+	 * The k most frequent keys, counted with 10 * k counters, which is enough for the skewed distributions
+	 * where the top matters; use heavyHitters with more counters when keys are closer to uniform.
+	 */
+	public static <T, K> Collector<T, ?, List<SpaceSaving.Entry<K>>> topK(Function<? super T, ? extends K> key, int k) {
+		if (k < 1 || k > Integer.MAX_VALUE / 10) {
+			throw new IllegalArgumentException("k must be in [1, " + Integer.MAX_VALUE / 10 + "]: " + k);
+		}
+		return java.util.stream.Collectors.collectingAndThen(SketchCollectors.<T, K>heavyHitters(key, 10 * k), summary -> summary.top(k));
+	}
+
+	public static <T> Collector<T, ?, BloomFilter> bloomFilter(Function<? super T, ?> key, long expectedInsertions,
+	                                                          double falsePositiveProbability) {
+		return Collector.of(
+				() -> new BloomFilter(expectedInsertions, falsePositiveProbability),
+				(filter, element) -> filter.add(key.apply(element)),
+				BloomFilter::combine,
+				Collector.Characteristics.IDENTITY_FINISH,
+				Collector.Characteristics.UNORDERED);
+	}
+}
@@ -0,0 +1,268 @@
+package javaSe.streams.collectors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javaSe.map.ValueCodec;
+
+/**
+ * The most frequent elements of a stream with at most capacity counters (Space-Saving, Metwally et al.).
+ *
+ * While there is a free counter every new element gets one. Then a new element takes over the counter with
+ * the smallest count, keeps that count as its possible error and adds one. Counts are therefore never too low,
+ * at most total / capacity too high, and every element occurring more often than that is in the summary.
+ * A capacity a few times larger than the number of reported elements makes the top of the list exact in practice.
+ *
+ * The counters are a min-heap, so an update costs O(log capacity). Summaries are combined as in Agarwal et al.,
+ * Mergeable Summaries: an element missing in a full summary may have occurred up to its smallest count times there.
+ */
+public class SpaceSaving<T> {
+	static final byte TYPE = 'S';
+
+	private static final Comparator<Entry<?>> BY_COUNT = Comparator.<Entry<?>>comparingLong(Entry::getCount).reversed()
+			.thenComparingLong(Entry::getError);
+
+	private final int capacity;
+	private final Map<T, Counter<T>> counters;
+	private final Counter<T>[] heap;
+	private int size;
+	private long total;
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public SpaceSaving(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		}
+		this.capacity = capacity;
+		this.counters = new HashMap<>(Math.max(16, (int) (capacity / 0.75f) + 1));
+		this.heap = new Counter[capacity];
+	}
+
+	public static final class Entry<T> {
+		private final T element;
+		private final long count;
+		private final long error;
+
+		Entry(T element, long count, long error) {
+			this.element = element;
+			this.count = count;
+			this.error = error;
+		}
+
+		public T getElement() {
+			return element;
+		}
+
+		/**
+		 * @return upper bound of the number of occurrences
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return how much the count may exceed the number of occurrences
+		 */
+		public long getError() {
+			return error;
+		}
+
+		public long getGuaranteedCount() {
+			return count - error;
+		}
+
+		@Override
+		public String toString() {
+			return element + "=" + count + (error > 0 ? " (error " + error + ")" : "");
+		}
+	}
+
+	private static final class Counter<T> {
+		T element;
+		long count;
+		long error;
+		int position;
+
+		Counter(T element, long count, long error) {
+			this.element = element;
+			this.count = count;
+			this.error = error;
+		}
+	}
+
+	public void add(T element) {
+		add(element, 1);
+	}
+
+	public void add(T element, long count) {
+		if (count < 1) {
+			throw new IllegalArgumentException("count must be positive: " + count);
+		}
+		total += count;
+		Counter<T> counter = counters.get(element);
+		if (counter != null) {
+			counter.count += count;
+			siftDown(counter.position);
+		} else if (size < capacity) {
+			counter = new Counter<>(element, count, 0);
+			counters.put(element, counter);
+			heap[size] = counter;
+			siftUp(size++);
+		} else {
+			counter = heap[0];
+			counters.remove(counter.element);
+			counter.element = element;
+			counter.error = counter.count;
+			counter.count += count;
+			counters.put(element, counter);
+			siftDown(0);
+		}
+	}
+
+	public SpaceSaving<T> combine(SpaceSaving<T> other) {
+		long minCount = getMinCount();
+		long otherMinCount = other.getMinCount();
+		List<Entry<T>> merged = new ArrayList<>(size + other.size);
+		for (int i = 0; i < size; i++) {
+			Counter<T> counter = heap[i];
+			Counter<T> same = other.counters.get(counter.element);
+			merged.add(same == null
+					? new Entry<>(counter.element, counter.count + otherMinCount, counter.error + otherMinCount)
+					: new Entry<>(counter.element, counter.count + same.count, counter.error + same.error));
+		}
+		for (int i = 0; i < other.size; i++) {
+			Counter<T> counter = other.heap[i];
+			if (!counters.containsKey(counter.element)) {
+				merged.add(new Entry<>(counter.element, counter.count + minCount, counter.error + minCount));
+			}
+		}
+		merged.sort(BY_COUNT);
+		replace(merged.subList(0, Math.min(capacity, merged.size())));
+		total += other.total;
+		return this;
+	}
+
+	/**
+	 * @return at most n elements with the highest counts, the most frequent first
+	 */
+	public List<Entry<T>> top(int n) {
+		List<Entry<T>> entries = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			entries.add(new Entry<>(heap[i].element, heap[i].count, heap[i].error));
+		}
+		entries.sort(BY_COUNT);
+		return new ArrayList<>(entries.subList(0, Math.min(n, entries.size())));
+	}
+
+	/**
+	 * @return count of the element, or 0 when it is not in the summary
+	 */
+	public long estimate(T element) {
+		Counter<T> counter = counters.get(element);
+		return counter == null ? 0 : counter.count;
+	}
+
+	public long getTotal() {
+		return total;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the most any element missing in the summary may have occurred
+	 */
+	public long getMinCount() {
+		return size < capacity ? 0 : heap[0].count;
+	}
+
+	public byte[] toBytes(ValueCodec<T> codec) {
+		SketchBytes.Writer writer = new SketchBytes.Writer(TYPE, 16 + size * 16);
+		writer.writeVarLong(capacity).writeVarLong(total).writeVarLong(size);
+		for (int i = 0; i < size; i++) {
+			writer.writeVarLong(heap[i].count).writeVarLong(heap[i].error).writeValue(heap[i].element, codec);
+		}
+		return writer.toByteArray();
+	}
+
+	public static <T> SpaceSaving<T> fromBytes(byte[] bytes, ValueCodec<T> codec) {
+		SketchBytes input = SketchBytes.read(bytes, TYPE);
+		SpaceSaving<T> summary = new SpaceSaving<>(input.readVarInt());
+		summary.total = input.readVarLong();
+		int size = input.readVarInt();
+		if (size > summary.capacity) {
+			throw new IllegalArgumentException("Corrupted summary of " + size + " counters");
+		}
+		List<Entry<T>> entries = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			long count = input.readVarLong();
+			long error = input.readVarLong();
+			entries.add(new Entry<>(input.readValue(codec), count, error));
+		}
+		summary.replace(entries);
+		return summary;
+	}
+
+	private void replace(List<Entry<T>> entries) {
+		counters.clear();
+		Arrays.fill(heap, null);
+		size = 0;
+		for (Entry<T> entry : entries) {
+			Counter<T> counter = new Counter<>(entry.element, entry.count, entry.error);
+			counters.put(entry.element, counter);
+			heap[size] = counter;
+			siftUp(size++);
+		}
+	}
+
+	private void siftUp(int position) {
+		Counter<T> counter = heap[position];
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (heap[parent].count <= counter.count) {
+				break;
+			}
+			place(heap[parent], position);
+			position = parent;
+		}
+		place(counter, position);
+	}
+
+	private void siftDown(int position) {
+		Counter<T> counter = heap[position];
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+				child++;
+			}
+			if (counter.count <= heap[child].count) {
+				break;
+			}
+			place(heap[child], position);
+			position = child;
+		}
+		place(counter, position);
+	}
+
+	private void place(Counter<T> counter, int position) {
+		heap[position] = counter;
+		counter.position = position;
+	}
+
+	@Override
+	public String toString() {
+		return "SpaceSaving" + top(10);
+	}
+}
@@ -0,0 +1,68 @@
+package javaSe.streams.collectors;
+
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+
+/**
+ * Summarizing collectors which read primitive values and never box them,
+ * unlike e.g. Collectors.averagingInt(p -> p.age) on a Stream of objects.
+ *
+ * Results do not depend on encounter order, so the collectors are UNORDERED.
+ * Every container has a combine method, so parallel streams are merged without copying elements
+ * (except ExactPercentiles, which has to keep all of them).
+ */
+public final class StatisticsCollectors {
+	private StatisticsCollectors() {
+	}
+
+	public static <T> Collector<T, ?, LongStatistics> summarizingInt(ToIntFunction<? super T> mapper) {
+		return Collector.of(
+				LongStatistics::new,
+				(statistics, element) -> statistics.accept(mapper.applyAsInt(element)),
+				LongStatistics::combine,
+				Collector.Characteristics.IDENTITY_FINISH,
+				Collector.Characteristics.UNORDERED);
+	}
+
+	public static <T> Collector<T, ?, LongStatistics> summarizingLong(ToLongFunction<? super T> mapper) {
+		return Collector.of(
+				LongStatistics::new,
+				(statistics, element) -> statistics.accept(mapper.applyAsLong(element)),
+				LongStatistics::combine,
+				Collector.Characteristics.IDENTITY_FINISH,
+				Collector.Characteristics.UNORDERED);
+	}
+
+	public static <T> Collector<T, ?, DoubleStatistics> summarizingDouble(ToDoubleFunction<? super T> mapper) {
+		return Collector.of(
+				DoubleStatistics::new,
+				(statistics, element) -> statistics.accept(mapper.applyAsDouble(element)),
+				DoubleStatistics::combine,
+				Collector.Characteristics.IDENTITY_FINISH,
+				Collector.Characteristics.UNORDERED);
+	}
+
+	public static <T> Collector<T, ?, ExactPercentiles> percentiles(ToDoubleFunction<? super T> mapper) {
+		return Collector.of(
+				ExactPercentiles::new,
+				(percentiles, element) -> percentiles.accept(mapper.applyAsDouble(element)),
+				ExactPercentiles::combine,
+				Collector.Characteristics.IDENTITY_FINISH,
+				Collector.Characteristics.UNORDERED);
+	}
+
+	public static <T> Collector<T, ?, Histogram> histogram(ToLongFunction<? super T> mapper) {
+		return histogram(mapper, Histogram.DEFAULT_PRECISION_BITS);
+	}
+
+	public static <T> Collector<T, ?, Histogram> histogram(ToLongFunction<? super T> mapper, int precisionBits) {
+		return Collector.of(
+				() -> new Histogram(precisionBits),
+				(histogram, element) -> histogram.accept(mapper.applyAsLong(element)),
+				Histogram::combine,
+				Collector.Characteristics.IDENTITY_FINISH,
+				Collector.Characteristics.UNORDERED);
+	}
+}
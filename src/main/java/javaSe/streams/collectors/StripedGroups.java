@@ -0,0 +1,76 @@
+package javaSe.streams.collectors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups shared by many threads. Keys are spread over stripes and every stripe has its own lock,
+ * so threads adding elements to different stripes do not wait for each other.
+ */
+final class StripedGroups<K, T> {
+	private final Map<K, List<T>>[] stripes;
+	private final int mask;
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	StripedGroups(int concurrency) {
+		int size = Integer.highestOneBit(Math.max(1, concurrency - 1)) << 1;
+		stripes = new Map[size];
+		for (int i = 0; i < size; i++) {
+			stripes[i] = new HashMap<>();
+		}
+		mask = size - 1;
+	}
+
+	void add(K key, T element) {
+		Map<K, List<T>> stripe = stripes[stripeOf(key)];
+		synchronized (stripe) {
+			List<T> group = stripe.get(key);
+			if (group == null) {
+				group = new ArrayList<>();
+				stripe.put(key, group);
+			}
+			group.add(element);
+		}
+	}
+
+	/**
+	 * Used when the stream was split and every part was collected into its own groups.
+	 */
+	StripedGroups<K, T> merge(StripedGroups<K, T> other) {
+		for (Map<K, List<T>> stripe : other.stripes) {
+			for (Map.Entry<K, List<T>> group : stripe.entrySet()) {
+				Map<K, List<T>> target = stripes[stripeOf(group.getKey())];
+				List<T> existing = target.get(group.getKey());
+				if (existing == null) {
+					target.put(group.getKey(), group.getValue());
+				} else {
+					existing.addAll(group.getValue());
+				}
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Keys of different stripes never collide, so the result is built without merging any group.
+	 */
+	Map<K, List<T>> toMap() {
+		int size = 0;
+		for (Map<K, List<T>> stripe : stripes) {
+			size += stripe.size();
+		}
+		Map<K, List<T>> result = new HashMap<>(Math.max(16, (int) (size / 0.75f) + 1));
+		for (Map<K, List<T>> stripe : stripes) {
+			result.putAll(stripe);
+		}
+		return result;
+	}
+
+	private int stripeOf(Object key) {
+		int h = key == null ? 0 : key.hashCode();
+		h ^= h >>> 16;
+		return (h * 0x9E3779B9 >>> 16) & mask;
+	}
+}
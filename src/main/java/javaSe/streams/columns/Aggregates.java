@@ -0,0 +1,222 @@
+package javaSe.streams.columns;
+
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.IntSummaryStatistics;
+
+/**
+ * Partial results of one part of a query, kept in arrays indexed by group.
+ */
+final class Aggregates {
+	private Aggregates() {
+	}
+
+	static final class Rows {
+		private int[] rows = new int[Query.CHUNK_ROWS];
+		private int size;
+
+		void add(int[] selected, int count) {
+			if (size + count > rows.length) {
+				rows = Arrays.copyOf(rows, Math.max(size + count, rows.length * 2));
+			}
+			System.arraycopy(selected, 0, rows, size, count);
+			size += count;
+		}
+
+		Rows addAll(Rows other) {
+			add(other.rows, other.size);
+			return this;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(rows, size);
+		}
+	}
+
+	static final class Counts {
+		final long[] counts;
+
+		Counts(int groups) {
+			counts = new long[groups];
+		}
+
+		void add(GroupKeys<?> groups, int[] rows, int size) {
+			int[] keys = groups.keys;
+			int offset = groups.offset;
+			long[] counts = this.counts;
+			for (int i = 0; i < size; i++) {
+				counts[keys[rows[i]] - offset]++;
+			}
+		}
+
+		Counts combine(Counts other) {
+			for (int group = 0; group < counts.length; group++) {
+				counts[group] += other.counts[group];
+			}
+			return this;
+		}
+	}
+
+	static final class IntGroups {
+		final long[] counts;
+		private final long[] sums;
+		private final int[] mins;
+		private final int[] maxes;
+
+		IntGroups(int groups) {
+			counts = new long[groups];
+			sums = new long[groups];
+			mins = new int[groups];
+			maxes = new int[groups];
+			Arrays.fill(mins, Integer.MAX_VALUE);
+			Arrays.fill(maxes, Integer.MIN_VALUE);
+		}
+
+		/**
+		 * All rows into the first group, without looking up keys.
+		 */
+		void addAll(int[] values, int[] rows, int size) {
+			long sum = 0;
+			int min = mins[0];
+			int max = maxes[0];
+			for (int i = 0; i < size; i++) {
+				int value = values[rows[i]];
+				sum += value;
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+			}
+			counts[0] += size;
+			sums[0] += sum;
+			mins[0] = min;
+			maxes[0] = max;
+		}
+
+		void add(GroupKeys<?> groups, int[] values, int[] rows, int size) {
+			int[] keys = groups.keys;
+			int offset = groups.offset;
+			for (int i = 0; i < size; i++) {
+				int row = rows[i];
+				int group = keys[row] - offset;
+				int value = values[row];
+				counts[group]++;
+				sums[group] += value;
+				mins[group] = Math.min(mins[group], value);
+				maxes[group] = Math.max(maxes[group], value);
+			}
+		}
+
+		IntGroups combine(IntGroups other) {
+			for (int group = 0; group < counts.length; group++) {
+				counts[group] += other.counts[group];
+				sums[group] += other.sums[group];
+				mins[group] = Math.min(mins[group], other.mins[group]);
+				maxes[group] = Math.max(maxes[group], other.maxes[group]);
+			}
+			return this;
+		}
+
+		IntSummaryStatistics statistics(int group) {
+			return new IntSummaryStatistics(counts[group], mins[group], maxes[group], sums[group]);
+		}
+	}
+
+	/**
+	 * Sums with compensation (Kahan) in the same steps as DoubleSummaryStatistics, so the sums are the same as of
+	 * summarizingDouble and not only close to them.
+	 */
+	static final class DoubleGroups {
+		final long[] counts;
+		private final double[] sums;
+		private final double[] compensations;
+		private final double[] simpleSums;
+		private final double[] mins;
+		private final double[] maxes;
+
+		DoubleGroups(int groups) {
+			counts = new long[groups];
+			sums = new double[groups];
+			compensations = new double[groups];
+			simpleSums = new double[groups];
+			mins = new double[groups];
+			maxes = new double[groups];
+			Arrays.fill(mins, Double.POSITIVE_INFINITY);
+			Arrays.fill(maxes, Double.NEGATIVE_INFINITY);
+		}
+
+		void addAll(double[] values, int[] rows, int size) {
+			double sum = sums[0];
+			double compensation = compensations[0];
+			double simpleSum = simpleSums[0];
+			double min = mins[0];
+			double max = maxes[0];
+			for (int i = 0; i < size; i++) {
+				double value = values[rows[i]];
+				simpleSum += value;
+				double corrected = value - compensation;
+				double next = sum + corrected;
+				compensation = (next - sum) - corrected;
+				sum = next;
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+			}
+			counts[0] += size;
+			sums[0] = sum;
+			compensations[0] = compensation;
+			simpleSums[0] = simpleSum;
+			mins[0] = min;
+			maxes[0] = max;
+		}
+
+		void add(GroupKeys<?> groups, double[] values, int[] rows, int size) {
+			int[] keys = groups.keys;
+			int offset = groups.offset;
+			for (int i = 0; i < size; i++) {
+				int row = rows[i];
+				int group = keys[row] - offset;
+				double value = values[row];
+				counts[group]++;
+				simpleSums[group] += value;
+				sumWithCompensation(group, value);
+				mins[group] = Math.min(mins[group], value);
+				maxes[group] = Math.max(maxes[group], value);
+			}
+		}
+
+		DoubleGroups combine(DoubleGroups other) {
+			for (int group = 0; group < counts.length; group++) {
+				counts[group] += other.counts[group];
+				simpleSums[group] += other.simpleSums[group];
+				sumWithCompensation(group, other.sums[group]);
+				sumWithCompensation(group, -other.compensations[group]);
+				mins[group] = Math.min(mins[group], other.mins[group]);
+				maxes[group] = Math.max(maxes[group], other.maxes[group]);
+			}
+			return this;
+		}
+
+		private void sumWithCompensation(int group, double value) {
+			double corrected = value - compensations[group];
+			double sum = sums[group] + corrected;
+			compensations[group] = (sum - sums[group]) - corrected;
+			sums[group] = sum;
+		}
+
+		DoubleSummaryStatistics statistics(int group) {
+			double sum = sums[group] - compensations[group];
+			if (Double.isNaN(sum) && Double.isInfinite(simpleSums[group])) {
+				// the compensation of same-signed infinities is NaN
+				sum = simpleSums[group];
+			}
+			double min = mins[group];
+			double max = maxes[group];
+			if (Double.isNaN(sum) && !Double.isNaN(min)) {
+				// both infinities were added, the constructor rejects a NaN sum with other min and max
+				DoubleSummaryStatistics statistics = new DoubleSummaryStatistics(counts[group] - 2, min, max, 0);
+				statistics.accept(min);
+				statistics.accept(max);
+				return statistics;
+			}
+			return new DoubleSummaryStatistics(counts[group], min, max, sum);
+		}
+	}
+}
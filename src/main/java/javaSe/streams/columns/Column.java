@@ -0,0 +1,23 @@
+package javaSe.streams.columns;
+
+/**
+ * One field of all rows of a {@link ColumnTable}, stored in a primitive array indexed by row.
+ */
+public abstract class Column {
+	private final String name;
+
+	Column(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public abstract int size();
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "{" + name + ", size=" + size() + "}";
+	}
+}
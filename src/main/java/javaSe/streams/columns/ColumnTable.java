@@ -0,0 +1,254 @@
+package javaSe.streams.columns;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Records stored as columns: every field of all rows in one primitive array (struct of arrays).
+ *
+ * A List&lt;Person&gt; with an Integer age keeps an object header, a reference and a boxed value per field,
+ * scattered over the heap, and filtering by age reads all of them. Here the ages of all persons are one int[],
+ * so a query reads only the columns it uses, sequentially. Strings are dictionary encoded (see {@link StringColumn}).
+ * <pre>
+ * ColumnTable persons = ColumnTable.&lt;Person&gt;builder()
+ *         .strings("name", p -&gt; p.name)
+ *         .ints("age", p -&gt; p.age)
+ *         .addAll(list)
+ *         .build();
+ * IntColumn age = persons.intColumn("age");
+ * Map&lt;Integer, Long&gt; adultsByAge = persons.query().where(age.atLeast(18)).groupBy(age).count();
+ * </pre>
+ * A table is immutable, so any number of queries may run on it at once.
+ */
+public final class ColumnTable {
+	private final int size;
+	private final Map<String, Column> columns;
+
+	private ColumnTable(int size, Map<String, Column> columns) {
+		this.size = size;
+		this.columns = columns;
+	}
+
+	public static <T> Builder<T> builder() {
+		return new Builder<>(1024);
+	}
+
+	public static <T> Builder<T> builder(int expectedRows) {
+		return new Builder<>(Math.max(16, expectedRows));
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public List<Column> getColumns() {
+		return Collections.unmodifiableList(new ArrayList<>(columns.values()));
+	}
+
+	public IntColumn intColumn(String name) {
+		return column(name, IntColumn.class);
+	}
+
+	public DoubleColumn doubleColumn(String name) {
+		return column(name, DoubleColumn.class);
+	}
+
+	public StringColumn stringColumn(String name) {
+		return column(name, StringColumn.class);
+	}
+
+	public Query query() {
+		return new Query(this);
+	}
+
+	boolean owns(Column column) {
+		return columns.get(column.getName()) == column;
+	}
+
+	private <C extends Column> C column(String name, Class<C> type) {
+		Column column = columns.get(name);
+		if (!type.isInstance(column)) {
+			throw new IllegalArgumentException("No " + type.getSimpleName() + " " + name + " in " + columns.keySet());
+		}
+		return type.cast(column);
+	}
+
+	@Override
+	public String toString() {
+		return "ColumnTable{size=" + size + ", columns=" + columns.keySet() + "}";
+	}
+
+	/**
+	 * Columns are declared first, then rows are added. Every added object is split into the columns at once,
+	 * so the objects themselves need not be kept.
+	 */
+	public static final class Builder<T> {
+		private final Map<String, ColumnBuilder<T>> columns = new LinkedHashMap<>();
+		private int capacity;
+		private int size;
+
+		private Builder(int capacity) {
+			this.capacity = capacity;
+		}
+
+		public Builder<T> ints(String name, ToIntFunction<? super T> field) {
+			return declare(new IntColumnBuilder<>(name, field, capacity));
+		}
+
+		public Builder<T> doubles(String name, ToDoubleFunction<? super T> field) {
+			return declare(new DoubleColumnBuilder<>(name, field, capacity));
+		}
+
+		public Builder<T> strings(String name, Function<? super T, String> field) {
+			return declare(new StringColumnBuilder<>(name, field, capacity));
+		}
+
+		public Builder<T> add(T row) {
+			if (size == capacity) {
+				capacity = capacity + (capacity >> 1);
+				for (ColumnBuilder<T> column : columns.values()) {
+					column.grow(capacity);
+				}
+			}
+			for (ColumnBuilder<T> column : columns.values()) {
+				column.add(row, size);
+			}
+			size++;
+			return this;
+		}
+
+		public Builder<T> addAll(Iterable<? extends T> rows) {
+			for (T row : rows) {
+				add(row);
+			}
+			return this;
+		}
+
+		public ColumnTable build() {
+			Map<String, Column> built = new LinkedHashMap<>();
+			for (ColumnBuilder<T> column : columns.values()) {
+				built.put(column.name, column.build(size));
+			}
+			return new ColumnTable(size, built);
+		}
+
+		private Builder<T> declare(ColumnBuilder<T> column) {
+			if (size > 0) {
+				throw new IllegalStateException("Columns must be declared before rows are added");
+			}
+			if (columns.putIfAbsent(column.name, column) != null) {
+				throw new IllegalArgumentException("Duplicate column " + column.name);
+			}
+			return this;
+		}
+	}
+
+	private abstract static class ColumnBuilder<T> {
+		final String name;
+
+		ColumnBuilder(String name) {
+			this.name = name;
+		}
+
+		abstract void add(T row, int index);
+
+		abstract void grow(int capacity);
+
+		abstract Column build(int size);
+	}
+
+	private static final class IntColumnBuilder<T> extends ColumnBuilder<T> {
+		private final ToIntFunction<? super T> field;
+		private int[] values;
+
+		IntColumnBuilder(String name, ToIntFunction<? super T> field, int capacity) {
+			super(name);
+			this.field = field;
+			values = new int[capacity];
+		}
+
+		@Override
+		void add(T row, int index) {
+			values[index] = field.applyAsInt(row);
+		}
+
+		@Override
+		void grow(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+
+		@Override
+		Column build(int size) {
+			return new IntColumn(name, Arrays.copyOf(values, size));
+		}
+	}
+
+	private static final class DoubleColumnBuilder<T> extends ColumnBuilder<T> {
+		private final ToDoubleFunction<? super T> field;
+		private double[] values;
+
+		DoubleColumnBuilder(String name, ToDoubleFunction<? super T> field, int capacity) {
+			super(name);
+			this.field = field;
+			values = new double[capacity];
+		}
+
+		@Override
+		void add(T row, int index) {
+			values[index] = field.applyAsDouble(row);
+		}
+
+		@Override
+		void grow(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+
+		@Override
+		Column build(int size) {
+			return new DoubleColumn(name, Arrays.copyOf(values, size));
+		}
+	}
+
+	private static final class StringColumnBuilder<T> extends ColumnBuilder<T> {
+		private final Function<? super T, String> field;
+		private final Map<String, Integer> index = new HashMap<>();
+		private final List<String> dictionary = new ArrayList<>();
+		private int[] codes;
+
+		StringColumnBuilder(String name, Function<? super T, String> field, int capacity) {
+			super(name);
+			this.field = field;
+			codes = new int[capacity];
+		}
+
+		@Override
+		void add(T row, int index) {
+			String value = field.apply(row);
+			Integer code = this.index.get(value);
+			if (code == null) {
+				code = dictionary.size();
+				this.index.put(value, code);
+				dictionary.add(value);
+			}
+			codes[index] = code;
+		}
+
+		@Override
+		void grow(int capacity) {
+			codes = Arrays.copyOf(codes, capacity);
+		}
+
+		@Override
+		Column build(int size) {
+			return new StringColumn(name, Arrays.copyOf(codes, size), dictionary.toArray(new String[0]), new HashMap<>(index));
+		}
+	}
+}
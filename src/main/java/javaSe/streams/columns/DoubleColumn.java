@@ -0,0 +1,34 @@
+package javaSe.streams.columns;
+
+public final class DoubleColumn extends Column {
+	final double[] values;
+
+	DoubleColumn(String name, double[] values) {
+		super(name);
+		this.values = values;
+	}
+
+	@Override
+	public int size() {
+		return values.length;
+	}
+
+	public double get(int row) {
+		return values[row];
+	}
+
+	/**
+	 * @return filter of values within [from, to]
+	 */
+	public RowFilter between(double from, double to) {
+		return from > to ? Filters.NONE : new Filters.DoubleBetween(values, from, to);
+	}
+
+	public RowFilter atLeast(double value) {
+		return between(value, Double.POSITIVE_INFINITY);
+	}
+
+	public RowFilter lessThan(double value) {
+		return between(Double.NEGATIVE_INFINITY, Math.nextDown(value));
+	}
+}
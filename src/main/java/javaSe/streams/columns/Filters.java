@@ -0,0 +1,140 @@
+package javaSe.streams.columns;
+
+/**
+ * Filters of the columns. Loops have no branch on the value: every row is written into the selection
+ * and the count grows only when it passes, so random data costs no mispredicted jumps.
+ */
+final class Filters {
+	static final RowFilter NONE = new RowFilter() {
+		@Override
+		public int select(int from, int to, int[] rows) {
+			return 0;
+		}
+
+		@Override
+		public int refine(int[] rows, int count) {
+			return 0;
+		}
+	};
+
+	private Filters() {
+	}
+
+	/**
+	 * Values within [min, max], also dictionary codes of one string.
+	 */
+	static final class IntBetween implements RowFilter {
+		private final int[] values;
+		private final int min;
+		private final int max;
+
+		IntBetween(int[] values, int min, int max) {
+			this.values = values;
+			this.min = min;
+			this.max = max;
+		}
+
+		@Override
+		public int select(int from, int to, int[] rows) {
+			int[] values = this.values;
+			int count = 0;
+			for (int row = from; row < to; row++) {
+				int value = values[row];
+				rows[count] = row;
+				count += value >= min & value <= max ? 1 : 0;
+			}
+			return count;
+		}
+
+		@Override
+		public int refine(int[] rows, int count) {
+			int[] values = this.values;
+			int kept = 0;
+			for (int i = 0; i < count; i++) {
+				int row = rows[i];
+				int value = values[row];
+				rows[kept] = row;
+				kept += value >= min & value <= max ? 1 : 0;
+			}
+			return kept;
+		}
+	}
+
+	/**
+	 * Values within [min, max], NaN never passes.
+	 */
+	static final class DoubleBetween implements RowFilter {
+		private final double[] values;
+		private final double min;
+		private final double max;
+
+		DoubleBetween(double[] values, double min, double max) {
+			this.values = values;
+			this.min = min;
+			this.max = max;
+		}
+
+		@Override
+		public int select(int from, int to, int[] rows) {
+			double[] values = this.values;
+			int count = 0;
+			for (int row = from; row < to; row++) {
+				double value = values[row];
+				rows[count] = row;
+				count += value >= min & value <= max ? 1 : 0;
+			}
+			return count;
+		}
+
+		@Override
+		public int refine(int[] rows, int count) {
+			double[] values = this.values;
+			int kept = 0;
+			for (int i = 0; i < count; i++) {
+				int row = rows[i];
+				double value = values[row];
+				rows[kept] = row;
+				kept += value >= min & value <= max ? 1 : 0;
+			}
+			return kept;
+		}
+	}
+
+	/**
+	 * Dictionary codes for which the condition was evaluated once per distinct string.
+	 */
+	static final class AcceptedCodes implements RowFilter {
+		private final int[] codes;
+		private final boolean[] accepted;
+
+		AcceptedCodes(int[] codes, boolean[] accepted) {
+			this.codes = codes;
+			this.accepted = accepted;
+		}
+
+		@Override
+		public int select(int from, int to, int[] rows) {
+			int[] codes = this.codes;
+			boolean[] accepted = this.accepted;
+			int count = 0;
+			for (int row = from; row < to; row++) {
+				rows[count] = row;
+				count += accepted[codes[row]] ? 1 : 0;
+			}
+			return count;
+		}
+
+		@Override
+		public int refine(int[] rows, int count) {
+			int[] codes = this.codes;
+			boolean[] accepted = this.accepted;
+			int kept = 0;
+			for (int i = 0; i < count; i++) {
+				int row = rows[i];
+				rows[kept] = row;
+				kept += accepted[codes[row]] ? 1 : 0;
+			}
+			return kept;
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package javaSe.streams.columns;
+
+import java.util.function.IntFunction;
+
+/**
+ * Maps every row to a dense group number, so aggregates are kept in arrays indexed by group instead of a map.
+ * The group of a row is keys[row] - offset.
+ */
+final class GroupKeys<K> {
+	final int[] keys;
+	final int offset;
+	final int groups;
+	private final IntFunction<K> key;
+
+	GroupKeys(int[] keys, int offset, int groups, IntFunction<K> key) {
+		this.keys = keys;
+		this.offset = offset;
+		this.groups = groups;
+		this.key = key;
+	}
+
+	K key(int group) {
+		return key.apply(group);
+	}
+}
@@ -0,0 +1,55 @@
+package javaSe.streams.columns;
+
+import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
+import java.util.IntSummaryStatistics;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Aggregates of a {@link Query} per value of a column. Results are HashMaps with the groups which have
+ * at least one row, like groupingBy of a stream.
+ */
+public final class GroupedQuery<K> {
+	private final Query query;
+	private final GroupKeys<K> keys;
+
+	GroupedQuery(Query query, GroupKeys<K> keys) {
+		this.query = query;
+		this.keys = keys;
+	}
+
+	public Map<K, Long> count() {
+		Aggregates.Counts counts = query.scan(() -> new Aggregates.Counts(keys.groups),
+				(partial, rows, size) -> partial.add(keys, rows, size), Aggregates.Counts::combine);
+		return toMap(counts.counts, group -> counts.counts[group]);
+	}
+
+	public Map<K, IntSummaryStatistics> summarizing(IntColumn column) {
+		int[] values = query.checked(column).values;
+		Aggregates.IntGroups groups = query.scan(() -> new Aggregates.IntGroups(keys.groups),
+				(partial, rows, size) -> partial.add(keys, values, rows, size), Aggregates.IntGroups::combine);
+		return toMap(groups.counts, groups::statistics);
+	}
+
+	public Map<K, DoubleSummaryStatistics> summarizing(DoubleColumn column) {
+		double[] values = query.checked(column).values;
+		Aggregates.DoubleGroups groups = query.scan(() -> new Aggregates.DoubleGroups(keys.groups),
+				(partial, rows, size) -> partial.add(keys, values, rows, size), Aggregates.DoubleGroups::combine);
+		return toMap(groups.counts, groups::statistics);
+	}
+
+	private <V> Map<K, V> toMap(long[] counts, IntFunction<V> value) {
+		int size = 0;
+		for (long count : counts) {
+			size += count > 0 ? 1 : 0;
+		}
+		Map<K, V> result = new HashMap<>(Math.max(16, (int) (size / 0.75f) + 1));
+		for (int group = 0; group < counts.length; group++) {
+			if (counts[group] > 0) {
+				result.put(keys.key(group), value.apply(group));
+			}
+		}
+		return result;
+	}
+}
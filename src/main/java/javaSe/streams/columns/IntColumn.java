@@ -0,0 +1,97 @@
+package javaSe.streams.columns;
+
+import javaSe.map.IntIntMap;
+
+public final class IntColumn extends Column {
+	/**
+	 * Values of a range up to this wide are used as group numbers directly.
+	 */
+	static final int MAX_DENSE_GROUPS = 1 << 16;
+
+	final int[] values;
+	private final int min;
+	private final int max;
+	private volatile GroupKeys<Integer> groupKeys;
+
+	IntColumn(String name, int[] values) {
+		super(name);
+		this.values = values;
+		int min = 0;
+		int max = 0;
+		if (values.length > 0) {
+			min = Integer.MAX_VALUE;
+			max = Integer.MIN_VALUE;
+			for (int value : values) {
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+			}
+		}
+		this.min = min;
+		this.max = max;
+	}
+
+	@Override
+	public int size() {
+		return values.length;
+	}
+
+	public int get(int row) {
+		return values[row];
+	}
+
+	public int getMin() {
+		return min;
+	}
+
+	public int getMax() {
+		return max;
+	}
+
+	/**
+	 * @return filter of values within [from, to]
+	 */
+	public RowFilter between(int from, int to) {
+		return from > to ? Filters.NONE : new Filters.IntBetween(values, from, to);
+	}
+
+	public RowFilter equalTo(int value) {
+		return between(value, value);
+	}
+
+	public RowFilter atLeast(int value) {
+		return between(value, Integer.MAX_VALUE);
+	}
+
+	public RowFilter lessThan(int value) {
+		return value == Integer.MIN_VALUE ? Filters.NONE : between(Integer.MIN_VALUE, value - 1);
+	}
+
+	/**
+	 * Values of a narrow range are their own group numbers. Otherwise distinct values are numbered once,
+	 * in the order of rows, which takes another int per row.
+	 */
+	GroupKeys<Integer> groupKeys() {
+		GroupKeys<Integer> keys = groupKeys;
+		if (keys == null) {
+			if ((long) max - min < MAX_DENSE_GROUPS) {
+				int offset = min;
+				keys = new GroupKeys<>(values, offset, max - min + 1, group -> group + offset);
+			} else {
+				IntIntMap numbers = new IntIntMap(1024, true, -1);
+				int[] groups = new int[values.length];
+				for (int row = 0; row < values.length; row++) {
+					int group = numbers.get(values[row]);
+					if (group < 0) {
+						group = numbers.size();
+						numbers.put(values[row], group);
+					}
+					groups[row] = group;
+				}
+				int[] distinct = numbers.keys().toArray();
+				keys = new GroupKeys<>(groups, 0, distinct.length, group -> distinct[group]);
+			}
+			groupKeys = keys;
+		}
+		return keys;
+	}
+}
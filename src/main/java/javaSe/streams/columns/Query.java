@@ -0,0 +1,164 @@
+package javaSe.streams.columns;
+
+import java.util.DoubleSummaryStatistics;
+import java.util.IntSummaryStatistics;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import javaSe.streams.StreamExecutor;
+
+/**
+ * Filter and aggregation over a {@link ColumnTable}, immutable like a Pipeline, so it can be run many times.
+ *
+ * Rows are processed in chunks of {@link #CHUNK_ROWS}: the filters write the numbers of matching rows of a chunk into
+ * a small selection array, which stays in the L1 cache, and the aggregation loops over it reading only the needed
+ * columns. A parallel query splits the table by chunks, every part aggregates into its own arrays, and the parts
+ * are added up at the end, so the threads share nothing while they run.
+ */
+public final class Query {
+	static final int CHUNK_ROWS = 4096;
+
+	private final ColumnTable table;
+	private final RowFilter filter;
+	private final boolean parallel;
+	private final StreamExecutor executor;
+
+	Query(ColumnTable table) {
+		this(table, null, false, null);
+	}
+
+	private Query(ColumnTable table, RowFilter filter, boolean parallel, StreamExecutor executor) {
+		this.table = table;
+		this.filter = filter;
+		this.parallel = parallel;
+		this.executor = executor;
+	}
+
+	/**
+	 * Rows must pass all given filters.
+	 */
+	public Query where(RowFilter condition) {
+		return new Query(table, filter == null ? condition : filter.and(condition), parallel, executor);
+	}
+
+	/**
+	 * Runs in the common ForkJoinPool.
+	 */
+	public Query parallel() {
+		return new Query(table, filter, true, null);
+	}
+
+	public Query parallel(StreamExecutor executor) {
+		return new Query(table, filter, true, executor);
+	}
+
+	public Query sequential() {
+		return new Query(table, filter, false, null);
+	}
+
+	public long count() {
+		return scan(() -> new long[1], (count, rows, size) -> count[0] += size, (a, b) -> {
+			a[0] += b[0];
+			return a;
+		})[0];
+	}
+
+	/**
+	 * @return numbers of the matching rows, in ascending order
+	 */
+	public int[] rows() {
+		return scan(Aggregates.Rows::new, Aggregates.Rows::add, Aggregates.Rows::addAll).toArray();
+	}
+
+	/**
+	 * The same result as summarizingInt of a stream of the matching rows.
+	 */
+	public IntSummaryStatistics summarizing(IntColumn column) {
+		int[] values = checked(column).values;
+		Aggregates.IntGroups total = scan(() -> new Aggregates.IntGroups(1),
+				(groups, rows, size) -> groups.addAll(values, rows, size), Aggregates.IntGroups::combine);
+		return total.statistics(0);
+	}
+
+	public DoubleSummaryStatistics summarizing(DoubleColumn column) {
+		double[] values = checked(column).values;
+		Aggregates.DoubleGroups total = scan(() -> new Aggregates.DoubleGroups(1),
+				(groups, rows, size) -> groups.addAll(values, rows, size), Aggregates.DoubleGroups::combine);
+		return total.statistics(0);
+	}
+
+	public GroupedQuery<Integer> groupBy(IntColumn column) {
+		return new GroupedQuery<>(this, checked(column).groupKeys());
+	}
+
+	public GroupedQuery<String> groupBy(StringColumn column) {
+		return new GroupedQuery<>(this, checked(column).groupKeys());
+	}
+
+	<C extends Column> C checked(C column) {
+		if (!table.owns(column)) {
+			throw new IllegalArgumentException(column + " is not a column of " + table);
+		}
+		return column;
+	}
+
+	interface ChunkAggregator<P> {
+		void add(P partial, int[] rows, int size);
+	}
+
+	/**
+	 * Passes the matching rows of every chunk to the aggregator.
+	 */
+	<P> P scan(Supplier<P> partial, ChunkAggregator<P> aggregator, BinaryOperator<P> combiner) {
+		int chunks = (table.size() + CHUNK_ROWS - 1) / CHUNK_ROWS;
+		if (!parallel || chunks < 2) {
+			Scan<P> scan = new Scan<>(partial.get(), aggregator);
+			for (int chunk = 0; chunk < chunks; chunk++) {
+				scan.accept(chunk);
+			}
+			return scan.partial;
+		}
+		Supplier<P> pipeline = () -> IntStream.range(0, chunks).parallel()
+				.collect(() -> new Scan<>(partial.get(), aggregator), Scan::accept,
+						(left, right) -> left.partial = combiner.apply(left.partial, right.partial))
+				.partial;
+		return executor == null ? pipeline.get() : executor.execute(pipeline);
+	}
+
+	/**
+	 * Chunks of one thread, with its own selection array.
+	 */
+	private final class Scan<P> {
+		private final int[] rows = new int[CHUNK_ROWS];
+		private final ChunkAggregator<P> aggregator;
+		P partial;
+
+		Scan(P partial, ChunkAggregator<P> aggregator) {
+			this.partial = partial;
+			this.aggregator = aggregator;
+		}
+
+		void accept(int chunk) {
+			int from = chunk * CHUNK_ROWS;
+			int to = Math.min(from + CHUNK_ROWS, table.size());
+			int size;
+			if (filter == null) {
+				for (int row = from; row < to; row++) {
+					rows[row - from] = row;
+				}
+				size = to - from;
+			} else {
+				size = filter.select(from, to, rows);
+			}
+			if (size > 0) {
+				aggregator.add(partial, rows, size);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Query{" + table + (parallel ? ", parallel" : "") + "}";
+	}
+}
@@ -0,0 +1,38 @@
+package javaSe.streams.columns;
+
+/**
+ * Condition on rows, created by columns, e.g. age.atLeast(18).and(name.startsWith("P")).
+ *
+ * A filter works on a chunk of rows at once and writes numbers of the rows which pass into a selection array.
+ * Both methods are one loop over a primitive array without a call per row.
+ */
+public interface RowFilter {
+	/**
+	 * @return number of rows of [from, to) which pass, written in order at the front of rows
+	 */
+	int select(int from, int to, int[] rows);
+
+	/**
+	 * Keeps the selected rows which pass at the front of rows.
+	 *
+	 * @return their number
+	 */
+	int refine(int[] rows, int count);
+
+	default RowFilter and(RowFilter other) {
+		RowFilter first = this;
+		return new RowFilter() {
+			@Override
+			public int select(int from, int to, int[] rows) {
+				int count = first.select(from, to, rows);
+				return count > 0 ? other.refine(rows, count) : 0;
+			}
+
+			@Override
+			public int refine(int[] rows, int count) {
+				count = first.refine(rows, count);
+				return count > 0 ? other.refine(rows, count) : 0;
+			}
+		};
+	}
+}
@@ -0,0 +1,69 @@
+package javaSe.streams.columns;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Dictionary encoded strings: every distinct string is stored once and rows keep its code.
+ *
+ * A condition on strings is evaluated once per distinct string and rows are filtered by their codes,
+ * and the codes are ready group numbers.
+ */
+public final class StringColumn extends Column {
+	final int[] codes;
+	private final String[] dictionary;
+	private final Map<String, Integer> index;
+
+	StringColumn(String name, int[] codes, String[] dictionary, Map<String, Integer> index) {
+		super(name);
+		this.codes = codes;
+		this.dictionary = dictionary;
+		this.index = index;
+	}
+
+	@Override
+	public int size() {
+		return codes.length;
+	}
+
+	public String get(int row) {
+		return dictionary[codes[row]];
+	}
+
+	public int getDistinct() {
+		return dictionary.length;
+	}
+
+	public RowFilter equalTo(String value) {
+		Integer code = index.get(value);
+		return code == null ? Filters.NONE : new Filters.IntBetween(codes, code, code);
+	}
+
+	public RowFilter in(Collection<String> values) {
+		boolean[] accepted = new boolean[dictionary.length];
+		for (String value : values) {
+			Integer code = index.get(value);
+			if (code != null) {
+				accepted[code] = true;
+			}
+		}
+		return new Filters.AcceptedCodes(codes, accepted);
+	}
+
+	public RowFilter startsWith(String prefix) {
+		return matches(value -> value != null && value.startsWith(prefix));
+	}
+
+	public RowFilter matches(Predicate<? super String> condition) {
+		boolean[] accepted = new boolean[dictionary.length];
+		for (int code = 0; code < dictionary.length; code++) {
+			accepted[code] = condition.test(dictionary[code]);
+		}
+		return new Filters.AcceptedCodes(codes, accepted);
+	}
+
+	GroupKeys<String> groupKeys() {
+		return new GroupKeys<>(codes, 0, dictionary.length, code -> dictionary[code]);
+	}
+}
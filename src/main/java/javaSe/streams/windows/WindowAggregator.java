@@ -0,0 +1,217 @@
+package javaSe.streams.windows;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Count, sum, min and max of event values per time window, for streams which never end.
+ *
+ * Collectors.groupingBy and summarizingInt give results only when the stream is finished. Here every event
+ * is added to the partial aggregates of its windows at once, and a window is emitted to the listener as soon as
+ * the watermark passes its end. The watermark is the greatest timestamp seen minus the allowed lateness, so events
+ * may come out of order by up to that time. Events whose windows were already emitted are dropped and counted.
+ *
+ * Open windows are kept sorted in primitive arrays, which grow only to the number of windows open at once,
+ * about (window size + lateness) / slide, so memory does not depend on how long the stream runs.
+ * Not thread safe, one aggregator is fed by one thread.
+ * <pre>
+ * WindowAggregator&lt;Order&gt; perHour = new WindowAggregator&lt;&gt;(Windows.hours(zone), Order::getTime, Order::getAmount,
+ *         5, TimeUnit.MINUTES, result -&gt; report(result));
+ * feed.forEach(perHour);
+ * </pre>
+ */
+public class WindowAggregator<E> implements Consumer<E> {
+	private final WindowAssigner assigner;
+	private final boolean merging;
+	private final ToLongFunction<? super E> timestamp;
+	private final ToLongFunction<? super E> value;
+	private final long allowedLateness;
+	private final Consumer<? super WindowResult> listener;
+	private final WindowAssigner.Sink sink = this::add;
+
+	private long[] starts = new long[4];
+	private long[] ends = new long[4];
+	private long[] counts = new long[4];
+	private long[] sums = new long[4];
+	private long[] mins = new long[4];
+	private long[] maxs = new long[4];
+	private int size;
+
+	private long maxTimestamp = Long.MIN_VALUE;
+	private long watermark = Long.MIN_VALUE;
+	private long lateEvents;
+	private long current;
+	private boolean accepted;
+
+	public WindowAggregator(WindowAssigner assigner, ToLongFunction<? super E> timestamp, ToLongFunction<? super E> value,
+	                        long allowedLateness, TimeUnit unit, Consumer<? super WindowResult> listener) {
+		if (allowedLateness < 0) {
+			throw new IllegalArgumentException("allowedLateness must not be negative: " + allowedLateness);
+		}
+		this.assigner = assigner;
+		this.merging = assigner.isMerging();
+		this.timestamp = timestamp;
+		this.value = value;
+		this.allowedLateness = unit.toMillis(allowedLateness);
+		this.listener = listener;
+	}
+
+	@Override
+	public void accept(E event) {
+		accept(timestamp.applyAsLong(event), value.applyAsLong(event));
+	}
+
+	/**
+	 * @return false when the event came too late and was dropped
+	 */
+	public boolean accept(long timestamp, long value) {
+		current = value;
+		accepted = false;
+		assigner.assign(timestamp, sink);
+		if (!accepted) {
+			lateEvents++;
+			return false;
+		}
+		if (timestamp > maxTimestamp) {
+			maxTimestamp = timestamp;
+			advanceTo(timestamp - allowedLateness);
+		}
+		return true;
+	}
+
+	/**
+	 * Emits windows which end at or before the watermark, e.g. from a timer when no events come.
+	 * The watermark never goes back.
+	 */
+	public void advanceTo(long watermark) {
+		if (watermark <= this.watermark) {
+			return;
+		}
+		this.watermark = watermark;
+		int closed = 0;
+		while (closed < size && ends[closed] <= watermark) {
+			listener.accept(new WindowResult(starts[closed], ends[closed], counts[closed], sums[closed], mins[closed], maxs[closed]));
+			closed++;
+		}
+		if (closed > 0) {
+			remove(0, closed);
+		}
+	}
+
+	/**
+	 * Emits all open windows, at the end of the stream. Later events are late.
+	 */
+	public void flush() {
+		advanceTo(Long.MAX_VALUE);
+	}
+
+	public long getWatermark() {
+		return watermark;
+	}
+
+	public long getLateEvents() {
+		return lateEvents;
+	}
+
+	public int getOpenWindows() {
+		return size;
+	}
+
+	int getCapacity() {
+		return starts.length;
+	}
+
+	private void add(long start, long end) {
+		if (end <= watermark) {
+			return;
+		}
+		accepted = true;
+		if (merging) {
+			addToSession(start, end);
+			return;
+		}
+		int position = Arrays.binarySearch(starts, 0, size, start);
+		if (position < 0) {
+			position = -position - 1;
+			insert(position, start, end);
+		}
+		aggregate(position, current);
+	}
+
+	/**
+	 * Sessions do not overlap, so those overlapping the new range are neighbours and are merged into the first one.
+	 */
+	private void addToSession(long start, long end) {
+		int first = 0;
+		while (first < size && ends[first] < start) {
+			first++;
+		}
+		int last = first;
+		while (last < size && starts[last] <= end) {
+			last++;
+		}
+		if (first == last) {
+			insert(first, start, end);
+		} else {
+			starts[first] = Math.min(start, starts[first]);
+			ends[first] = Math.max(end, ends[last - 1]);
+			for (int i = first + 1; i < last; i++) {
+				counts[first] += counts[i];
+				sums[first] += sums[i];
+				mins[first] = Math.min(mins[first], mins[i]);
+				maxs[first] = Math.max(maxs[first], maxs[i]);
+			}
+			remove(first + 1, last);
+		}
+		aggregate(first, current);
+	}
+
+	private void aggregate(int position, long value) {
+		counts[position]++;
+		sums[position] += value;
+		mins[position] = Math.min(mins[position], value);
+		maxs[position] = Math.max(maxs[position], value);
+	}
+
+	private void insert(int position, long start, long end) {
+		if (size == starts.length) {
+			int capacity = size * 2;
+			starts = Arrays.copyOf(starts, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+			counts = Arrays.copyOf(counts, capacity);
+			sums = Arrays.copyOf(sums, capacity);
+			mins = Arrays.copyOf(mins, capacity);
+			maxs = Arrays.copyOf(maxs, capacity);
+		}
+		int moved = size - position;
+		System.arraycopy(starts, position, starts, position + 1, moved);
+		System.arraycopy(ends, position, ends, position + 1, moved);
+		System.arraycopy(counts, position, counts, position + 1, moved);
+		System.arraycopy(sums, position, sums, position + 1, moved);
+		System.arraycopy(mins, position, mins, position + 1, moved);
+		System.arraycopy(maxs, position, maxs, position + 1, moved);
+		starts[position] = start;
+		ends[position] = end;
+		counts[position] = 0;
+		sums[position] = 0;
+		mins[position] = Long.MAX_VALUE;
+		maxs[position] = Long.MIN_VALUE;
+		size++;
+	}
+
+	/**
+	 * Removes windows at positions [from, to).
+	 */
+	private void remove(int from, int to) {
+		int moved = size - to;
+		System.arraycopy(starts, to, starts, from, moved);
+		System.arraycopy(ends, to, ends, from, moved);
+		System.arraycopy(counts, to, counts, from, moved);
+		System.arraycopy(sums, to, sums, from, moved);
+		System.arraycopy(mins, to, mins, from, moved);
+		System.arraycopy(maxs, to, maxs, from, moved);
+		size -= to - from;
+	}
+}
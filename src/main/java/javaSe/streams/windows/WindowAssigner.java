@@ -0,0 +1,25 @@
+package javaSe.streams.windows;
+
+/**
+ * Tells which windows an event belongs to. Windows are half-open ranges of epoch milliseconds [start, end).
+ *
+ * Windows of one assigner which start at the same time end at the same time, and a later start means a later end,
+ * so {@link WindowAggregator} can keep them sorted and close them in order. See {@link Windows} for the assigners.
+ */
+public interface WindowAssigner {
+	interface Sink {
+		void window(long start, long end);
+	}
+
+	/**
+	 * Passes every window containing the timestamp to the sink, without creating objects.
+	 */
+	void assign(long timestamp, Sink sink);
+
+	/**
+	 * @return true for session windows, which grow and merge when their ranges overlap
+	 */
+	default boolean isMerging() {
+		return false;
+	}
+}
@@ -0,0 +1,61 @@
+package javaSe.streams.windows;
+
+/**
+ * Aggregate of the values of one closed window.
+ */
+public final class WindowResult {
+	private final long start;
+	private final long end;
+	private final long count;
+	private final long sum;
+	private final long min;
+	private final long max;
+
+	WindowResult(long start, long end, long count, long sum, long min, long max) {
+		this.start = start;
+		this.end = end;
+		this.count = count;
+		this.sum = sum;
+		this.min = min;
+		this.max = max;
+	}
+
+	/**
+	 * @return epoch milliseconds of the first instant of the window
+	 */
+	public long getStart() {
+		return start;
+	}
+
+	/**
+	 * @return epoch milliseconds of the first instant after the window
+	 */
+	public long getEnd() {
+		return end;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getSum() {
+		return sum;
+	}
+
+	public long getMin() {
+		return min;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getAverage() {
+		return count == 0 ? 0.0d : (double) sum / count;
+	}
+
+	@Override
+	public String toString() {
+		return "[" + start + ", " + end + ") {count=" + count + ", sum=" + sum + ", min=" + min + ", max=" + max + '}';
+	}
+}
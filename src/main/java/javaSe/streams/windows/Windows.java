@@ -0,0 +1,78 @@
+package javaSe.streams.windows;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTimeZone;
+
+import Date.EpochTime;
+
+/**
+ * Window assigners.
+ *
+ * Tumbling and sliding windows have a fixed length and are aligned to the epoch, so in UTC a tumbling window of
+ * one hour is a clock hour. Hours and days of a zone are taken from its calendar instead: a day starts at local
+ * midnight and lasts 23 or 25 hours when daylight saving time changes, like Days and DateTime.withTimeAtStartOfDay.
+ */
+public final class Windows {
+	private Windows() {
+	}
+
+	public static WindowAssigner tumbling(long size, TimeUnit unit) {
+		long millis = positive(unit.toMillis(size), "size");
+		return (timestamp, sink) -> {
+			long start = timestamp - Math.floorMod(timestamp, millis);
+			sink.window(start, start + millis);
+		};
+	}
+
+	/**
+	 * Windows of the given size starting every slide, so an event belongs to size / slide windows.
+	 */
+	public static WindowAssigner sliding(long size, long slide, TimeUnit unit) {
+		long sizeMillis = positive(unit.toMillis(size), "size");
+		long slideMillis = positive(unit.toMillis(slide), "slide");
+		if (slideMillis > sizeMillis) {
+			throw new IllegalArgumentException("slide must not be greater than size");
+		}
+		return (timestamp, sink) -> {
+			for (long start = timestamp - Math.floorMod(timestamp, slideMillis); start > timestamp - sizeMillis; start -= slideMillis) {
+				sink.window(start, start + sizeMillis);
+			}
+		};
+	}
+
+	/**
+	 * Session windows: events closer than the gap belong to one session, which ends a gap after its last event.
+	 */
+	public static WindowAssigner sessions(long gap, TimeUnit unit) {
+		long millis = positive(unit.toMillis(gap), "gap");
+		return new WindowAssigner() {
+			@Override
+			public void assign(long timestamp, Sink sink) {
+				sink.window(timestamp, timestamp + millis);
+			}
+
+			@Override
+			public boolean isMerging() {
+				return true;
+			}
+		};
+	}
+
+	public static WindowAssigner hours(DateTimeZone zone) {
+		EpochTime time = EpochTime.of(zone);
+		return (timestamp, sink) -> sink.window(time.startOfHour(timestamp), time.startOfNextHour(timestamp));
+	}
+
+	public static WindowAssigner days(DateTimeZone zone) {
+		EpochTime time = EpochTime.of(zone);
+		return (timestamp, sink) -> sink.window(time.startOfDay(timestamp), time.startOfNextDay(timestamp));
+	}
+
+	private static long positive(long millis, String name) {
+		if (millis <= 0) {
+			throw new IllegalArgumentException(name + " must be at least one millisecond");
+		}
+		return millis;
+	}
+}
@@ -0,0 +1,190 @@
+package velocity;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.apache.velocity.util.introspection.Info;
+import org.apache.velocity.util.introspection.UberspectImpl;
+import org.apache.velocity.util.introspection.VelPropertyGet;
+
+/**
+ * Uberspector which reads bean properties ($person.name) through generated accessors instead of Method.invoke.
+ *
+ * For every class and property a getter (getname(), getName(), isname() or isName()) is looked up once and turned
+ * into a Function by LambdaMetafactory, so a property read is a plain interface call which the JIT can inline.
+ * Accessors are kept in a {@link ClassValue}, which is stored with the class itself and does not stop it from being
+ * unloaded. Maps, methods with arguments and everything else are left to the default {@link UberspectImpl}.
+ *
+ * Enabled by runtime.introspector.uberspect = velocity.AccessorUberspect, as in {@link TemplateRegistry#classpathEngine()}.
+ */
+public class AccessorUberspect extends UberspectImpl {
+	/**
+	 * Limit of properties remembered per class, names used by templates are few, so it is reached only by accident.
+	 */
+	static final int MAX_PROPERTIES_PER_CLASS = 256;
+
+	private static final Accessor NONE = new Accessor(null, null);
+
+	private static final ClassValue<Map<String, Accessor>> ACCESSORS = new ClassValue<Map<String, Accessor>>() {
+		@Override
+		protected Map<String, Accessor> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	@Override
+	public VelPropertyGet getPropertyGet(Object obj, String identifier, Info info) throws Exception {
+		if (obj != null && !(obj instanceof Map)) {
+			Accessor accessor = accessorFor(obj.getClass(), identifier);
+			if (accessor != null) {
+				return accessor;
+			}
+		}
+		return super.getPropertyGet(obj, identifier, info);
+	}
+
+	/**
+	 * @return accessor of the property or null when the class has no public getter for it,
+	 * or when the class already has MAX_PROPERTIES_PER_CLASS of them and the default introspection is used
+	 */
+	static Accessor accessorFor(Class<?> type, String property) {
+		Map<String, Accessor> accessors = ACCESSORS.get(type);
+		Accessor accessor = accessors.get(property);
+		if (accessor == null) {
+			if (accessors.size() >= MAX_PROPERTIES_PER_CLASS) {
+				return null;
+			}
+			accessor = create(type, property);
+			Accessor existing = accessors.putIfAbsent(property, accessor);
+			accessor = existing != null ? existing : accessor;
+		}
+		return accessor == NONE ? null : accessor;
+	}
+
+	/**
+	 * Resolves the getter in the order of Velocity's UberspectImpl: "get" + property as written, then with the case
+	 * of its first letter flipped, then get(String), then "is" + property in the same two ways. Anything this class
+	 * does not generate an accessor for, e.g. get(String), is left to UberspectImpl, so both pick the same method.
+	 */
+	private static Accessor create(Class<?> type, String property) {
+		if (!Modifier.isPublic(type.getModifiers()) || property.isEmpty()) {
+			return NONE;
+		}
+		Method getter = getter(type, "get", property);
+		if (getter == null) {
+			if (method(type, "get", String.class) != null) {
+				return NONE;
+			}
+			getter = getter(type, "is", property);
+			if (getter != null && getter.getReturnType() != boolean.class) {
+				return NONE;
+			}
+		}
+		if (getter == null || getter.getReturnType() == void.class || Modifier.isStatic(getter.getModifiers())
+				|| !Modifier.isPublic(getter.getDeclaringClass().getModifiers())) {
+			return NONE;
+		}
+		try {
+			return new Accessor(getter.getName(), function(type, getter));
+		} catch (Throwable e) {
+			return NONE;
+		}
+	}
+
+	private static Method getter(Class<?> type, String prefix, String property) {
+		Method method = method(type, prefix + property);
+		if (method == null) {
+			char first = property.charAt(0);
+			char flipped = Character.isLowerCase(first) ? Character.toUpperCase(first) : Character.toLowerCase(first);
+			method = method(type, prefix + flipped + property.substring(1));
+		}
+		return method;
+	}
+
+	private static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+		try {
+			return type.getMethod(name, parameterTypes);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Function<Object, Object> function(Class<?> type, Method getter) throws Throwable {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		MethodHandle handle = lookup.unreflect(getter);
+		if (!isVisible(type)) {
+			// a lambda class defined here could not link against a class from an unrelated class loader
+			MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+			return target -> {
+				try {
+					return generic.invokeExact(target);
+				} catch (RuntimeException | Error e) {
+					throw e;
+				} catch (Throwable e) {
+					throw new IllegalStateException(e);
+				}
+			};
+		}
+		CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+				MethodType.methodType(Function.class),
+				MethodType.methodType(Object.class, Object.class),
+				handle,
+				MethodType.methodType(wrap(getter.getReturnType()), getter.getDeclaringClass()));
+		return (Function<Object, Object>) site.getTarget().invokeExact();
+	}
+
+	private static boolean isVisible(Class<?> type) {
+		try {
+			return Class.forName(type.getName(), false, AccessorUberspect.class.getClassLoader()) == type;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	private static Class<?> wrap(Class<?> type) {
+		return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+	}
+
+	static final class Accessor implements VelPropertyGet {
+		private final String methodName;
+		private final Function<Object, Object> function;
+
+		Accessor(String methodName, Function<Object, Object> function) {
+			this.methodName = methodName;
+			this.function = function;
+		}
+
+		/**
+		 * @throws InvocationTargetException wrapping what the getter threw, as Method.invoke in UberspectImpl does,
+		 *                                   so Velocity reports it as a MethodInvocationException
+		 */
+		@Override
+		public Object invoke(Object o) throws InvocationTargetException {
+			try {
+				return function.apply(o);
+			} catch (Throwable e) {
+				throw new InvocationTargetException(e);
+			}
+		}
+
+		@Override
+		public boolean isCacheable() {
+			return true;
+		}
+
+		@Override
+		public String getMethodName() {
+			return methodName;
+		}
+	}
+}
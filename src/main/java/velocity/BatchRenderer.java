@@ -0,0 +1,201 @@
+package velocity;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.context.Context;
+
+/**
+ * Merges one template with many items in parallel.
+ *
+ * Every item is a small map which is chained on top of a shared base context (e.g. {@link ContextChainer#getContext()}),
+ * so the common layers are built once. Values put by the template go to the item map, the base is only read
+ * and must not be changed while a batch runs. Items are taken from the stream by the calling thread,
+ * which blocks when maxInFlight items are being rendered, so a huge stream is never pulled into memory.
+ */
+public class BatchRenderer {
+	public static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+
+	private final Template template;
+	private final Context base;
+	private final Executor executor;
+	private final int maxInFlight;
+
+	public BatchRenderer(Template template, Context base) {
+		this(template, base, ForkJoinPool.commonPool(), DEFAULT_MAX_IN_FLIGHT);
+	}
+
+	/**
+	 * @param executor    runs the merges, e.g. a ForkJoinPool or an executor with a thread per task
+	 * @param maxInFlight items taken from the stream and not finished yet (in ordered mode: not consumed yet)
+	 */
+	public BatchRenderer(Template template, Context base, Executor executor, int maxInFlight) {
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("maxInFlight must be positive");
+		}
+		this.template = template;
+		this.base = base;
+		this.executor = executor;
+		this.maxInFlight = maxInFlight;
+	}
+
+	public interface ResultConsumer {
+		/**
+		 * Called by one thread at a time.
+		 *
+		 * @param index position of the item in the stream
+		 */
+		void accept(long index, Map<String, Object> item, String output);
+	}
+
+	/**
+	 * Renders every item into its own writer, which is closed after the merge.
+	 *
+	 * @return number of rendered items
+	 */
+	public long render(Stream<? extends Map<String, Object>> items,
+			Function<? super Map<String, Object>, ? extends Writer> sinks) {
+		return run(items, (index, item) -> {
+			try (Writer writer = sinks.apply(item)) {
+				template.merge(context(item), writer);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return 1;
+		});
+	}
+
+	/**
+	 * Renders every item into a String and passes it to the consumer.
+	 *
+	 * @param ordered when true the consumer gets the results in the order of the stream,
+	 *                otherwise as soon as they are rendered
+	 * @return number of rendered items
+	 */
+	public long render(Stream<? extends Map<String, Object>> items, ResultConsumer consumer, boolean ordered) {
+		Map<Long, Rendered> pending = new HashMap<>();
+		long[] nextIndex = {0};
+		return run(items, (index, item) -> {
+			StringWriter writer = new StringWriter();
+			template.merge(context(item), writer);
+			String output = writer.toString();
+			if (!ordered) {
+				synchronized (consumer) {
+					consumer.accept(index, item, output);
+				}
+				return 1;
+			}
+			// results wait until all previous ones are consumed, they keep their permits until then
+			synchronized (pending) {
+				pending.put(index, new Rendered(item, output));
+				int consumed = 0;
+				for (Rendered next; (next = pending.remove(nextIndex[0])) != null; nextIndex[0]++) {
+					consumer.accept(nextIndex[0], next.item, next.output);
+					consumed++;
+				}
+				return consumed;
+			}
+		});
+	}
+
+	private Context context(Map<String, Object> item) {
+		return new VelocityContext(item, base);
+	}
+
+	private interface Task {
+		/**
+		 * @return number of permits to release, ordered mode holds results back by returning 0
+		 */
+		int run(long index, Map<String, Object> item);
+	}
+
+	private long run(Stream<? extends Map<String, Object>> items, Task task) {
+		Semaphore permits = new Semaphore(maxInFlight);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Object lock = new Object();
+		long[] running = {0};
+		long index = 0;
+
+		Iterator<? extends Map<String, Object>> iterator = items.iterator();
+		try {
+			while (iterator.hasNext()) {
+				Map<String, Object> item = iterator.next();
+				permits.acquire();
+				if (failure.get() != null) {
+					break;
+				}
+				long current = index;
+				try {
+					synchronized (lock) {
+						running[0]++;
+					}
+					executor.execute(() -> {
+						try {
+							permits.release(task.run(current, item));
+						} catch (Throwable e) {
+							failure.compareAndSet(null, e);
+							// results held back in ordered mode are never consumed now, the producer must not wait for them
+							permits.release(maxInFlight);
+						} finally {
+							synchronized (lock) {
+								if (--running[0] == 0) {
+									lock.notifyAll();
+								}
+							}
+						}
+					});
+				} catch (RejectedExecutionException e) {
+					// the submitted items still run and must finish before the failure is thrown
+					synchronized (lock) {
+						running[0]--;
+					}
+					failure.compareAndSet(null, e);
+					break;
+				}
+				index++;
+			}
+			synchronized (lock) {
+				while (running[0] > 0) {
+					lock.wait();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while rendering", e);
+		}
+
+		Throwable error = failure.get();
+		if (error instanceof RuntimeException) {
+			throw (RuntimeException) error;
+		} else if (error instanceof Error) {
+			throw (Error) error;
+		} else if (error != null) {
+			throw new IllegalStateException(error);
+		}
+		return index;
+	}
+
+	private static final class Rendered {
+		final Map<String, Object> item;
+		final String output;
+
+		Rendered(Map<String, Object> item, String output) {
+			this.item = item;
+			this.output = output;
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package velocity;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pool of direct buffers of one size.
+ *
+ * Allocating a direct buffer is slow and its memory is freed only by the GC,
+ * so buffers are returned to the pool and reused. At most maxPooled buffers are kept.
+ */
+public class ByteBufferPool {
+	private final int bufferSize;
+	private final BlockingQueue<ByteBuffer> free;
+
+	public ByteBufferPool(int bufferSize, int maxPooled) {
+		this.bufferSize = bufferSize;
+		this.free = new ArrayBlockingQueue<>(maxPooled);
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	public ByteBuffer acquire() {
+		ByteBuffer buffer = free.poll();
+		if (buffer == null) {
+			return ByteBuffer.allocateDirect(bufferSize);
+		}
+		buffer.clear();
+		return buffer;
+	}
+
+	public void release(ByteBuffer buffer) {
+		if (buffer.isDirect() && buffer.capacity() == bufferSize) {
+			free.offer(buffer);
+		}
+	}
+}
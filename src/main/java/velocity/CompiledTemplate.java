@@ -0,0 +1,15 @@
+package velocity;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.apache.velocity.context.Context;
+
+/**
+ * Template rendered by generated Java code, see {@link TemplateCompiler} and {@link CompiledTemplates}.
+ */
+public interface CompiledTemplate {
+	String getName();
+
+	void merge(Context context, Writer writer) throws IOException;
+}
@@ -0,0 +1,77 @@
+package velocity;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.velocity.context.Context;
+
+/**
+ * Finds the class generated by {@link TemplateCompiler} for a template name.
+ * When there is none, the template is loaded from the {@link TemplateRegistry} and interpreted as usual,
+ * so callers do not have to know which templates were precompiled.
+ */
+public class CompiledTemplates {
+	private final TemplateRegistry registry;
+	private final ClassLoader classLoader;
+	private final Map<String, CompiledTemplate> templates = new ConcurrentHashMap<>();
+
+	public CompiledTemplates(TemplateRegistry registry) {
+		this(registry, CompiledTemplates.class.getClassLoader());
+	}
+
+	public CompiledTemplates(TemplateRegistry registry, ClassLoader classLoader) {
+		this.registry = registry;
+		this.classLoader = classLoader;
+	}
+
+	public CompiledTemplate get(String name) {
+		CompiledTemplate template = templates.get(name);
+		if (template == null) {
+			template = templates.computeIfAbsent(name, this::load);
+		}
+		return template;
+	}
+
+	/**
+	 * @return true when the template is rendered by generated code
+	 */
+	public boolean isCompiled(String name) {
+		return !(get(name) instanceof Interpreted);
+	}
+
+	private CompiledTemplate load(String name) {
+		try {
+			Class<?> type = Class.forName(TemplateCompiler.className(name), true, classLoader);
+			return (CompiledTemplate) type.getDeclaredConstructor().newInstance();
+		} catch (ClassNotFoundException e) {
+			return new Interpreted(registry, name);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot create compiled template " + name, e);
+		}
+	}
+
+	/**
+	 * Asks the registry on every merge, so reloads of the template are picked up.
+	 */
+	private static final class Interpreted implements CompiledTemplate {
+		private final TemplateRegistry registry;
+		private final String name;
+
+		Interpreted(TemplateRegistry registry, String name) {
+			this.registry = registry;
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public void merge(Context context, Writer writer) throws IOException {
+			registry.getTemplate(name).merge(context, writer);
+		}
+	}
+}
@@ -6,14 +6,54 @@ import org.apache.velocity.VelocityContext;
 import org.apache.velocity.context.Context;
 
 public class ContextChainer {
-		private VelocityContext context = new VelocityContext();
-		
+		private final FlatContext flatContext;
+		private Context context;
+		private int depth;
+
+		public ContextChainer() {
+			this(false);
+		}
+
+		/**
+		 * @param flattened when true the layers are compiled into one lookup table (see {@link FlatContext})
+		 *                  instead of being wrapped in nested VelocityContexts.
+		 */
+		public ContextChainer(boolean flattened) {
+			flatContext = flattened ? new FlatContext() : null;
+			context = flattened ? flatContext : new VelocityContext();
+		}
+
 		public Context getContext() {
 			return context;
 		}
 
+		/**
+		 * Number of chained layers.
+		 */
+		public int depth() {
+			return depth;
+		}
+
+		/**
+		 * @param map layer on top of the previous ones, a {@link LazyLayer} when its values should be computed on first read
+		 */
 		public ContextChainer chain(Map<String, Object> map) {
-			context = new VelocityContext(map, context); 
+			if (flatContext != null) {
+				flatContext.push(map);
+			} else {
+				context = new VelocityContext(map, context);
+			}
+			depth++;
+			return this;
+		}
+
+		/**
+		 * Nested contexts read the layers directly, so only the flattened mode has to be told about changes.
+		 */
+		public ContextChainer refresh(Map<String, Object> map) {
+			if (flatContext != null) {
+				flatContext.refresh(map);
+			}
 			return this;
 		}
 	}
@@ -0,0 +1,248 @@
+package velocity;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import org.apache.velocity.context.AbstractContext;
+import org.apache.velocity.context.Context;
+
+/**
+ * Immutable context which can be shared by any number of threads.
+ *
+ * {@link #chain(Map)} returns a new snapshot and leaves this one untouched. Values are kept in a persistent
+ * hash trie, so the new snapshot copies only the paths to the changed keys and shares everything else
+ * with its parent. A base (global + tenant) can be built once and extended per request without copying or locking.
+ * Priority rules are the ones of {@link ContextChainer}: the last layer wins and null values are skipped.
+ *
+ * A render gets its own writable context from {@link #newRenderContext()}, values put by the template stay in it.
+ */
+public final class ContextSnapshot {
+	private static final ContextSnapshot EMPTY = new ContextSnapshot(Node.EMPTY, 0, 0);
+
+	private final Node root;
+	private final int size;
+	private final int depth;
+
+	private ContextSnapshot(Node root, int size, int depth) {
+		this.root = root;
+		this.size = size;
+		this.depth = depth;
+	}
+
+	public static ContextSnapshot empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * @return snapshot with the layer on top of this one, this snapshot does not change
+	 */
+	public ContextSnapshot chain(Map<String, ?> layer) {
+		Node node = root;
+		int count = size;
+		boolean[] added = new boolean[1];
+		for (Map.Entry<String, ?> entry : layer.entrySet()) {
+			if (entry.getKey() != null && entry.getValue() != null) {
+				added[0] = false;
+				node = node.put(entry.getKey(), entry.getKey().hashCode(), entry.getValue(), 0, added);
+				if (added[0]) {
+					count++;
+				}
+			}
+		}
+		return new ContextSnapshot(node, count, depth + 1);
+	}
+
+	/**
+	 * @return snapshot with one more value, the same snapshot when the value is null
+	 */
+	public ContextSnapshot with(String key, Object value) {
+		if (value == null) {
+			return this;
+		}
+		boolean[] added = new boolean[1];
+		Node node = root.put(key, key.hashCode(), value, 0, added);
+		return node == root ? this : new ContextSnapshot(node, added[0] ? size + 1 : size, depth);
+	}
+
+	public Object get(String key) {
+		return key == null ? null : root.get(key, key.hashCode(), 0);
+	}
+
+	public boolean containsKey(String key) {
+		return get(key) != null;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Number of chained layers.
+	 */
+	public int depth() {
+		return depth;
+	}
+
+	public void forEach(BiConsumer<String, Object> action) {
+		root.forEach(action);
+	}
+
+	public Context newRenderContext() {
+		return new RenderContext(this);
+	}
+
+	/**
+	 * Node of the trie. Every level uses 5 bits of the hash, the array holds key/value pairs,
+	 * a null key marks a pair whose value is a child node. Below the last level keys with
+	 * the same hash are stored in one node and compared one by one.
+	 */
+	private static final class Node {
+		static final Node EMPTY = new Node(0, new Object[0]);
+
+		final int bitmap;
+		final Object[] array;
+
+		Node(int bitmap, Object[] array) {
+			this.bitmap = bitmap;
+			this.array = array;
+		}
+
+		Object get(String key, int hash, int shift) {
+			if (shift >= 32) {
+				for (int i = 0; i < array.length; i += 2) {
+					if (key.equals(array[i])) {
+						return array[i + 1];
+					}
+				}
+				return null;
+			}
+			int bit = 1 << (hash >>> shift & 31);
+			if ((bitmap & bit) == 0) {
+				return null;
+			}
+			int i = 2 * Integer.bitCount(bitmap & (bit - 1));
+			Object existing = array[i];
+			if (existing == null) {
+				return ((Node) array[i + 1]).get(key, hash, shift + 5);
+			}
+			return key.equals(existing) ? array[i + 1] : null;
+		}
+
+		Node put(String key, int hash, Object value, int shift, boolean[] added) {
+			if (shift >= 32) {
+				for (int i = 0; i < array.length; i += 2) {
+					if (key.equals(array[i])) {
+						return array[i + 1] == value ? this : replace(i + 1, value);
+					}
+				}
+				added[0] = true;
+				return insert(0, array.length, key, value);
+			}
+			int bit = 1 << (hash >>> shift & 31);
+			int i = 2 * Integer.bitCount(bitmap & (bit - 1));
+			if ((bitmap & bit) == 0) {
+				added[0] = true;
+				return insert(bit, i, key, value);
+			}
+			Object existing = array[i];
+			if (existing == null) {
+				Node child = (Node) array[i + 1];
+				Node changed = child.put(key, hash, value, shift + 5, added);
+				return changed == child ? this : replace(i + 1, changed);
+			}
+			if (key.equals(existing)) {
+				return array[i + 1] == value ? this : replace(i + 1, value);
+			}
+			added[0] = true;
+			String other = (String) existing;
+			Node child = pair(other, other.hashCode(), array[i + 1], key, hash, value, shift + 5);
+			Object[] copy = array.clone();
+			copy[i] = null;
+			copy[i + 1] = child;
+			return new Node(bitmap, copy);
+		}
+
+		void forEach(BiConsumer<String, Object> action) {
+			for (int i = 0; i < array.length; i += 2) {
+				if (array[i] == null) {
+					((Node) array[i + 1]).forEach(action);
+				} else {
+					action.accept((String) array[i], array[i + 1]);
+				}
+			}
+		}
+
+		private Node replace(int index, Object value) {
+			Object[] copy = array.clone();
+			copy[index] = value;
+			return new Node(bitmap, copy);
+		}
+
+		private Node insert(int bit, int index, String key, Object value) {
+			Object[] copy = new Object[array.length + 2];
+			System.arraycopy(array, 0, copy, 0, index);
+			copy[index] = key;
+			copy[index + 1] = value;
+			System.arraycopy(array, index, copy, index + 2, array.length - index);
+			return new Node(bitmap | bit, copy);
+		}
+
+		private static Node pair(String key1, int hash1, Object value1, String key2, int hash2, Object value2, int shift) {
+			if (shift >= 32) {
+				return new Node(0, new Object[] {key1, value1, key2, value2});
+			}
+			int index1 = hash1 >>> shift & 31;
+			int index2 = hash2 >>> shift & 31;
+			if (index1 == index2) {
+				return new Node(1 << index1, new Object[] {null, pair(key1, hash1, value1, key2, hash2, value2, shift + 5)});
+			}
+			int bitmap = 1 << index1 | 1 << index2;
+			return index1 < index2
+					? new Node(bitmap, new Object[] {key1, value1, key2, value2})
+					: new Node(bitmap, new Object[] {key2, value2, key1, value1});
+		}
+	}
+
+	/**
+	 * Writable view of a snapshot for one render. Writes go to a private map, the snapshot is only read.
+	 */
+	private static final class RenderContext extends AbstractContext {
+		private final ContextSnapshot snapshot;
+		private final Map<String, Object> local = new HashMap<>();
+
+		RenderContext(ContextSnapshot snapshot) {
+			this.snapshot = snapshot;
+		}
+
+		@Override
+		public Object internalGet(String key) {
+			Object value = local.get(key);
+			return value != null ? value : snapshot.get(key);
+		}
+
+		@Override
+		public Object internalPut(String key, Object value) {
+			return local.put(key, value);
+		}
+
+		@Override
+		public boolean internalContainsKey(Object key) {
+			return local.containsKey(key) || key instanceof String && snapshot.containsKey((String) key);
+		}
+
+		@Override
+		public Object[] internalGetKeys() {
+			Set<String> keys = new HashSet<>(local.keySet());
+			snapshot.forEach((key, value) -> keys.add(key));
+			return keys.toArray();
+		}
+
+		@Override
+		public Object internalRemove(Object key) {
+			return local.remove(key);
+		}
+	}
+}
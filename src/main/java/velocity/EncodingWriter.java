@@ -0,0 +1,186 @@
+package velocity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Writer which encodes characters as they come and passes the bytes to an OutputStream,
+ * a WritableByteChannel or straight into a ByteBuffer.
+ *
+ * Characters are never collected into a String. The encoder and both buffers are reused
+ * between renders, so a writer is meant to be kept per thread and {@link #reset} before each render.
+ */
+public class EncodingWriter extends Writer {
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private final CharsetEncoder encoder;
+	private final CharBuffer chars;
+	private final ByteBuffer staging;
+
+	private ByteBuffer bytes;
+	private OutputStream out;
+	private WritableByteChannel channel;
+	private long written;
+	private int targetStart;
+
+	public EncodingWriter(Charset charset) {
+		this(charset, DEFAULT_BUFFER_SIZE);
+	}
+
+	public EncodingWriter(Charset charset, int bufferSize) {
+		this.encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		this.chars = CharBuffer.allocate(bufferSize);
+		this.staging = ByteBuffer.allocate((int) Math.ceil(bufferSize * encoder.maxBytesPerChar()));
+	}
+
+	public EncodingWriter reset(OutputStream out) {
+		reset(staging);
+		this.out = out;
+		return this;
+	}
+
+	public EncodingWriter reset(WritableByteChannel channel) {
+		reset(staging);
+		this.channel = channel;
+		return this;
+	}
+
+	/**
+	 * Bytes are encoded straight into the target. {@link BufferOverflowException} is thrown when it is full.
+	 */
+	public EncodingWriter reset(ByteBuffer target) {
+		encoder.reset();
+		chars.clear();
+		staging.clear();
+		bytes = target;
+		targetStart = target.position();
+		out = null;
+		channel = null;
+		written = 0;
+		return this;
+	}
+
+	/**
+	 * Number of bytes passed to the target since the last reset.
+	 */
+	public long getBytesWritten() {
+		if (bytes != staging) {
+			return bytes.position() - targetStart;
+		}
+		return written;
+	}
+
+	@Override
+	public void write(int c) throws IOException {
+		if (!chars.hasRemaining()) {
+			encode(false);
+		}
+		chars.put((char) c);
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		while (len > 0) {
+			if (!chars.hasRemaining()) {
+				encode(false);
+			}
+			int n = Math.min(len, chars.remaining());
+			chars.put(cbuf, off, n);
+			off += n;
+			len -= n;
+		}
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		while (len > 0) {
+			if (!chars.hasRemaining()) {
+				encode(false);
+			}
+			int n = Math.min(len, chars.remaining());
+			str.getChars(off, off + n, chars.array(), chars.arrayOffset() + chars.position());
+			chars.position(chars.position() + n);
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Passes encoded bytes to the target. Characters of an incomplete surrogate pair wait for the next write.
+	 */
+	@Override
+	public void flush() throws IOException {
+		encode(false);
+		drain();
+		if (out != null) {
+			out.flush();
+		}
+	}
+
+	/**
+	 * Ends the render: encodes the remaining characters and passes all bytes to the target.
+	 * The target itself is neither flushed nor closed.
+	 */
+	public void finish() throws IOException {
+		encode(true);
+		while (encoder.flush(bytes).isOverflow()) {
+			overflow();
+		}
+		drain();
+	}
+
+	/**
+	 * Finishes the render. The target belongs to the caller, so it is not closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		finish();
+	}
+
+	private void encode(boolean endOfInput) throws IOException {
+		chars.flip();
+		while (true) {
+			CoderResult result = encoder.encode(chars, bytes, endOfInput);
+			if (result.isOverflow()) {
+				overflow();
+			} else {
+				break;
+			}
+		}
+		chars.compact();
+	}
+
+	private void overflow() throws IOException {
+		if (bytes != staging) {
+			throw new BufferOverflowException();
+		}
+		drain();
+	}
+
+	private void drain() throws IOException {
+		if (bytes != staging) {
+			return;
+		}
+		staging.flip();
+		written += staging.remaining();
+		if (out != null) {
+			out.write(staging.array(), staging.arrayOffset() + staging.position(), staging.remaining());
+		} else {
+			while (staging.hasRemaining()) {
+				channel.write(staging);
+			}
+		}
+		staging.clear();
+	}
+}
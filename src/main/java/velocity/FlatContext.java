@@ -0,0 +1,182 @@
+package velocity;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.velocity.context.AbstractContext;
+
+/**
+ * Context which compiles a stack of layers into one lookup table.
+ *
+ * Rules are the same as for nested {@link org.apache.velocity.VelocityContext} chains:
+ * the last pushed layer wins and a null value is skipped, so the value from a lower layer is used.
+ * The difference is that a lookup is a single hash lookup instead of a walk through every layer.
+ *
+ * Layers are not watched. When a layer map is changed after it has been pushed,
+ * call {@link #refresh(Map)} and only keys of that layer will be resolved again.
+ *
+ * A {@link LazyLayer} is not compiled into the table, because that would compute all its values.
+ * It is asked on every lookup, but only when it lies above the layer the table points to.
+ */
+public class FlatContext extends AbstractContext {
+	private final List<Map<String, Object>> layers = new ArrayList<>();
+	private final List<Set<String>> layerKeys = new ArrayList<>();
+	private final Map<String, Slot> table = new HashMap<>();
+	private final BitSet lazyLayers = new BitSet();
+
+	public FlatContext() {
+		// the bottom layer keeps values put into an empty context, as VelocityContext does
+		push(new HashMap<String, Object>());
+	}
+
+	public int depth() {
+		return layers.size();
+	}
+
+	public void push(Map<String, Object> layer) {
+		int index = layers.size();
+		layers.add(layer);
+		if (layer instanceof LazyLayer) {
+			lazyLayers.set(index);
+			layerKeys.add(new HashSet<String>());
+			return;
+		}
+		layerKeys.add(keysOf(layer));
+
+		for (Map.Entry<String, Object> entry : layer.entrySet()) {
+			if (entry.getValue() != null) {
+				store(entry.getKey(), entry.getValue(), index);
+			}
+		}
+	}
+
+	/**
+	 * Updates the table after the given layer was modified.
+	 * Keys which were removed from the layer and keys which were added to it are resolved again.
+	 */
+	public void refresh(Map<String, Object> layer) {
+		for (int i = 0; i < layers.size(); i++) {
+			if (layers.get(i) == layer && !lazyLayers.get(i)) {
+				for (String key : layerKeys.get(i)) {
+					resolve(key);
+				}
+				Set<String> keys = keysOf(layer);
+				for (String key : keys) {
+					resolve(key);
+				}
+				layerKeys.set(i, keys);
+			}
+		}
+	}
+
+	@Override
+	public Object internalGet(String key) {
+		Slot slot = table.get(key);
+		int floor = slot == null ? -1 : slot.layer;
+		for (int i = lazyLayers.previousSetBit(layers.size() - 1); i > floor; i = lazyLayers.previousSetBit(i - 1)) {
+			Object value = layers.get(i).get(key);
+			if (value != null) {
+				return value;
+			}
+		}
+		return slot == null ? null : slot.value;
+	}
+
+	@Override
+	public Object internalPut(String key, Object value) {
+		// like VelocityContext, writes go to the top layer
+		int top = layers.size() - 1;
+		Object previous = layers.get(top).put(key, value);
+		if (!lazyLayers.get(top)) {
+			layerKeys.get(top).add(key);
+		}
+		resolve(key);
+		return previous;
+	}
+
+	@Override
+	public boolean internalContainsKey(Object key) {
+		if (table.containsKey(key)) {
+			return true;
+		}
+		// a key mapped only to nulls is not in the table, but it is still contained by a layer
+		for (Map<String, Object> layer : layers) {
+			if (layer.containsKey(key)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public Object[] internalGetKeys() {
+		if (lazyLayers.isEmpty()) {
+			return table.keySet().toArray();
+		}
+		Set<String> keys = new HashSet<>(table.keySet());
+		for (int i = lazyLayers.nextSetBit(0); i >= 0; i = lazyLayers.nextSetBit(i + 1)) {
+			keys.addAll(layers.get(i).keySet());
+		}
+		return keys.toArray();
+	}
+
+	@Override
+	public Object internalRemove(Object key) {
+		int top = layers.size() - 1;
+		Object previous = layers.get(top).remove(key);
+		if (key instanceof String) {
+			if (!lazyLayers.get(top)) {
+				layerKeys.get(top).remove(key);
+			}
+			resolve((String) key);
+		}
+		return previous;
+	}
+
+	private void resolve(String key) {
+		for (int i = layers.size() - 1; i >= 0; i--) {
+			if (lazyLayers.get(i)) {
+				continue;
+			}
+			Object value = layers.get(i).get(key);
+			if (value != null) {
+				store(key, value, i);
+				return;
+			}
+		}
+		table.remove(key);
+	}
+
+	private void store(String key, Object value, int layer) {
+		Slot slot = table.get(key);
+		if (slot == null) {
+			table.put(key, new Slot(value, layer));
+		} else {
+			slot.value = value;
+			slot.layer = layer;
+		}
+	}
+
+	/**
+	 * A copy, so keys removed from the layer are still known on refresh. Puts and removes of the context
+	 * update the copy of the top layer in place.
+	 */
+	private static Set<String> keysOf(Map<String, Object> layer) {
+		return new HashSet<>(layer.keySet());
+	}
+
+	private static final class Slot {
+		Object value;
+		int layer;
+
+		Slot(Object value, int layer) {
+			this.value = value;
+			this.layer = layer;
+		}
+	}
+}
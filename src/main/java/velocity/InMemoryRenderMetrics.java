@@ -0,0 +1,118 @@
+package velocity;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javaSe.streams.collectors.Histogram;
+
+/**
+ * Keeps metrics in memory: merge latencies in a log-linear {@link Histogram} per template, everything else in counters.
+ */
+public class InMemoryRenderMetrics implements RenderMetrics {
+	private final LongAdder cacheHits = new LongAdder();
+	private final LongAdder cacheMisses = new LongAdder();
+	private final Map<String, TemplateStats> templates = new ConcurrentHashMap<>();
+
+	@Override
+	public void templateRequested(String name, boolean cached) {
+		(cached ? cacheHits : cacheMisses).increment();
+	}
+
+	@Override
+	public void merged(String name, long nanos, long chars, long bytes, int lookups, int misses, int chainDepth) {
+		TemplateStats stats = templates.get(name);
+		if (stats == null) {
+			stats = templates.computeIfAbsent(name, key -> new TemplateStats());
+		}
+		stats.record(nanos, chars, bytes, lookups, misses, chainDepth);
+	}
+
+	public long getCacheHits() {
+		return cacheHits.sum();
+	}
+
+	public long getCacheMisses() {
+		return cacheMisses.sum();
+	}
+
+	/**
+	 * @return statistics of the template or null when it was not merged yet
+	 */
+	public TemplateStats getStats(String name) {
+		return templates.get(name);
+	}
+
+	public Map<String, TemplateStats> getAllStats() {
+		return Collections.unmodifiableMap(templates);
+	}
+
+	public void reset() {
+		cacheHits.reset();
+		cacheMisses.reset();
+		templates.clear();
+	}
+
+	public static class TemplateStats {
+		private final Histogram latency = new Histogram();
+		private final LongAdder chars = new LongAdder();
+		private final LongAdder bytes = new LongAdder();
+		private final LongAdder lookups = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+		private final LongAccumulator maxChainDepth = new LongAccumulator(Math::max, 0);
+
+		private void record(long nanos, long chars, long bytes, int lookups, int misses, int chainDepth) {
+			synchronized (latency) {
+				latency.accept(nanos);
+			}
+			this.chars.add(chars);
+			this.bytes.add(bytes);
+			this.lookups.add(lookups);
+			this.misses.add(misses);
+			maxChainDepth.accumulate(chainDepth);
+		}
+
+		public long getMerges() {
+			synchronized (latency) {
+				return latency.getCount();
+			}
+		}
+
+		/**
+		 * @return copy of the merge latency histogram, in nanoseconds
+		 */
+		public Histogram getLatency() {
+			synchronized (latency) {
+				return new Histogram().combine(latency);
+			}
+		}
+
+		/**
+		 * @return chars written by merges into a Writer
+		 */
+		public long getWrittenChars() {
+			return chars.sum();
+		}
+
+		/**
+		 * @return bytes written by merges into a stream
+		 */
+		public long getWrittenBytes() {
+			return bytes.sum();
+		}
+
+		public long getLookups() {
+			return lookups.sum();
+		}
+
+		public long getMisses() {
+			return misses.sum();
+		}
+
+		public long getMaxChainDepth() {
+			return maxChainDepth.get();
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package velocity;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Context layer whose values are computed when a template reads them.
+ *
+ * A value is computed on the first {@link #get(Object)} and remembered until {@link #reset()},
+ * so it is computed at most once per render. Keys which were read are reported by {@link #touchedKeys()}.
+ * The layer is passed to {@link ContextChainer#chain(Map)} as any other layer. It is not thread safe.
+ */
+public class LazyLayer extends AbstractMap<String, Object> {
+	private static final Object NULL = new Object();
+
+	private final Function<String, ?> resolver;
+	private final Map<String, ? extends Supplier<?>> suppliers;
+	private final Map<String, Object> values = new HashMap<>();
+	private final Set<String> touched = new LinkedHashSet<>();
+
+	/**
+	 * Layer which asks the resolver for any key. A null result means the layer has no value for the key.
+	 */
+	public LazyLayer(Function<String, ?> resolver) {
+		this.resolver = resolver;
+		this.suppliers = null;
+	}
+
+	/**
+	 * Layer with a known set of keys, each computed by its supplier.
+	 */
+	public LazyLayer(Map<String, ? extends Supplier<?>> suppliers) {
+		this.resolver = null;
+		this.suppliers = suppliers;
+	}
+
+	@Override
+	public Object get(Object key) {
+		if (!(key instanceof String)) {
+			return null;
+		}
+		Object value = values.get(key);
+		if (value == null) {
+			String name = (String) key;
+			touched.add(name);
+			value = compute(name);
+			values.put(name, value == null ? NULL : value);
+			return value;
+		}
+		return value == NULL ? null : value;
+	}
+
+	/**
+	 * Values put by the template (#set) replace the computed ones.
+	 */
+	@Override
+	public Object put(String key, Object value) {
+		Object previous = values.put(key, value == null ? NULL : value);
+		return previous == NULL ? null : previous;
+	}
+
+	@Override
+	public Object remove(Object key) {
+		if (!(key instanceof String)) {
+			return null;
+		}
+		return put((String) key, null);
+	}
+
+	/**
+	 * With suppliers the answer does not compute the value, with a resolver it has to.
+	 */
+	@Override
+	public boolean containsKey(Object key) {
+		return suppliers != null ? suppliers.containsKey(key) : get(key) != null;
+	}
+
+	/**
+	 * Keys with a supplier, or keys resolved so far when the layer uses a resolver.
+	 */
+	@Override
+	public Set<String> keySet() {
+		return Collections.unmodifiableSet(suppliers != null ? suppliers.keySet() : values.keySet());
+	}
+
+	/**
+	 * Entries of {@link #keySet()}. Reading the value of an entry computes it.
+	 */
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		return new AbstractSet<Entry<String, Object>>() {
+			@Override
+			public Iterator<Entry<String, Object>> iterator() {
+				Iterator<String> keys = keySet().iterator();
+				return new Iterator<Entry<String, Object>>() {
+					@Override
+					public boolean hasNext() {
+						return keys.hasNext();
+					}
+
+					@Override
+					public Entry<String, Object> next() {
+						String key = keys.next();
+						return new SimpleImmutableEntry<String, Object>(key, null) {
+							@Override
+							public Object getValue() {
+								return get(key);
+							}
+						};
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return keySet().size();
+			}
+		};
+	}
+
+	/**
+	 * Keys read since the layer was created or reset, in the order of the first read.
+	 */
+	public Set<String> touchedKeys() {
+		return Collections.unmodifiableSet(touched);
+	}
+
+	/**
+	 * Forgets computed values and touched keys, so the layer can serve the next render.
+	 */
+	public void reset() {
+		values.clear();
+		touched.clear();
+	}
+
+	private Object compute(String key) {
+		if (suppliers == null) {
+			return resolver.apply(key);
+		}
+		Supplier<?> supplier = suppliers.get(key);
+		return supplier == null ? null : supplier.get();
+	}
+}
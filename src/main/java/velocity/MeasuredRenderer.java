@@ -0,0 +1,145 @@
+package velocity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.context.AbstractContext;
+import org.apache.velocity.context.Context;
+
+/**
+ * Template.merge which reports latency, output size and context lookups to {@link RenderMetrics}.
+ *
+ * With {@link RenderMetrics#NOOP} the merge is called directly, so disabled metrics cost one comparison.
+ * Otherwise the context and the writer are wrapped by counting decorators for the time of the merge.
+ */
+public class MeasuredRenderer {
+	private final RenderMetrics metrics;
+	private final StreamingRenderer streamingRenderer;
+
+	public MeasuredRenderer(RenderMetrics metrics) {
+		this(metrics, new StreamingRenderer());
+	}
+
+	public MeasuredRenderer(RenderMetrics metrics, StreamingRenderer streamingRenderer) {
+		this.metrics = metrics;
+		this.streamingRenderer = streamingRenderer;
+	}
+
+	public RenderMetrics getMetrics() {
+		return metrics;
+	}
+
+	public void merge(Template template, ContextChainer chainer, Writer writer) {
+		merge(template, chainer.getContext(), chainer.depth(), writer);
+	}
+
+	public void merge(Template template, Context context, Writer writer) {
+		merge(template, context, 0, writer);
+	}
+
+	/**
+	 * @return number of written bytes
+	 */
+	public long merge(Template template, Context context, OutputStream out) throws IOException {
+		if (metrics == RenderMetrics.NOOP) {
+			return streamingRenderer.merge(template, context, out);
+		}
+		CountingContext counting = new CountingContext(context);
+		long start = System.nanoTime();
+		long written = streamingRenderer.merge(template, counting, out);
+		metrics.merged(template.getName(), System.nanoTime() - start, 0, written, counting.lookups, counting.misses, 0);
+		return written;
+	}
+
+	private void merge(Template template, Context context, int chainDepth, Writer writer) {
+		if (metrics == RenderMetrics.NOOP) {
+			template.merge(context, writer);
+			return;
+		}
+		CountingContext counting = new CountingContext(context);
+		CountingWriter countingWriter = new CountingWriter(writer);
+		long start = System.nanoTime();
+		template.merge(counting, countingWriter);
+		metrics.merged(template.getName(), System.nanoTime() - start, countingWriter.written, 0,
+				counting.lookups, counting.misses, chainDepth);
+	}
+
+	private static final class CountingContext extends AbstractContext {
+		private final Context context;
+		int lookups;
+		int misses;
+
+		CountingContext(Context context) {
+			this.context = context;
+		}
+
+		@Override
+		public Object internalGet(String key) {
+			lookups++;
+			Object value = context.get(key);
+			if (value == null) {
+				misses++;
+			}
+			return value;
+		}
+
+		@Override
+		public Object internalPut(String key, Object value) {
+			return context.put(key, value);
+		}
+
+		@Override
+		public boolean internalContainsKey(Object key) {
+			return context.containsKey(key);
+		}
+
+		@Override
+		public Object[] internalGetKeys() {
+			return context.getKeys();
+		}
+
+		@Override
+		public Object internalRemove(Object key) {
+			return context.remove(key);
+		}
+	}
+
+	private static final class CountingWriter extends Writer {
+		private final Writer writer;
+		long written;
+
+		CountingWriter(Writer writer) {
+			this.writer = writer;
+		}
+
+		@Override
+		public void write(int c) throws IOException {
+			writer.write(c);
+			written++;
+		}
+
+		@Override
+		public void write(char[] buffer, int offset, int length) throws IOException {
+			writer.write(buffer, offset, length);
+			written += length;
+		}
+
+		@Override
+		public void write(String text, int offset, int length) throws IOException {
+			writer.write(text, offset, length);
+			written += length;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			writer.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,237 @@
+package velocity;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.context.Context;
+
+/**
+ * Renders templates into a {@link Flow.Publisher} of encoded chunks, for servers which write responses asynchronously.
+ *
+ * Template.merge pushes output into a Writer and cannot be suspended, so every render runs on a thread of its own
+ * executor, by default a virtual thread per render when the runtime has them (Java 21), otherwise a daemon thread
+ * from a cached pool. Chunks are passed to the subscriber only as far as it requested them. When the demand is used up,
+ * the render thread waits in the writer until the subscriber requests more, so a slow client holds back only its own
+ * render. The wait uses a lock and a condition instead of synchronized, which would pin a virtual thread.
+ * Cancelling the subscription stops the merge at the next chunk.
+ *
+ * The context may come later: layers loaded by non-blocking clients are chained in the given order once all of them
+ * are complete, and no thread waits for them. Every subscriber gets its own render of the same template and context.
+ */
+public class ReactiveRenderer {
+	public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+	private final Executor executor;
+	private final Charset charset;
+	private final int chunkChars;
+
+	public ReactiveRenderer() {
+		this(DefaultExecutor.INSTANCE, StandardCharsets.UTF_8, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param chunkSize approximate number of bytes in one published buffer
+	 */
+	public ReactiveRenderer(Executor executor, Charset charset, int chunkSize) {
+		if (chunkSize < 16) {
+			throw new IllegalArgumentException("chunkSize must be at least 16 bytes: " + chunkSize);
+		}
+		this.executor = executor;
+		this.charset = charset;
+		this.chunkChars = Math.max(1, (int) (chunkSize / charset.newEncoder().maxBytesPerChar()));
+	}
+
+	public Flow.Publisher<ByteBuffer> render(Template template, Context context) {
+		return render(template, CompletableFuture.completedFuture(context));
+	}
+
+	public Flow.Publisher<ByteBuffer> render(Template template, CompletionStage<? extends Context> context) {
+		return subscriber -> {
+			RenderSubscription subscription = new RenderSubscription(template, subscriber);
+			subscriber.onSubscribe(subscription);
+			context.whenComplete((resolved, error) -> {
+				try {
+					executor.execute(() -> subscription.render(resolved, error));
+				} catch (RuntimeException e) {
+					subscription.render(null, e);
+				}
+			});
+		};
+	}
+
+	/**
+	 * Renders once all layers are loaded. They are put on top of the chainer in the order of the list,
+	 * so a later layer wins, as with {@link ContextChainer#chain}.
+	 */
+	public Flow.Publisher<ByteBuffer> render(Template template, ContextChainer chainer,
+	                                         List<? extends CompletionStage<? extends Map<String, Object>>> layers) {
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[layers.size()];
+		for (int i = 0; i < futures.length; i++) {
+			futures[i] = layers.get(i).toCompletableFuture();
+		}
+		CompletableFuture<Context> context = CompletableFuture.allOf(futures).thenApply(ignored -> {
+			for (CompletableFuture<?> layer : futures) {
+				@SuppressWarnings("unchecked")
+				Map<String, Object> map = (Map<String, Object>) layer.join();
+				chainer.chain(map);
+			}
+			return chainer.getContext();
+		});
+		return render(template, context);
+	}
+
+	/**
+	 * Subscription and the channel the merge writes into. All signals to the subscriber are sent from the render thread,
+	 * so they never overlap.
+	 */
+	private final class RenderSubscription implements Flow.Subscription, WritableByteChannel {
+		private final Template template;
+		private final Flow.Subscriber<? super ByteBuffer> subscriber;
+		private final ReentrantLock lock = new ReentrantLock();
+		private final Condition demanded = lock.newCondition();
+		private long demand;
+		private boolean cancelled;
+		private IllegalArgumentException invalidRequest;
+
+		RenderSubscription(Template template, Flow.Subscriber<? super ByteBuffer> subscriber) {
+			this.template = template;
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			lock.lock();
+			try {
+				if (n <= 0) {
+					invalidRequest = new IllegalArgumentException("Requested " + n + " chunks, must be positive");
+				} else {
+					demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+				}
+				demanded.signal();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		@Override
+		public void cancel() {
+			lock.lock();
+			try {
+				cancelled = true;
+				demanded.signal();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		void render(Context context, Throwable contextError) {
+			try {
+				if (contextError != null) {
+					throw contextError instanceof CompletionException && contextError.getCause() != null
+							? contextError.getCause() : contextError;
+				}
+				EncodingWriter writer = new EncodingWriter(charset, chunkChars).reset(this);
+				template.merge(context, writer);
+				writer.finish();
+			} catch (Throwable e) {
+				if (!isStopped()) {
+					subscriber.onError(e);
+				}
+				return;
+			}
+			if (!isStopped()) {
+				subscriber.onComplete();
+			}
+		}
+
+		/**
+		 * @return true when no more signals may be sent, an invalid request is reported to the subscriber here
+		 */
+		private boolean isStopped() {
+			IllegalArgumentException invalid;
+			lock.lock();
+			try {
+				if (cancelled) {
+					return true;
+				}
+				invalid = invalidRequest;
+				cancelled = invalid != null;
+			} finally {
+				lock.unlock();
+			}
+			if (invalid != null) {
+				subscriber.onError(invalid);
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public int write(ByteBuffer source) throws IOException {
+			int length = source.remaining();
+			ByteBuffer chunk = ByteBuffer.allocate(length);
+			chunk.put(source).flip();
+			lock.lock();
+			try {
+				while (demand == 0 && !cancelled && invalidRequest == null) {
+					demanded.await();
+				}
+				if (cancelled || invalidRequest != null) {
+					throw new IOException("Render of " + template.getName() + " was cancelled");
+				}
+				demand--;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for demand", e);
+			} finally {
+				lock.unlock();
+			}
+			subscriber.onNext(chunk);
+			return length;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	/**
+	 * Executors.newVirtualThreadPerTaskExecutor() is looked up at runtime, so the code still runs on Java 11.
+	 */
+	private static final class DefaultExecutor {
+		static final Executor INSTANCE = create();
+
+		private static Executor create() {
+			try {
+				return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			} catch (ReflectiveOperationException e) {
+				AtomicInteger counter = new AtomicInteger();
+				return Executors.newCachedThreadPool(task -> {
+					Thread thread = new Thread(task, "reactive-render-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+		}
+	}
+}
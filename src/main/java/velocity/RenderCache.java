@@ -0,0 +1,352 @@
+package velocity;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.context.AbstractContext;
+import org.apache.velocity.context.Context;
+import org.apache.velocity.exception.VelocityException;
+
+import Date.Clock;
+
+/**
+ * Cache of rendered output around Template.merge, keyed by the values of the context keys which the template read.
+ *
+ * A template like ContextPriority.vm reads only $name, so all merges with the same name give the same output,
+ * whatever else is in the context. The first merge runs with a recording context, which notes every key read
+ * and its value, as resolved through all layers of a {@link ContextChainer}. The output is stored under
+ * the template and those values. Later merges read the same keys from their context and, when the values are
+ * equal, write the stored output without merging. A template may read different keys depending on the values,
+ * e.g. in #if branches, so up to {@link #MAX_KEY_SETS_PER_TEMPLATE} sets of keys are tried.
+ *
+ * Values are compared with equals(), so they should be immutable, like strings and numbers. A merge which
+ * leaves a value in the context (#set) is not cached, because a cache hit would not repeat that side effect.
+ *
+ * Memory is bounded by the number of characters of cached output, the least recently used outputs are evicted.
+ * Outputs expire after the time to live. When the registry returns a new instance of a template,
+ * because it was reloaded or invalidated, all outputs of its previous version are dropped.
+ */
+public class RenderCache {
+	public static final long NEVER_EXPIRE = -1;
+	public static final int MAX_KEY_SETS_PER_TEMPLATE = 8;
+
+	private static final Object MISSING = new Object();
+
+	private final TemplateRegistry registry;
+	private final long maxChars;
+	private final long ttlMillis;
+	private final Clock clock;
+	private final Map<String, TemplateState> states = new ConcurrentHashMap<>();
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+	private long chars;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public RenderCache(TemplateRegistry registry, long maxChars, long ttl, TimeUnit unit) {
+		this(registry, maxChars, ttl, unit, Clock.SYSTEM);
+	}
+
+	/**
+	 * @param maxChars characters of output kept in the cache
+	 * @param ttl      how long an output is served, {@link #NEVER_EXPIRE} keeps it until it is evicted
+	 */
+	public RenderCache(TemplateRegistry registry, long maxChars, long ttl, TimeUnit unit, Clock clock) {
+		if (maxChars < 1) {
+			throw new IllegalArgumentException("maxChars must be positive: " + maxChars);
+		}
+		this.registry = registry;
+		this.maxChars = maxChars;
+		this.ttlMillis = ttl < 0 ? NEVER_EXPIRE : unit.toMillis(ttl);
+		this.clock = clock;
+	}
+
+	public void merge(String templateName, ContextChainer chainer, Writer writer) {
+		merge(templateName, chainer.getContext(), writer);
+	}
+
+	public String render(String templateName, Context context) {
+		StringWriter writer = new StringWriter();
+		merge(templateName, context, writer);
+		return writer.toString();
+	}
+
+	public void merge(String templateName, Context context, Writer writer) {
+		Template template = registry.getTemplate(templateName);
+		TemplateState state = stateOf(templateName, template);
+
+		for (String[] keys : state.keySets) {
+			String output = lookup(new Key(state, keys, valuesOf(context, keys)));
+			if (output != null) {
+				hits.increment();
+				write(writer, output, templateName);
+				return;
+			}
+		}
+		misses.increment();
+
+		RecordingContext recording = new RecordingContext(context);
+		StringWriter rendered = new StringWriter();
+		template.merge(recording, rendered);
+		String output = rendered.toString();
+		if (recording.assigned.isEmpty()) {
+			String[] keys = state.register(recording.reads.keySet().toArray(new String[0]));
+			if (keys != null) {
+				store(new Key(state, keys, recording.reads.values().toArray()), output);
+			}
+		}
+		write(writer, output, templateName);
+	}
+
+	public synchronized void invalidate(String templateName) {
+		TemplateState state = states.remove(templateName);
+		if (state != null) {
+			removeAll(state);
+		}
+	}
+
+	public synchronized void invalidateAll() {
+		states.clear();
+		entries.clear();
+		chars = 0;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return characters of cached output
+	 */
+	public synchronized long weight() {
+		return chars;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	private TemplateState stateOf(String templateName, Template template) {
+		TemplateState state = states.get(templateName);
+		if (state != null && state.template == template) {
+			return state;
+		}
+		synchronized (this) {
+			state = states.get(templateName);
+			if (state == null || state.template != template) {
+				if (state != null) {
+					removeAll(state);
+				}
+				state = new TemplateState(templateName, template);
+				states.put(templateName, state);
+			}
+			return state;
+		}
+	}
+
+	private static Object[] valuesOf(Context context, String[] keys) {
+		Object[] values = new Object[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			Object value = context.get(keys[i]);
+			values[i] = value == null ? MISSING : value;
+		}
+		return values;
+	}
+
+	private synchronized String lookup(Key key) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.expiresAt != NEVER_EXPIRE && clock.millis() >= entry.expiresAt) {
+			remove(key);
+			return null;
+		}
+		return entry.output;
+	}
+
+	private synchronized void store(Key key, String output) {
+		if (output.length() > maxChars || states.get(key.state.name) != key.state) {
+			return;
+		}
+		long expiresAt = ttlMillis == NEVER_EXPIRE ? NEVER_EXPIRE : clock.millis() + ttlMillis;
+		Entry previous = entries.put(key, new Entry(output, expiresAt));
+		if (previous != null) {
+			chars -= previous.output.length();
+		}
+		chars += output.length();
+		for (Iterator<Entry> eldest = entries.values().iterator(); chars > maxChars; ) {
+			chars -= eldest.next().output.length();
+			eldest.remove();
+			evictions.increment();
+		}
+	}
+
+	private void remove(Key key) {
+		Entry entry = entries.remove(key);
+		if (entry != null) {
+			chars -= entry.output.length();
+		}
+	}
+
+	private void removeAll(TemplateState state) {
+		List<Key> stale = new ArrayList<>();
+		for (Key key : entries.keySet()) {
+			if (key.state == state) {
+				stale.add(key);
+			}
+		}
+		for (Key key : stale) {
+			remove(key);
+		}
+	}
+
+	private static void write(Writer writer, String output, String templateName) {
+		try {
+			writer.write(output);
+		} catch (IOException e) {
+			throw new VelocityException("IO Error rendering template '" + templateName + "'", e);
+		}
+	}
+
+	private static final class TemplateState {
+		final String name;
+		final Template template;
+		final List<String[]> keySets = new CopyOnWriteArrayList<>();
+
+		TemplateState(String name, Template template) {
+			this.name = name;
+			this.template = template;
+		}
+
+		/**
+		 * @return the known array equal to keys, so keys of entries are compared by identity, or null when
+		 * the template already has too many sets of keys
+		 */
+		synchronized String[] register(String[] keys) {
+			for (String[] known : keySets) {
+				if (Arrays.equals(known, keys)) {
+					return known;
+				}
+			}
+			if (keySets.size() >= MAX_KEY_SETS_PER_TEMPLATE) {
+				return null;
+			}
+			keySets.add(keys);
+			return keys;
+		}
+	}
+
+	private static final class Key {
+		final TemplateState state;
+		final String[] keys;
+		final Object[] values;
+		final int hash;
+
+		Key(TemplateState state, String[] keys, Object[] values) {
+			this.state = state;
+			this.keys = keys;
+			this.values = values;
+			this.hash = 31 * System.identityHashCode(keys) + Arrays.hashCode(values);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) o;
+			return state == other.state && keys == other.keys && Arrays.equals(values, other.values);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	private static final class Entry {
+		final String output;
+		final long expiresAt;
+
+		Entry(String output, long expiresAt) {
+			this.output = output;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	/**
+	 * Notes keys read before the template assigned them, and keys the template left assigned.
+	 */
+	private static final class RecordingContext extends AbstractContext {
+		private final Context context;
+		final Map<String, Object> reads = new LinkedHashMap<>();
+		final Set<String> assigned = new HashSet<>();
+		private final Set<String> written = new HashSet<>();
+
+		RecordingContext(Context context) {
+			this.context = context;
+		}
+
+		@Override
+		public Object internalGet(String key) {
+			Object value = context.get(key);
+			record(key, value);
+			return value;
+		}
+
+		private void record(String key, Object value) {
+			if (!written.contains(key) && !reads.containsKey(key)) {
+				reads.put(key, value == null ? MISSING : value);
+			}
+		}
+
+		@Override
+		public Object internalPut(String key, Object value) {
+			written.add(key);
+			assigned.add(key);
+			return context.put(key, value);
+		}
+
+		@Override
+		public boolean internalContainsKey(Object key) {
+			if (key instanceof String) {
+				record((String) key, context.get((String) key));
+			}
+			return context.containsKey(key);
+		}
+
+		@Override
+		public Object[] internalGetKeys() {
+			return context.getKeys();
+		}
+
+		@Override
+		public Object internalRemove(Object key) {
+			assigned.remove(key);
+			return context.remove(key);
+		}
+	}
+}
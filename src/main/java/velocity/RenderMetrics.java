@@ -0,0 +1,33 @@
+package velocity;
+
+/**
+ * Receives measurements of template loading and merging, see {@link MeasuredRenderer} and {@link TemplateRegistry}.
+ *
+ * Implementations are called concurrently by render threads. {@link #NOOP} is recognized by the callers,
+ * which then skip measuring altogether.
+ */
+public interface RenderMetrics {
+	RenderMetrics NOOP = new RenderMetrics() {
+		@Override
+		public void templateRequested(String name, boolean cached) {
+		}
+
+		@Override
+		public void merged(String name, long nanos, long chars, long bytes, int lookups, int misses, int chainDepth) {
+		}
+	};
+
+	/**
+	 * @param cached false when the template had to be loaded and parsed
+	 */
+	void templateRequested(String name, boolean cached);
+
+	/**
+	 * @param chars      chars written to a Writer, 0 for a stream target
+	 * @param bytes      bytes written to a stream, 0 for a Writer whose encoding is not known
+	 * @param lookups    context reads made by the template
+	 * @param misses     reads which found no value in any layer
+	 * @param chainDepth layers of the context, 0 when unknown
+	 */
+	void merged(String name, long nanos, long chars, long bytes, int lookups, int misses, int chainDepth);
+}
@@ -0,0 +1,91 @@
+package velocity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.context.Context;
+
+/**
+ * Merges templates straight into bytes.
+ *
+ * template.merge(context, new StringWriter()).toString() keeps the whole page on the heap twice
+ * (the writer buffer and the String). Here the output is encoded in small chunks by an {@link EncodingWriter},
+ * which is reused by every render made on the same thread.
+ */
+public class StreamingRenderer {
+	private final Charset charset;
+	private final ThreadLocal<EncodingWriter> writers;
+
+	public StreamingRenderer() {
+		this(StandardCharsets.UTF_8);
+	}
+
+	public StreamingRenderer(Charset charset) {
+		this.charset = charset;
+		this.writers = new ThreadLocal<>();
+	}
+
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * @return number of written bytes
+	 */
+	public long merge(Template template, Context context, OutputStream out) throws IOException {
+		EncodingWriter writer = acquire();
+		try {
+			return merge(template, context, writer.reset(out));
+		} finally {
+			writers.set(writer);
+		}
+	}
+
+	/**
+	 * @return number of written bytes
+	 */
+	public long merge(Template template, Context context, WritableByteChannel channel) throws IOException {
+		EncodingWriter writer = acquire();
+		try {
+			return merge(template, context, writer.reset(channel));
+		} finally {
+			writers.set(writer);
+		}
+	}
+
+	/**
+	 * Writes the output into the target starting from its position, e.g. into a buffer taken from a
+	 * {@link ByteBufferPool}. {@link java.nio.BufferOverflowException} is thrown when the output does not fit.
+	 *
+	 * @return number of written bytes
+	 */
+	public long merge(Template template, Context context, ByteBuffer target) throws IOException {
+		EncodingWriter writer = acquire();
+		try {
+			return merge(template, context, writer.reset(target));
+		} finally {
+			writers.set(writer);
+		}
+	}
+
+	private long merge(Template template, Context context, EncodingWriter writer) throws IOException {
+		template.merge(context, writer);
+		writer.finish();
+		return writer.getBytesWritten();
+	}
+
+	private EncodingWriter acquire() {
+		EncodingWriter writer = writers.get();
+		if (writer == null) {
+			// first render on this thread, or a render started inside another one (e.g. from a tool in the context)
+			return new EncodingWriter(charset);
+		}
+		writers.set(null);
+		return writer;
+	}
+}
@@ -0,0 +1,206 @@
+package velocity;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.context.InternalContextAdapterImpl;
+import org.apache.velocity.runtime.RuntimeConstants;
+import org.apache.velocity.runtime.parser.node.ASTComment;
+import org.apache.velocity.runtime.parser.node.ASTReference;
+import org.apache.velocity.runtime.parser.node.ASTText;
+import org.apache.velocity.runtime.parser.node.Node;
+
+/**
+ * Generates Java source of a {@link CompiledTemplate} from a parsed template.
+ *
+ * Text is folded into string constants and every reference becomes one context lookup, so rendering needs
+ * neither the parser nor the introspection. Only templates made of text, comments and plain references
+ * ($name, $!name, ${name}) are compiled. References with properties or methods and directives are left
+ * to the interpreter, {@link #compile(Template)} returns null for such templates.
+ *
+ * What a reference prints when its value is missing, or what precedes its value, is taken from Velocity itself
+ * by rendering the reference node with probe values, so the output is the same as the interpreted one.
+ *
+ * Run as a build step: TemplateCompiler &lt;template root&gt; &lt;output directory&gt;,
+ * every *.vm file under the root is compiled when it can be (see the precompile-templates profile).
+ */
+public class TemplateCompiler {
+	public static final String PACKAGE = "velocity.compiled";
+
+	private static final Object EMPTY = new Object() {
+		@Override
+		public String toString() {
+			return "";
+		}
+	};
+	private static final String PROBE = "\u0000probe\u0000";
+
+	/**
+	 * @return name of the class generated for the template, e.g. velocity.compiled.velocity_HelloWorld_vm
+	 */
+	public static String className(String templateName) {
+		return PACKAGE + '.' + simpleName(templateName);
+	}
+
+	private static String simpleName(String templateName) {
+		StringBuilder name = new StringBuilder();
+		for (char c : templateName.toCharArray()) {
+			name.append(Character.isJavaIdentifierPart(c) ? c : '_');
+		}
+		if (!Character.isJavaIdentifierStart(name.charAt(0))) {
+			name.insert(0, '_');
+		}
+		return name.toString();
+	}
+
+	/**
+	 * @return Java source of the template class or null when the template uses something which is not compiled
+	 */
+	public String compile(Template template) throws IOException {
+		Node root = (Node) template.getData();
+		List<String> constants = new ArrayList<>();
+		StringBuilder body = new StringBuilder();
+		StringBuilder text = new StringBuilder();
+
+		for (int i = 0; i < root.jjtGetNumChildren(); i++) {
+			Node node = root.jjtGetChild(i);
+			if (node instanceof ASTText || node instanceof ASTComment) {
+				text.append(render(node, null));
+			} else if (node instanceof ASTReference && node.jjtGetNumChildren() == 0) {
+				ASTReference reference = (ASTReference) node;
+				String name = reference.getRootString();
+				String missing = render(node, null);
+				String prefix = render(node, EMPTY);
+				if (!render(node, PROBE).equals(prefix + PROBE)) {
+					return null;
+				}
+				text.append(prefix);
+				flush(text, constants, body);
+				int value = constants.size();
+				constants.add(missing);
+				body.append("\t\ttext = text(context.get(").append(literal(name)).append("));\n");
+				body.append("\t\twriter.write(text == null ? C").append(value).append(" : text);\n");
+			} else {
+				return null;
+			}
+		}
+		flush(text, constants, body);
+		return source(template.getName(), constants, body);
+	}
+
+	private static void flush(StringBuilder text, List<String> constants, StringBuilder body) {
+		if (text.length() > 0) {
+			body.append("\t\twriter.write(C").append(constants.size()).append(");\n");
+			constants.add(text.toString());
+			text.setLength(0);
+		}
+	}
+
+	private static String source(String templateName, List<String> constants, StringBuilder body) {
+		StringBuilder source = new StringBuilder();
+		source.append("package ").append(PACKAGE).append(";\n\n");
+		source.append("import java.io.IOException;\n");
+		source.append("import java.io.Writer;\n\n");
+		source.append("import org.apache.velocity.context.Context;\n\n");
+		source.append("/**\n * Generated by velocity.TemplateCompiler from ").append(templateName).append(".\n */\n");
+		source.append("public final class ").append(simpleName(templateName)).append(" implements velocity.CompiledTemplate {\n");
+		for (int i = 0; i < constants.size(); i++) {
+			source.append("\tprivate static final String C").append(i).append(" = ").append(literal(constants.get(i))).append(";\n");
+		}
+		source.append("\n\t@Override\n\tpublic String getName() {\n\t\treturn ").append(literal(templateName)).append(";\n\t}\n\n");
+		source.append("\t@Override\n\tpublic void merge(Context context, Writer writer) throws IOException {\n");
+		source.append("\t\tString text;\n");
+		source.append(body);
+		source.append("\t}\n\n");
+		source.append("\tprivate static String text(Object value) {\n");
+		source.append("\t\treturn value == null ? null : value.toString();\n\t}\n");
+		source.append("}\n");
+		return source.toString();
+	}
+
+	private static String render(Node node, Object value) throws IOException {
+		Map<String, Object> values = new HashMap<>();
+		if (value != null && node instanceof ASTReference) {
+			values.put(((ASTReference) node).getRootString(), value);
+		}
+		StringWriter writer = new StringWriter();
+		node.render(new InternalContextAdapterImpl(new VelocityContext(values)), writer);
+		return writer.toString();
+	}
+
+	private static String literal(String text) {
+		StringBuilder literal = new StringBuilder("\"");
+		for (char c : text.toCharArray()) {
+			switch (c) {
+				case '"':
+					literal.append("\\\"");
+					break;
+				case '\\':
+					literal.append("\\\\");
+					break;
+				case '\n':
+					literal.append("\\n");
+					break;
+				case '\r':
+					literal.append("\\r");
+					break;
+				case '\t':
+					literal.append("\\t");
+					break;
+				default:
+					if (c < 0x20 || c > 0x7E) {
+						literal.append(String.format("\\u%04x", (int) c));
+					} else {
+						literal.append(c);
+					}
+			}
+		}
+		return literal.append('"').toString();
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: TemplateCompiler <template root> <output directory>");
+			System.exit(1);
+		}
+		Path root = Paths.get(args[0]);
+		Path output = Paths.get(args[1]).resolve(PACKAGE.replace('.', File.separatorChar));
+		Files.createDirectories(output);
+
+		VelocityEngine engine = new VelocityEngine();
+		engine.setProperty(RuntimeConstants.FILE_RESOURCE_LOADER_PATH, root.toString());
+		engine.init();
+
+		List<String> names;
+		try (Stream<Path> files = Files.walk(root)) {
+			names = files.filter(file -> file.toString().endsWith(".vm"))
+					.map(file -> root.relativize(file).toString().replace(File.separatorChar, '/'))
+					.sorted()
+					.collect(Collectors.toList());
+		}
+		TemplateCompiler compiler = new TemplateCompiler();
+		for (String name : names) {
+			String source = compiler.compile(engine.getTemplate(name));
+			if (source == null) {
+				System.out.println("Interpreted: " + name);
+			} else {
+				Files.write(output.resolve(simpleName(name) + ".java"), source.getBytes(StandardCharsets.UTF_8));
+				System.out.println("Compiled: " + name + " -> " + className(name));
+			}
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package velocity;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.exception.VelocityException;
+import org.apache.velocity.runtime.RuntimeConstants;
+
+/**
+ * Thread-safe cache of parsed templates on top of one shared {@link VelocityEngine}.
+ *
+ * Creating an engine and parsing a template is expensive, so both are done once:
+ * - lookups of cached templates do not lock,
+ * - when many threads ask for the same missing template, only one of them parses it and the rest wait for it,
+ * - when the cache is full, the least recently used template is evicted,
+ * - optionally the source is checked for modification and the template is reloaded by the first thread
+ *   which notices the change, while other threads keep getting the previous version.
+ */
+public class TemplateRegistry {
+	public static final int DEFAULT_MAX_SIZE = 256;
+	public static final long NEVER_RELOAD = -1;
+
+	private final VelocityEngine engine;
+	private final int maxSize;
+	private final long modificationCheckInterval;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private final AtomicLong accessClock = new AtomicLong();
+	private volatile RenderMetrics metrics = RenderMetrics.NOOP;
+
+	public TemplateRegistry(VelocityEngine engine) {
+		this(engine, DEFAULT_MAX_SIZE, NEVER_RELOAD);
+	}
+
+	/**
+	 * @param engine                    initialized engine used to load templates
+	 * @param maxSize                   maximum number of cached templates
+	 * @param modificationCheckInterval how often (in milliseconds) the source is checked for modification,
+	 *                                  {@link #NEVER_RELOAD} turns the check off
+	 */
+	public TemplateRegistry(VelocityEngine engine, int maxSize, long modificationCheckInterval) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+		}
+		this.engine = engine;
+		this.maxSize = maxSize;
+		this.modificationCheckInterval = modificationCheckInterval;
+	}
+
+	/**
+	 * Registry shared by the whole application, loading templates from the classpath.
+	 */
+	public static TemplateRegistry shared() {
+		return Shared.INSTANCE;
+	}
+
+	/**
+	 * The same engine configuration as used in velocity.BasicUsage, but created once,
+	 * and with bean properties read by {@link AccessorUberspect}.
+	 */
+	public static VelocityEngine classpathEngine() {
+		VelocityEngine ve = new VelocityEngine();
+		ve.setProperty(RuntimeConstants.RESOURCE_LOADER, "class");
+		ve.setProperty("class.resource.loader.class",
+		               "org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader");
+		ve.setProperty(RuntimeConstants.UBERSPECT_CLASSNAME, AccessorUberspect.class.getName());
+		ve.init();
+		return ve;
+	}
+
+	public VelocityEngine getEngine() {
+		return engine;
+	}
+
+	/**
+	 * Cache hits and misses of {@link #getTemplate(String)} are reported to the metrics.
+	 */
+	public void setMetrics(RenderMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	public Template getTemplate(String name) {
+		Entry entry = entries.get(name);
+		boolean cached = true;
+		if (entry == null) {
+			Entry created = new Entry(name);
+			entry = entries.putIfAbsent(name, created);
+			if (entry == null) {
+				entry = created;
+				cached = false;
+				evictIfFull();
+				created.load.run();
+			}
+		}
+		RenderMetrics metrics = this.metrics;
+		if (metrics != RenderMetrics.NOOP) {
+			metrics.templateRequested(name, cached);
+		}
+		entry.lastAccess = accessClock.incrementAndGet();
+
+		Template template = entry.await();
+		if (modificationCheckInterval >= 0) {
+			template = entry.reloadIfModified(template);
+		}
+		return template;
+	}
+
+	public boolean isCached(String name) {
+		return entries.containsKey(name);
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public void invalidate(String name) {
+		entries.remove(name);
+	}
+
+	public void invalidateAll() {
+		entries.clear();
+	}
+
+	private void evictIfFull() {
+		while (entries.size() > maxSize) {
+			Entry eldest = null;
+			for (Entry candidate : entries.values()) {
+				if (eldest == null || candidate.lastAccess < eldest.lastAccess) {
+					eldest = candidate;
+				}
+			}
+			if (eldest == null || !entries.remove(eldest.name, eldest)) {
+				return;
+			}
+		}
+	}
+
+	private Template load(String name) {
+		return engine.getTemplate(name);
+	}
+
+	private final class Entry {
+		final String name;
+		final FutureTask<Template> load;
+		final AtomicLong nextCheck = new AtomicLong();
+		volatile Template reloaded;
+		volatile long lastAccess;
+
+		Entry(String name) {
+			this.name = name;
+			this.load = new FutureTask<>(() -> load(name));
+			this.lastAccess = accessClock.incrementAndGet();
+			this.nextCheck.set(System.currentTimeMillis() + modificationCheckInterval);
+		}
+
+		Template await() {
+			Template current = reloaded;
+			if (current != null) {
+				return current;
+			}
+			try {
+				return load.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new VelocityException("Interrupted while loading template " + name, e);
+			} catch (ExecutionException e) {
+				// a failed load is not cached, the next call tries again
+				entries.remove(name, this);
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				throw new VelocityException("Cannot load template " + name, cause);
+			}
+		}
+
+		Template reloadIfModified(Template current) {
+			long now = System.currentTimeMillis();
+			long check = nextCheck.get();
+			// only one thread checks the source, the others use the current version
+			if (now < check || !nextCheck.compareAndSet(check, now + modificationCheckInterval)) {
+				return current;
+			}
+			if (!current.isSourceModified()) {
+				return current;
+			}
+			Template fresh = load(name);
+			reloaded = fresh;
+			return fresh;
+		}
+	}
+
+	private static class Shared {
+		static final TemplateRegistry INSTANCE = new TemplateRegistry(classpathEngine());
+	}
+}
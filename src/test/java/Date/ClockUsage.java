@@ -0,0 +1,80 @@
+package Date;
+
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeUtils;
+import org.joda.time.DateTimeZone;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ClockUsage {
+	@After
+	public void tearDown() throws Exception {
+		Clock.uninstall();
+	}
+
+	@Test
+	public void cachedClockTicksInTheBackground() throws Exception {
+		ManualClock source = new ManualClock(1000);
+		try (CachedClock clock = new CachedClock(source, 1, TimeUnit.MILLISECONDS)) {
+			assertThat(clock.millis(), is(1000L));
+
+			source.advance(5, TimeUnit.SECONDS);
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (clock.millis() != 6000 && System.nanoTime() < deadline) {
+				Thread.sleep(1);
+			}
+
+			assertThat(clock.millis(), is(6000L));
+		}
+	}
+
+	@Test
+	public void jodaCanReadAnyClock() throws Exception {
+		ManualClock clock = new ManualClock(new DateTime(1986, 3, 6, 12, 0, DateTimeZone.UTC).getMillis());
+		Clock.install(clock);
+
+		assertThat(new DateTime(DateTimeZone.UTC).getYear(), is(1986));
+		clock.advance(10, TimeUnit.MINUTES);
+		assertThat(new DateTime(DateTimeZone.UTC).getMinuteOfHour(), is(10));
+
+		Clock.install(Clock.offset(clock, TimeUnit.DAYS.toMillis(1)));
+		assertThat(new DateTime(DateTimeZone.UTC).getDayOfMonth(), is(7));
+	}
+
+	@Test
+	public void monotonicClockNeverGoesBack() throws Exception {
+		MonotonicClock clock = new MonotonicClock();
+
+		long previousMillis = clock.millis();
+		long previousNanos = clock.nanos();
+		for (int i = 0; i < 100000; i++) {
+			long millis = clock.millis();
+			long nanos = clock.nanos();
+			assertTrue(millis >= previousMillis);
+			assertTrue(nanos - previousNanos >= 0);
+			previousMillis = millis;
+			previousNanos = nanos;
+		}
+	}
+
+	@Test
+	public void clockBasedOnJodaReadsTheSystemTime() throws Exception {
+		long day = TimeUnit.DAYS.toMillis(1);
+		Clock.install(Clock.offset(Clock.JODA, day));
+
+		long before = System.currentTimeMillis();
+		long millis = DateTimeUtils.currentTimeMillis();
+		assertTrue(millis >= before + day && millis <= System.currentTimeMillis() + day);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void jodaClockCannotBeInstalled() throws Exception {
+		Clock.install(Clock.JODA);
+	}
+}
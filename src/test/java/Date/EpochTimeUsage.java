@@ -0,0 +1,106 @@
+package Date;
+
+import java.io.StringWriter;
+
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeUtils;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Days;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class EpochTimeUsage {
+	private static final DateTimeZone WARSAW = DateTimeZone.forID("Europe/Warsaw");
+
+	@Before
+	public void setUp() throws Exception {
+		DateTimeUtils.setCurrentMillisFixed(System.currentTimeMillis());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		DateTimeUtils.setCurrentMillisSystem();
+	}
+
+	@Test
+	public void sameResultsAsDateTime() throws Exception {
+		EpochTime time = EpochTime.of(WARSAW);
+		long now = time.now();
+		DateTime dateTime = new DateTime(WARSAW);
+
+		assertThat(now, is(dateTime.getMillis()));
+		assertThat(time.plusMinutes(now, 10), is(dateTime.plusMinutes(10).getMillis()));
+		assertThat(time.hourOfDay(now), is(dateTime.getHourOfDay()));
+		assertThat(time.dayOfWeek(now), is(dateTime.getDayOfWeek()));
+		assertThat(time.minusMonths(now, 13), is(dateTime.minusMonths(13).getMillis()));
+		assertThat(time.startOfDay(now), is(dateTime.withTimeAtStartOfDay().getMillis()));
+	}
+
+	@Test
+	public void daysBetweenDates() throws Exception {
+		EpochTime time = EpochTime.utc();
+		long jareksBirthday = time.withDate(time.now(), 1986, 3, 6);
+		long ewasBirthday = time.withDate(time.now(), 1989, 9, 14);
+
+		assertThat(time.daysBetween(jareksBirthday, ewasBirthday), is(1288));
+		assertThat(time.daysBetween(ewasBirthday, jareksBirthday), is(-1288));
+	}
+
+	@Test
+	public void calendarDaysKeepTheTimeOverDaylightSavingChange() throws Exception {
+		EpochTime time = EpochTime.of(WARSAW);
+		long beforeChange = new DateTime(2016, 3, 26, 12, 0, WARSAW).getMillis();
+
+		long nextDay = time.plusDays(beforeChange, 1);
+
+		assertThat(time.hourOfDay(nextDay), is(12));
+		assertThat(nextDay - beforeChange, is(23 * 3600 * 1000L));
+		assertThat(Days.daysBetween(new DateTime(beforeChange, WARSAW), new DateTime(nextDay, WARSAW)).getDays(),
+				is(time.daysBetween(beforeChange, nextDay)));
+	}
+
+	@Test
+	public void formattersAreCachedByPatternAndZone() throws Exception {
+		EpochTime time = EpochTime.of(WARSAW);
+		long millis = new DateTime(1989, 9, 14, 8, 30, DateTimeZone.UTC).getMillis();
+
+		assertThat(time.format(millis, "yyyy-MM-dd HH:mm"), is("1989-09-14 10:30"));
+		assertThat(EpochTime.utc().format(millis, "yyyy-MM-dd HH:mm"), is("1989-09-14 08:30"));
+		assertThat(time.parse("1989-09-14 10:30", "yyyy-MM-dd HH:mm"), is(millis));
+		assertThat(FormatterCache.get("yyyy-MM-dd", WARSAW), is(sameInstance(FormatterCache.get("yyyy-MM-dd", WARSAW))));
+
+		StringBuilder builder = new StringBuilder("Date: ");
+		time.formatTo(builder, millis, "dd.MM.yyyy");
+		assertThat(builder.toString(), is("Date: 14.09.1989"));
+	}
+
+	@Test
+	public void clockCanBeReplaced() throws Exception {
+		EpochTime time = EpochTime.utc().withClock(Clock.fixed(0));
+
+		assertThat(time.year(time.now()), is(1970));
+		//the default clock follows DateTimeUtils, as in Date.JodaTime
+		assertThat(EpochTime.utc().now(), is(DateTimeUtils.currentTimeMillis()));
+	}
+
+	@Test
+	public void formattingInTemplates() throws Exception {
+		VelocityEngine engine = new VelocityEngine();
+		engine.init();
+		VelocityContext context = new VelocityContext();
+		context.put("time", EpochTime.utc());
+		context.put("created", new DateTime(1986, 3, 6, 0, 0, DateTimeZone.UTC).getMillis());
+
+		StringWriter writer = new StringWriter();
+		engine.evaluate(context, writer, "test", "Born $time.format($created, 'dd.MM.yyyy')");
+
+		assertThat(writer.toString(), is("Born 06.03.1986"));
+	}
+}
@@ -1,4 +1,173 @@
 package Json;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.velocity.Template;
+import org.junit.Test;
+
+import velocity.ContextChainer;
+import velocity.TemplateRegistry;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
 public class JsonUsage {
+	private static JsonReader reader(String json) {
+		return new JsonReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void tokensArePulledOneByOne() throws Exception {
+		JsonReader reader = reader("{\"name\": \"Ala\", \"age\": 31, \"tags\": [true, null, 2.5]}");
+
+		assertThat(reader.next(), is(JsonToken.BEGIN_OBJECT));
+		assertThat(reader.next(), is(JsonToken.NAME));
+		assertThat(reader.textEquals("name"), is(true));
+		assertThat(reader.next(), is(JsonToken.STRING));
+		assertThat(reader.getString(), is("Ala"));
+		assertThat(reader.next(), is(JsonToken.NAME));
+		assertThat(reader.next(), is(JsonToken.NUMBER));
+		assertThat(reader.isIntegral(), is(true));
+		assertThat(reader.getInt(), is(31));
+		assertThat(reader.next(), is(JsonToken.NAME));
+		assertThat(reader.next(), is(JsonToken.BEGIN_ARRAY));
+		assertThat(reader.next(), is(JsonToken.TRUE));
+		assertThat(reader.next(), is(JsonToken.NULL));
+		assertThat(reader.next(), is(JsonToken.NUMBER));
+		assertThat(reader.getDouble(), is(2.5));
+		assertThat(reader.next(), is(JsonToken.END_ARRAY));
+		assertThat(reader.next(), is(JsonToken.END_OBJECT));
+		assertThat(reader.next(), is(JsonToken.END_DOCUMENT));
+	}
+
+	@Test
+	public void unwantedValuesAreSkipped() throws Exception {
+		JsonReader reader = reader("{\"skip\": {\"a\": [1, {\"b\": 2}]}, \"keep\": -7}");
+
+		reader.next();
+		reader.next();
+		reader.next();
+		reader.skipValue();
+
+		assertThat(reader.next(), is(JsonToken.NAME));
+		assertThat(reader.getString(), is("keep"));
+		assertThat(reader.next(), is(JsonToken.NUMBER));
+		assertThat(reader.getLong(), is(-7L));
+	}
+
+	@Test
+	public void escapesAndUnicodeAreDecoded() throws Exception {
+		JsonReader reader = reader("[\"a\\\"b\\\\c\\n\\u0041\", \"za\u017c\u00f3\u0142\u0107 \ud83d\ude00\"]");
+
+		reader.next();
+		reader.next();
+		assertThat(reader.getString(), is("a\"b\\c\nA"));
+		reader.next();
+		assertThat(reader.getString(), is("za\u017c\u00f3\u0142\u0107 \ud83d\ude00"));
+	}
+
+	@Test
+	public void heapBufferIsReadWithoutCopying() throws Exception {
+		byte[] bytes = "xx{\"id\": 9223372036854775807}".getBytes(StandardCharsets.UTF_8);
+		ByteBuffer source = ByteBuffer.wrap(bytes, 2, bytes.length - 2);
+
+		Map<String, Object> object = JsonBinding.readObject(source);
+
+		assertThat(object.get("id"), is((Object) Long.MAX_VALUE));
+		assertThat(source.position(), is(2));
+	}
+
+	@Test
+	public void directBufferIsReadToo() throws Exception {
+		byte[] bytes = "{\"list\": [1, 2, 3]}".getBytes(StandardCharsets.UTF_8);
+		ByteBuffer source = ByteBuffer.allocateDirect(bytes.length);
+		source.put(bytes).flip();
+
+		assertThat(JsonBinding.readObject(source).get("list"), is((Object) Arrays.asList(1L, 2L, 3L)));
+	}
+
+	@Test
+	public void errorsPointAtTheByte() throws Exception {
+		try {
+			JsonBinding.readObject(new ByteArrayInputStream("{\"a\": 1,}".getBytes(StandardCharsets.UTF_8)));
+		} catch (JsonParseException e) {
+			assertThat(e.getOffset(), is(8L));
+			return;
+		}
+		throw new AssertionError("Trailing comma accepted");
+	}
+
+	@Test
+	public void writerRoundTrip() throws Exception {
+		Map<String, Object> object = new LinkedHashMap<>();
+		object.put("name", "\u0141ucja \"L\"");
+		object.put("age", 31L);
+		object.put("height", 1.68);
+		object.put("pets", Arrays.asList("cat", null, true));
+		object.put("scores", new int[] {1, 2});
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JsonBinding.write(object, out);
+
+		assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8),
+				is("{\"name\":\"\u0141ucja \\\"L\\\"\",\"age\":31,\"height\":1.68,\"pets\":[\"cat\",null,true],\"scores\":[1,2]}"));
+
+		Map<String, Object> read = JsonBinding.readObject(new ByteArrayInputStream(out.toByteArray()));
+		object.put("scores", Arrays.asList(1L, 2L));
+		assertThat(read, is(equalTo(object)));
+	}
+
+	@Test
+	public void bigNumbersAreWrittenExactly() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JsonBinding.write(Arrays.asList(new BigDecimal("1.5"), new BigDecimal("-1E+400"),
+				new BigInteger("123456789012345678901234567890")), out);
+
+		assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is("[1.5,-1E+400,123456789012345678901234567890]"));
+
+		BigInteger huge = BigInteger.TEN.pow(20000);
+		out.reset();
+		JsonBinding.write(Arrays.asList(huge, huge), out);
+		assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is("[" + huge + "," + huge + "]"));
+	}
+
+	@Test
+	public void longDocumentsCrossBufferBoundaries() throws Exception {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			text.append("\u0105b");
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		JsonBinding.write(Arrays.asList(text, text), out);
+
+		@SuppressWarnings("unchecked")
+		List<Object> read = (List<Object>) JsonBinding.readValue(new JsonReader(new ByteArrayInputStream(out.toByteArray())));
+
+		assertThat(read, is(equalTo(Arrays.<Object>asList(text.toString(), text.toString()))));
+	}
+
+	@Test
+	public void boundObjectIsAContextLayer() throws Exception {
+		Template template = TemplateRegistry.shared().getTemplate("velocity/HelloWorld.vm");
+		Map<String, Object> layer = JsonBinding.readObject(
+				new ByteArrayInputStream("{\"name\": \"JSON\"}".getBytes(StandardCharsets.UTF_8)));
+
+		ContextChainer chainer = new ContextChainer();
+		chainer.chain(layer);
+		StringWriter writer = new StringWriter();
+		template.merge(chainer.getContext(), writer);
+
+		assertThat(writer.toString(), is("Hello JSON! Welcome to Velocity!"));
+	}
 }
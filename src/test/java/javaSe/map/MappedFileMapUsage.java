@@ -0,0 +1,159 @@
+package javaSe.map;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class MappedFileMapUsage {
+	private Path file;
+
+	@Before
+	public void setUp() throws Exception {
+		file = Files.createTempFile("map", ".bin");
+		Files.delete(file);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	public void howToStringOnMapWorks() throws Exception {
+		try (MappedFileMap<Double> items = new MappedFileMap<>(file, ValueCodec.DOUBLE, 32, 8)) {
+			items.put("cherry", 2.32);
+			items.put("orange", 4.21);
+			items.put("apple", 0.90);
+
+			//the same buckets as in HashMap, so the same order as in javaSe.map.BasicUsage
+			assertThat(items.toString(), equalTo("{orange=4.21, cherry=2.32, apple=0.9}"));
+		}
+	}
+
+	@Test
+	public void iteratesInTheOrderOfHashMap() throws Exception {
+		try (MappedFileMap<String> map = new MappedFileMap<>(file, ValueCodec.STRING, 8, 8)) {
+			map.put("5", "x");
+			map.put("0", "x");
+
+			assertThat(map.toString(), equalTo(new HashMap<>(map).toString()));
+			assertThat(map.toString(), equalTo("{0=x, 5=x}"));
+		}
+	}
+
+	@Test
+	public void entryShiftedAcrossTheEndIsNotReturnedTwice() throws Exception {
+		try (MappedFileMap<Integer> map = new MappedFileMap<>(file, ValueCodec.INTEGER, 16, 4, 16)) {
+			//keys of the last slot, the second and third wrap to the first slots
+			String last = null;
+			for (int i = 0; map.size() < 3; i++) {
+				int h = ("key" + i).hashCode();
+				if (((h ^ (h >>> 16)) & 15) == 15) {
+					map.put("key" + i, i);
+					last = last == null ? "key" + i : last;
+				}
+			}
+			Map<String, Integer> expected = new HashMap<>(map);
+
+			//removing the entry of the last slot moves the visited one of the first slot there
+			List<String> visited = new ArrayList<>();
+			Iterator<Map.Entry<String, Integer>> iterator = map.entrySet().iterator();
+			while (iterator.hasNext()) {
+				String key = iterator.next().getKey();
+				visited.add(key);
+				if (key.equals(last)) {
+					iterator.remove();
+				}
+			}
+
+			assertThat(new HashSet<>(visited), equalTo(expected.keySet()));
+			assertThat(visited.size(), is(3));
+			assertThat(map.size(), is(2));
+		}
+	}
+
+	@Test
+	public void reopenedMapIsNotRebuilt() throws Exception {
+		try (MappedFileMap<String> map = new MappedFileMap<>(file, ValueCodec.STRING, 16, 32)) {
+			map.put("0", "Ala");
+			map.put("1", "John");
+			map.put("2", "Ela");
+			map.put(null, "nobody");
+			map.put("3", null);
+		}
+
+		//the file is only mapped again
+		try (MappedFileMap<String> map = new MappedFileMap<>(file, ValueCodec.STRING, 16, 32)) {
+			assertThat(map.size(), is(5));
+			assertThat(map.get("1"), is("John"));
+			assertThat(map.get(null), is("nobody"));
+			assertThat(map.containsKey("3"), is(true));
+			assertThat(map.get("3"), is(nullValue()));
+		}
+	}
+
+	@Test
+	public void valuesCanBeReadWithoutCopying() throws Exception {
+		try (MappedFileMap<Long> map = new MappedFileMap<>(file, ValueCodec.LONG, 16, 8)) {
+			map.put("answer", 42L);
+
+			ByteBuffer value = map.getBuffer("answer");
+
+			assertThat(value.remaining(), is(8));
+			assertThat(value.getLong(0), is(42L));
+			assertThat(value.isReadOnly(), is(true));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void slotsHaveFixedSize() throws Exception {
+		try (MappedFileMap<String> map = new MappedFileMap<>(file, ValueCodec.STRING, 16, 4)) {
+			map.put("name", "too long value");
+		}
+	}
+
+	@Test
+	public void behavesLikeHashMap() throws Exception {
+		Map<String, Integer> expected = new HashMap<>();
+		Random random = new Random(42);
+
+		try (MappedFileMap<Integer> map = new MappedFileMap<>(file, ValueCodec.INTEGER, 16, 4)) {
+			for (int i = 0; i < 20000; i++) {
+				String key = "key" + random.nextInt(3000);
+				if (random.nextInt(3) == 0) {
+					assertThat(map.remove(key), is(expected.remove(key)));
+				} else {
+					assertThat(map.put(key, i), is(expected.put(key, i)));
+				}
+			}
+			assertThat(map, is(equalTo(expected)));
+
+			//removing during iteration does not skip any entry
+			Iterator<Map.Entry<String, Integer>> iterator = map.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<String, Integer> entry = iterator.next();
+				if (entry.getValue() % 2 == 0) {
+					iterator.remove();
+					expected.remove(entry.getKey());
+				}
+			}
+			assertThat(map, is(equalTo(expected)));
+		}
+	}
+}
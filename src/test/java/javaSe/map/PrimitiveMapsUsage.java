@@ -0,0 +1,98 @@
+package javaSe.map;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class PrimitiveMapsUsage {
+	@Test
+	public void iteratingOverMapWithoutEntries() throws Exception {
+		IntObjectMap<String> map = new IntObjectMap<>();
+		map.put(0, "Ala");
+		map.put(1, "John");
+		map.put(2, "Ela");
+
+		//cursor is created once, there is no Map.Entry per element
+		int i = 0;
+		for (IntObjectMap<String>.Cursor cursor = map.cursor(); cursor.advance(); ) {
+			assertThat(cursor.key(), is(i));
+			i++;
+		}
+		assertThat(i, is(3));
+	}
+
+	@Test
+	public void insertionOrderIsPredictable() throws Exception {
+		ObjectDoubleMap<String> items = new ObjectDoubleMap<>(16, true, 0.0d);
+		items.put("cherry", 2.32);
+		items.put("orange", 4.21);
+		items.put("apple", 0.90);
+
+		//HashMap gives {orange=4.21, cherry=2.32, apple=0.9}, the order of its hashes
+		assertThat(items.toString(), equalTo("{cherry=2.32, orange=4.21, apple=0.9}"));
+
+		items.remove("orange");
+		items.put("orange", 4.50);
+		assertThat(items.toString(), equalTo("{cherry=2.32, apple=0.9, orange=4.5}"));
+	}
+
+	@Test
+	public void defaultRemovalMovesTheLastEntry() throws Exception {
+		IntObjectMap<String> map = new IntObjectMap<>();
+		map.put(0, "Ala");
+		map.put(1, "John");
+		map.put(2, "Ela");
+
+		assertThat(map.remove(0), is("Ala"));
+		assertThat(map.toString(), is("{2=Ela, 1=John}"));
+		assertThat(map.get(0), is(nullValue()));
+	}
+
+	@Test
+	public void countersAreNotBoxed() throws Exception {
+		IntIntMap counts = new IntIntMap();
+		int[] ages = {18, 35, 35, 24, 29};
+		for (int age : ages) {
+			counts.addTo(age, 1);
+		}
+
+		assertThat(counts.get(35), is(2));
+		assertThat(counts.get(100), is(0));
+
+		IntIntMap copy = new IntIntMap();
+		copy.putAll(counts);
+		int[] sum = {0};
+		copy.forEach((age, count) -> sum[0] += count);
+		assertThat(sum[0], is(5));
+	}
+
+	@Test
+	public void behavesLikeHashMap() throws Exception {
+		for (boolean insertionOrder : new boolean[]{false, true}) {
+			Map<Integer, Integer> expected = new HashMap<>();
+			IntIntMap map = new IntIntMap(4, insertionOrder, -1);
+			Random random = new Random(42);
+
+			for (int i = 0; i < 100000; i++) {
+				int key = random.nextInt(5000);
+				if (random.nextInt(3) == 0) {
+					Integer removed = expected.remove(key);
+					assertThat(map.remove(key), is(removed == null ? -1 : removed));
+				} else {
+					Integer previous = expected.put(key, i);
+					assertThat(map.put(key, i), is(previous == null ? -1 : previous));
+				}
+			}
+
+			assertThat(map.size(), is(expected.size()));
+			map.forEach((key, value) -> assertThat(expected.get(key), is(value)));
+		}
+	}
+}
@@ -146,7 +146,7 @@ public class Collectors {
 							System.out.println("step 2" + p.name);
 							j.add(p.name.toUpperCase());
 						},  // accumulator
-						(j1, j2) -> { // step 3 is not performed !!
+						(j1, j2) -> { // step 3 is not performed for a sequential stream !! (see ParallelCollectors)
 							System.out.println("step 3" + "j1: "+ j1.toString() + "j2:" + j2.toString() );
 							return j1.merge(j2);
 						},               // combiner
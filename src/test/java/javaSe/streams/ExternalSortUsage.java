@@ -0,0 +1,126 @@
+package javaSe.streams;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javaSe.map.ValueCodec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ExternalSortUsage {
+	private Path directory;
+
+	@Before
+	public void setUp() throws Exception {
+		directory = Files.createTempDirectory("sort");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		try (Stream<Path> files = Files.list(directory)) {
+			files.forEach(file -> file.toFile().delete());
+		}
+		Files.delete(directory);
+	}
+
+	@Test
+	public void runsAreSpilledAndMergedLazily() throws Exception {
+		List<String> words = randomWords(10_000);
+		ExternalSort<String> sort = new ExternalSort<>(Comparator.naturalOrder(), ValueCodec.STRING, 1000,
+				directory, ForkJoinPool.commonPool(), 3);
+		assertThat(sort.getRunSize(), is(250));
+
+		try (Stream<String> sorted = sort.sort(words.stream())) {
+			assertThat(files(), is(40L));
+			assertThat(sorted.collect(Collectors.toList()), equalTo(words.stream().sorted().collect(Collectors.toList())));
+		}
+		assertThat(files(), is(0L));
+	}
+
+	@Test
+	public void filesAreDeletedWhenStreamIsClosedEarly() throws Exception {
+		ExternalSort<Long> sort = new ExternalSort<>(Comparator.reverseOrder(), ValueCodec.LONG, 100,
+				directory, ForkJoinPool.commonPool(), 1);
+
+		try (Stream<Long> sorted = sort.sort(IntStream.range(0, 1000).mapToObj(i -> (long) i))) {
+			assertThat(sorted.limit(3).collect(Collectors.toList()), equalTo(listOf(999L, 998L, 997L)));
+		}
+		assertThat(files(), is(0L));
+	}
+
+	@Test
+	public void manyRunsAreMergedInPasses() throws Exception {
+		List<String> words = randomWords(1000);
+		ExternalSort<String> sort = new ExternalSort<>(Comparator.naturalOrder(), ValueCodec.STRING, 10,
+				directory, Runnable::run, 1);
+
+		//200 runs, more than MAX_MERGE_FAN_IN
+		try (Stream<String> sorted = sort.sort(words.stream())) {
+			assertThat(files(), is(4L));
+			assertThat(sorted.collect(Collectors.toList()), equalTo(words.stream().sorted().collect(Collectors.toList())));
+		}
+	}
+
+	@Test
+	public void sortIsStable() throws Exception {
+		List<String> records = new ArrayList<>();
+		for (int i = 0; i < 300; i++) {
+			records.add((char) ('a' + i % 3) + ":" + i);
+		}
+		ExternalSort<String> byFirstLetter = new ExternalSort<>(Comparator.comparing(s -> s.charAt(0)), ValueCodec.STRING, 20,
+				directory, ForkJoinPool.commonPool(), 2);
+
+		try (Stream<String> sorted = byFirstLetter.sort(records.stream())) {
+			assertThat(sorted.collect(Collectors.toList()),
+					equalTo(records.stream().sorted(Comparator.comparing(s -> s.charAt(0))).collect(Collectors.toList())));
+		}
+	}
+
+	@Test
+	public void smallInputIsSortedInMemory() throws Exception {
+		ExternalSort<String> sort = new ExternalSort<>(Comparator.naturalOrder(), ValueCodec.STRING, 1000,
+				directory, ForkJoinPool.commonPool(), 1);
+
+		try (Stream<String> sorted = sort.sort(Stream.of("d2", "a2", "b1", "b3", "c"))) {
+			assertThat(files(), is(0L));
+			assertThat(sorted.collect(Collectors.toList()), equalTo(listOf("a2", "b1", "b3", "c", "d2")));
+		}
+	}
+
+	private long files() throws Exception {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.count();
+		}
+	}
+
+	private static List<String> randomWords(int count) {
+		Random random = new Random(42);
+		List<String> words = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			words.add(Integer.toString(random.nextInt(1_000_000), 36) + "\u00e9");
+		}
+		return words;
+	}
+
+	@SafeVarargs
+	private static <T> List<T> listOf(T... elements) {
+		List<T> list = new ArrayList<>(elements.length);
+		for (T element : elements) {
+			list.add(element);
+		}
+		return list;
+	}
+}
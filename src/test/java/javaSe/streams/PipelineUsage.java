@@ -0,0 +1,80 @@
+package javaSe.streams;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PipelineUsage {
+	private static final List<String> NAMES = Arrays.asList("d2", "a2", "b1", "b3", "c", "a11");
+
+	@Test
+	public void pipelineCanBeReused_UnlikeStream() throws Exception {
+		Pipeline<String, String> startingWithA = Pipeline.<String>start().filter(s -> s.startsWith("a"));
+
+		assertThat(startingWithA.anyMatch(NAMES, s -> true), is(true));
+		assertThat(startingWithA.noneMatch(NAMES, s -> true), is(false));   // no exception
+		assertThat(startingWithA.toList(NAMES), equalTo(Arrays.asList("a2", "a11")));
+		assertThat(startingWithA.toList(Arrays.asList("b1", "a5")), equalTo(Arrays.asList("a5")));
+	}
+
+	@Test
+	public void stagesAreAddedToCopies() throws Exception {
+		Pipeline<String, String> all = Pipeline.start();
+		Pipeline<String, String> upper = all.map(String::toUpperCase);
+
+		assertThat(all.stages(), is(0));
+		assertThat(upper.stages(), is(1));
+		assertThat(upper.filter(s -> s.startsWith("B")).toList(NAMES), equalTo(Arrays.asList("B1", "B3")));
+		assertThat(all.count(NAMES), is(6L));
+	}
+
+	@Test
+	public void shortCircuitOperationsStopReadingTheSource() throws Exception {
+		AtomicInteger mapped = new AtomicInteger();
+		Pipeline<String, String> upper = Pipeline.<String>start().map(s -> {
+			mapped.incrementAndGet();
+			return s.toUpperCase();
+		});
+
+		assertThat(upper.anyMatch(NAMES, s -> s.startsWith("A")), is(true));
+		assertThat(mapped.get(), is(2));
+
+		mapped.set(0);
+		assertThat(upper.findFirst(NAMES), equalTo(Optional.of("D2")));
+		assertThat(mapped.get(), is(1));
+
+		mapped.set(0);
+		assertThat(upper.allMatch(NAMES, s -> s.length() == 2), is(false));
+		assertThat(mapped.get(), is(5));
+	}
+
+	@Test
+	public void intStagesDoNotBox() throws Exception {
+		IntPipeline<String> lengths = Pipeline.<String>start()
+				.filter(s -> !s.startsWith("c"))
+				.mapToInt(String::length)
+				.map(length -> length * 10);
+
+		assertThat(lengths.sum(NAMES), is(110));
+		assertThat(lengths.max(NAMES), equalTo(OptionalInt.of(30)));
+		assertThat(lengths.filter(length -> length > 20).count(NAMES), is(1L));
+		assertThat(lengths.findFirst(new ArrayList<>()), equalTo(OptionalInt.empty()));
+		assertThat(lengths.anyMatch(NAMES, length -> length == 30), is(true));
+	}
+
+	@Test
+	public void anyIterableIsSource() throws Exception {
+		Iterable<Integer> numbers = () -> Arrays.asList(5, 8, 13).iterator();
+
+		assertThat(Pipeline.<Integer>start().mapToInt(Integer::intValue).sum(numbers), is(26));
+	}
+}
@@ -0,0 +1,118 @@
+package javaSe.streams;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javaSe.map.IntIntMap;
+import javaSe.map.IntObjectMap;
+import javaSe.map.ObjectDoubleMap;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StreamExecutorUsage {
+	private static final List<String> WORDS = IntStream.range(0, 10_000)
+			.mapToObj(i -> (i % 3 == 0 ? "c" : "a") + i)
+			.collect(Collectors.toList());
+
+	@Test
+	public void pipelineRunsOnlyInItsPool() throws Exception {
+		Set<String> threads = ConcurrentHashMap.newKeySet();
+		try (StreamExecutor executor = new StreamExecutor("reports", 4)) {
+			List<String> result = executor.execute(WORDS, 4, stream -> stream
+					.filter(s -> s.startsWith("c"))
+					.peek(s -> threads.add(Thread.currentThread().getName()))
+					.map(String::toUpperCase)
+					.sorted()
+					.collect(Collectors.toList()));
+
+			assertThat(result.size(), is(3334));
+			assertThat(result.get(0), equalTo("C0"));
+			for (String thread : threads) {
+				assertTrue(thread, thread.startsWith("reports-worker-"));
+			}
+		}
+	}
+
+	@Test
+	public void sourceIsSplitIntoAtMostMaxParallelismParts() throws Exception {
+		try (StreamExecutor executor = new StreamExecutor("limited", 8)) {
+			long count = executor.execute(WORDS, 3, stream -> stream.filter(s -> s.startsWith("a")).count());
+
+			assertThat(count, is(6666L));
+			StreamExecutor.Stats stats = executor.getStats();
+			assertThat(stats.getPipelines(), is(1L));
+			assertThat(stats.getSplits(), is(2L));
+			assertThat(stats.getParts(), is(3L));
+		}
+	}
+
+	@Test
+	public void mapSpliteratorsSplitInHalves() throws Exception {
+		IntObjectMap<String> map = new IntObjectMap<>();
+		for (int i = 0; i < 1000; i++) {
+			map.put(i, "v" + i);
+		}
+		try (StreamExecutor executor = new StreamExecutor("maps", 4)) {
+			long sum = executor.execute(() -> executor.intStream(map.keySpliterator(), 4).asLongStream().sum());
+
+			assertThat(sum, is(499500L));
+			assertThat(executor.getStats().getParts(), is(4L));
+		}
+		assertThat(map.keySpliterator().trySplit().estimateSize(), is(500L));
+		assertThat(map.values().parallel().filter(v -> v.endsWith("7")).count(), is(100L));
+	}
+
+	@Test
+	public void removedEntriesAreSkipped() throws Exception {
+		IntIntMap counters = new IntIntMap(16, true, 0);
+		ObjectDoubleMap<String> prices = new ObjectDoubleMap<>(16, true, 0.0d);
+		for (int i = 0; i < 100; i++) {
+			counters.put(i, i);
+			prices.put("item" + i, i);
+		}
+		for (int i = 0; i < 100; i += 2) {
+			counters.remove(i);
+			prices.remove("item" + i);
+		}
+
+		assertThat(counters.values().parallel().sum(), is(2500));
+		assertThat(prices.values().parallel().sum(), is(2500.0d));
+		assertThat(prices.keys().parallel().collect(Collectors.toList()).get(0), equalTo("item1"));
+		//with holes the size of a part is only an estimate
+		assertThat(counters.keySpliterator().getExactSizeIfKnown(), is(-1L));
+	}
+
+	@Test
+	public void namedExecutorsAreShared() throws Exception {
+		StreamExecutor executor = StreamExecutor.named("shared", 2);
+		try {
+			assertTrue(StreamExecutor.named("shared", 2) == executor);
+			try {
+				StreamExecutor.named("shared", 3);
+				fail();
+			} catch (IllegalArgumentException expected) {
+			}
+		} finally {
+			executor.close();
+		}
+		assertTrue(StreamExecutor.named("shared", 3) != executor);
+		StreamExecutor.named("shared", 3).close();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void exceptionOfPipelineIsRethrown() throws Exception {
+		try (StreamExecutor executor = new StreamExecutor("failing", 2)) {
+			executor.execute(WORDS, 2, stream -> stream.map(s -> {
+				throw new IllegalStateException(s);
+			}).collect(Collectors.toList()));
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package javaSe.streams.collectors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ParallelCollectorsUsage {
+	private static class Person {
+		Integer age;
+		String name;
+
+		Person(String name, Integer age) {
+			this.name = name;
+			this.age = age;
+		}
+	}
+
+	private List<Person> persons() {
+		List<Person> persons = new ArrayList<>();
+		for (int i = 0; i < 100000; i++) {
+			persons.add(new Person("Person" + i, 18 + i % 50));
+		}
+		return persons;
+	}
+
+	@Test
+	public void groupingByGivesTheSameGroupsForParallelStream() throws Exception {
+		List<Person> persons = persons();
+
+		Map<Integer, List<Person>> sequential = persons
+				.stream()
+				.collect(Collectors.groupingBy(p -> p.age));
+		Map<Integer, List<Person>> parallel = persons
+				.parallelStream()
+				.collect(ParallelCollectors.groupingByConcurrent(p -> p.age));
+
+		assertThat(parallel.keySet(), is(sequential.keySet()));
+		for (Integer age : sequential.keySet()) {
+			//elements of a group can be in different order
+			assertThat(parallel.get(age).size(), is(sequential.get(age).size()));
+		}
+	}
+
+	@Test
+	public void joiningKeepsEncounterOrderOfParallelStream() throws Exception {
+		//joining is not CONCURRENT, so every part of the stream is joined separately and the combiner links the parts
+		String sequential = IntStream.range(0, 100000)
+				.mapToObj(Integer::toString)
+				.collect(Collectors.joining(" and ", "In Germany ", " are of legal age."));
+		String parallel = IntStream.range(0, 100000)
+				.parallel()
+				.mapToObj(Integer::toString)
+				.collect(ParallelCollectors.joining(" and ", "In Germany ", " are of legal age."));
+
+		assertThat(parallel, is(sequential));
+	}
+
+	@Test
+	public void joiningOfEmptyStream() throws Exception {
+		String phrase = new ArrayList<String>()
+				.parallelStream()
+				.collect(ParallelCollectors.joining(" and ", "[", "]"));
+
+		assertThat(phrase, is("[]"));
+	}
+
+	@Test
+	public void toMapMergesValuesOfTheSameKey() throws Exception {
+		List<Person> persons = new ArrayList<>();
+		persons.add(new Person("Max", 18));
+		persons.add(new Person("Peter", 35));
+		persons.add(new Person("Pamela", 35));
+		persons.add(new Person("Ewa", 24));
+		persons.add(new Person("Jarek", 29));
+
+		Map<Integer, String> map = persons
+				.stream()
+				.collect(ParallelCollectors.toConcurrentMap(
+						p -> p.age,
+						p -> p.name,
+						(name1, name2) -> name1 + ";" + name2));
+
+		assertThat(map.get(35), is("Peter;Pamela"));
+
+		Map<Integer, Integer> counts = persons()
+				.parallelStream()
+				.collect(ParallelCollectors.toConcurrentMap(p -> p.age, p -> 1, Integer::sum));
+
+		assertThat(counts.size(), is(50));
+		assertThat(counts.get(18), is(2000));
+	}
+}
@@ -0,0 +1,153 @@
+package javaSe.streams.collectors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import javaSe.map.ValueCodec;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class SketchCollectorsUsage {
+	private static class Visit {
+		String user;
+		String page;
+
+		Visit(String user, String page) {
+			this.user = user;
+			this.page = page;
+		}
+	}
+
+	/**
+	 * 200 000 visits of 50 000 users, pages with a Zipf-like popularity: page-n is visited about 1 / n as often.
+	 */
+	private static List<Visit> visits() {
+		Random random = new Random(42);
+		double[] cumulative = new double[1000];
+		double sum = 0;
+		for (int n = 1; n <= cumulative.length; n++) {
+			sum += 1.0 / n;
+			cumulative[n - 1] = sum;
+		}
+		List<Visit> visits = new ArrayList<>();
+		for (int i = 0; i < 200_000; i++) {
+			double r = random.nextDouble() * sum;
+			int page = 0;
+			while (cumulative[page] < r) {
+				page++;
+			}
+			visits.add(new Visit("user-" + random.nextInt(50_000), "page-" + (page + 1)));
+		}
+		return visits;
+	}
+
+	@Test
+	public void distinctCountIsWithinTheError() throws Exception {
+		List<Visit> visits = visits();
+		long exact = visits.stream().map(v -> v.user).distinct().count();
+
+		long estimate = visits.parallelStream().collect(SketchCollectors.countDistinct(v -> v.user));
+
+		assertTrue(Math.abs(estimate - exact) < exact * 0.025);
+		long small = IntStream.range(0, 100).boxed().collect(SketchCollectors.countDistinct(Function.identity()));
+		assertTrue(Math.abs(small - 100) <= 2);
+	}
+
+	@Test
+	public void frequenciesAreNeverUnderestimated() throws Exception {
+		List<Visit> visits = visits();
+		Map<String, Long> exact = visits.stream().collect(Collectors.groupingBy(v -> v.page, Collectors.counting()));
+
+		CountMinSketch sketch = visits.parallelStream().collect(SketchCollectors.frequencies(v -> v.page, 0.001, 0.99));
+
+		assertThat(sketch.getTotal(), is(200_000L));
+		for (Map.Entry<String, Long> page : exact.entrySet()) {
+			long estimate = sketch.estimate(page.getKey());
+			assertTrue(estimate >= page.getValue());
+			assertTrue(estimate - page.getValue() <= 0.001 * 200_000);
+		}
+	}
+
+	@Test
+	public void topKAreTheMostFrequent() throws Exception {
+		List<Visit> visits = visits();
+		List<String> exact = visits.stream()
+				.collect(Collectors.groupingBy(v -> v.page, Collectors.counting()))
+				.entrySet().stream()
+				.sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+				.limit(5)
+				.map(Map.Entry::getKey)
+				.collect(Collectors.toList());
+
+		List<SpaceSaving.Entry<String>> top = visits.parallelStream().collect(SketchCollectors.topK(v -> v.page, 5));
+
+		assertThat(top.stream().map(SpaceSaving.Entry::getElement).collect(Collectors.toList()), is(exact));
+		assertThat(top.get(0).getElement(), is("page-1"));
+	}
+
+	@Test
+	public void bloomFilterHasNoFalseNegatives() throws Exception {
+		List<Visit> visits = visits();
+		BloomFilter seen = visits.parallelStream().collect(SketchCollectors.bloomFilter(v -> v.user, 50_000, 0.01));
+
+		assertTrue(visits.stream().allMatch(v -> seen.mightContain(v.user)));
+		long falsePositives = IntStream.range(0, 10_000).filter(i -> seen.mightContain("stranger-" + i)).count();
+		assertTrue(falsePositives < 200);
+	}
+
+	@Test
+	public void partialSketchesAreSavedAndCombinedLater() throws Exception {
+		List<Visit> visits = visits();
+		List<Visit> monday = visits.subList(0, 100_000);
+		List<Visit> tuesday = visits.subList(100_000, visits.size());
+
+		byte[] mondayUsers = monday.stream().collect(SketchCollectors.distinct(v -> v.user)).toBytes();
+		byte[] mondayPages = monday.stream().collect(SketchCollectors.frequencies(v -> v.page, 0.001, 0.99)).toBytes();
+		byte[] mondayTop = monday.stream().collect(SketchCollectors.heavyHitters(v -> v.page, 100)).toBytes(ValueCodec.STRING);
+		byte[] mondaySeen = monday.stream().collect(SketchCollectors.bloomFilter(v -> v.user, 50_000, 0.01)).toBytes();
+		assertTrue(mondayUsers.length < 13_000);
+		assertTrue(mondayPages.length < 2 * 5 * 2719 + 100);
+
+		HyperLogLog users = HyperLogLog.fromBytes(mondayUsers).combine(tuesday.stream().collect(SketchCollectors.distinct(v -> v.user)));
+		CountMinSketch pages = CountMinSketch.fromBytes(mondayPages).combine(tuesday.stream().collect(SketchCollectors.frequencies(v -> v.page, 0.001, 0.99)));
+		SpaceSaving<String> top = SpaceSaving.fromBytes(mondayTop, ValueCodec.STRING).combine(tuesday.stream().collect(SketchCollectors.heavyHitters(v -> v.page, 100)));
+		BloomFilter seen = BloomFilter.fromBytes(mondaySeen).combine(tuesday.stream().collect(SketchCollectors.bloomFilter(v -> v.user, 50_000, 0.01)));
+
+		assertThat(users.estimate(), is(visits.stream().collect(SketchCollectors.distinct(v -> v.user)).estimate()));
+		assertThat(pages.estimate("page-1"), is(visits.stream().collect(SketchCollectors.frequencies(v -> v.page, 0.001, 0.99)).estimate("page-1")));
+		assertThat(top.getTotal(), is(200_000L));
+		assertThat(top.top(1).get(0).getElement(), is("page-1"));
+		assertTrue(visits.stream().allMatch(v -> seen.mightContain(v.user)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void topKWithTooManyCountersIsRejected() throws Exception {
+		SketchCollectors.topK(Function.identity(), Integer.MAX_VALUE / 10 + 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void bytesOfOtherSketchAreRejected() throws Exception {
+		HyperLogLog.fromBytes(new BloomFilter(100, 0.01).toBytes());
+	}
+
+	@Test
+	public void spaceSavingCountsAreUpperBounds() throws Exception {
+		SpaceSaving<Integer> summary = new SpaceSaving<>(3);
+		for (int element : new int[]{1, 1, 1, 1, 2, 2, 2, 3, 3, 4}) {
+			summary.add(element);
+		}
+
+		assertThat(summary.top(3).toString(), is("[1=4, 2=3, 4=3 (error 2)]"));
+		assertFalse(summary.top(3).get(2).getGuaranteedCount() > 1);
+	}
+}
@@ -0,0 +1,127 @@
+package javaSe.streams.collectors;
+
+import java.util.ArrayList;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class StatisticsCollectorsUsage {
+	private static class Person {
+		Integer age;
+		String name;
+
+		Person(String name, Integer age) {
+			this.name = name;
+			this.age = age;
+		}
+	}
+
+	private List<Person> persons() {
+		List<Person> persons = new ArrayList<>();
+		persons.add(new Person("Max", 18));
+		persons.add(new Person("Peter", 35));
+		persons.add(new Person("Pamela", 33));
+		persons.add(new Person("Ewa", 24));
+		persons.add(new Person("Jarek", 29));
+		return persons;
+	}
+
+	@Test
+	public void statisticsAreReadWithoutToString() throws Exception {
+		LongStatistics ageSummary = persons()
+				.stream()
+				.collect(StatisticsCollectors.summarizingInt(p -> p.age));
+
+		assertThat(ageSummary.getCount(), is(5L));
+		assertThat(ageSummary.getSum(), is(139L));
+		assertThat(ageSummary.getMin(), is(18L));
+		assertThat(ageSummary.getMax(), is(35L));
+		assertEquals(27.8, ageSummary.getMean(), 1e-9);
+		assertEquals(38.16, ageSummary.getVariance(), 1e-9);
+	}
+
+	@Test
+	public void parallelStatisticsAreTheSameAsSequential() throws Exception {
+		IntSummaryStatistics expected = IntStream.range(0, 1000000).summaryStatistics();
+
+		LongStatistics statistics = IntStream.range(0, 1000000)
+				.boxed()
+				.parallel()
+				.collect(StatisticsCollectors.summarizingInt(i -> i));
+
+		assertThat(statistics.getSum(), is(expected.getSum()));
+		assertThat(statistics.getMin(), is((long) expected.getMin()));
+		assertThat(statistics.getMax(), is((long) expected.getMax()));
+		//variance of 0..n-1 is (n^2 - 1) / 12
+		assertEquals((1e12 - 1) / 12, statistics.getVariance(), 1e-3);
+
+		DoubleStatistics doubles = IntStream.range(0, 1000000)
+				.boxed()
+				.parallel()
+				.collect(StatisticsCollectors.summarizingDouble(i -> i / 2.0));
+		assertEquals(expected.getAverage() / 2, doubles.getMean(), 1e-9);
+	}
+
+	@Test
+	public void percentilesCanBeCounted() throws Exception {
+		ExactPercentiles percentiles = persons()
+				.stream()
+				.collect(StatisticsCollectors.percentiles(p -> p.age));
+
+		assertEquals(29, percentiles.getMedian(), 0);
+		assertEquals(35, percentiles.getPercentile(100), 0);
+		assertEquals(18, percentiles.getPercentile(1), 0);
+	}
+
+	@Test
+	public void histogramGivesApproximatePercentilesInConstantMemory() throws Exception {
+		Histogram histogram = LongStream.rangeClosed(1, 1000000)
+				.boxed()
+				.parallel()
+				.collect(StatisticsCollectors.histogram(l -> l));
+		ExactPercentiles exact = LongStream.rangeClosed(1, 1000000)
+				.boxed()
+				.collect(StatisticsCollectors.percentiles(l -> l));
+
+		for (double percent : new double[]{50, 90, 99, 99.9}) {
+			double error = Math.abs(histogram.getPercentile(percent) - exact.getPercentile(percent));
+			assertTrue(error / exact.getPercentile(percent) < 0.016);
+		}
+		assertThat(histogram.getCount(), is(1000000L));
+		assertThat(histogram.getCountBetween(1, 100), is(100L));
+
+		long[] total = {0};
+		histogram.forEachBucket((lowerBound, upperBound, count) -> total[0] += count);
+		assertThat(total[0], is(1000000L));
+	}
+
+	@Test
+	public void smallValuesHaveExactBuckets() throws Exception {
+		Histogram histogram = persons()
+				.stream()
+				.collect(StatisticsCollectors.histogram(p -> p.age));
+
+		assertThat(histogram.getPercentile(50), is(29L));
+		assertThat(persons().stream().collect(Collectors.averagingInt(p -> p.age)), is(27.8));
+	}
+
+	@Test
+	public void countBetweenAcceptsAnyBounds() throws Exception {
+		Histogram histogram = new Histogram();
+		LongStream.of(0, 5, 10, 1000).forEach(histogram);
+
+		assertThat(histogram.getCountBetween(-100, 5), is(2L));
+		assertThat(histogram.getCountBetween(-100, -1), is(0L));
+		assertThat(histogram.getCountBetween(10, 5), is(0L));
+		assertThat(histogram.getCountBetween(Long.MIN_VALUE, Long.MAX_VALUE), is(4L));
+	}
+}
@@ -0,0 +1,178 @@
+package javaSe.streams.columns;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import javaSe.streams.StreamExecutor;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ColumnTableUsage {
+	private static class Person {
+		Integer age;
+		String name;
+		double salary;
+
+		Person(String name, Integer age) {
+			this(name, age, 0);
+		}
+
+		Person(String name, Integer age, double salary) {
+			this.name = name;
+			this.age = age;
+			this.salary = salary;
+		}
+	}
+
+	private final List<Person> persons = Arrays.asList(
+			new Person("Max", 18),
+			new Person("Peter", 35),
+			new Person("Pamela", 33),
+			new Person("Ewa", 24),
+			new Person("Jarek", 29));
+
+	private static ColumnTable table(List<Person> persons) {
+		return ColumnTable.<Person>builder()
+				.strings("name", p -> p.name)
+				.ints("age", p -> p.age)
+				.doubles("salary", p -> p.salary)
+				.addAll(persons)
+				.build();
+	}
+
+	@Test
+	public void groupsAreTheSameAsOfGroupingBy() throws Exception {
+		ColumnTable table = table(persons);
+		IntColumn age = table.intColumn("age");
+
+		Map<Integer, Long> byAge = table.query().where(age.atLeast(29)).groupBy(age).count();
+
+		assertThat(byAge, equalTo(persons.stream()
+				.filter(p -> p.age >= 29)
+				.collect(Collectors.groupingBy(p -> p.age, Collectors.counting()))));
+		assertThat(byAge.toString(), is("{33=1, 35=1, 29=1}"));
+	}
+
+	@Test
+	public void statisticsAreTheSameAsOfSummarizingInt() throws Exception {
+		ColumnTable table = table(persons);
+
+		IntSummaryStatistics ageSummary = table.query().summarizing(table.intColumn("age"));
+
+		assertThat(ageSummary.toString(), is("IntSummaryStatistics{count=5, sum=139, min=18, average=27.800000, max=35}"));
+		assertThat(ageSummary.getAverage(), is(27.8));
+	}
+
+	@Test
+	public void stringsAreFilteredByDictionary() throws Exception {
+		ColumnTable table = table(persons);
+		StringColumn name = table.stringColumn("name");
+		IntColumn age = table.intColumn("age");
+
+		int[] rows = table.query().where(name.startsWith("P")).where(age.lessThan(35)).rows();
+
+		assertThat(rows.length, is(1));
+		assertThat(name.get(rows[0]), is("Pamela"));
+		assertThat(table.query().where(name.equalTo("Ola")).count(), is(0L));
+		assertThat(table.query().where(name.in(Arrays.asList("Ewa", "Max", "Ola"))).count(), is(2L));
+	}
+
+	@Test
+	public void parallelQueryGivesSequentialResults() throws Exception {
+		Random random = new Random(42);
+		String[] names = {"Max", "Peter", "Pamela", "Ewa", "Jarek", "Ola"};
+		List<Person> many = new ArrayList<>();
+		for (int i = 0; i < 200_000; i++) {
+			many.add(new Person(names[random.nextInt(names.length)], random.nextInt(100), random.nextInt(10_000) / 4.0));
+		}
+		ColumnTable table = table(many);
+		IntColumn age = table.intColumn("age");
+		StringColumn name = table.stringColumn("name");
+		Query adults = table.query().where(age.atLeast(18)).where(name.matches(n -> n.length() > 3));
+
+		Map<String, IntSummaryStatistics> expected = many.stream()
+				.filter(p -> p.age >= 18 && p.name.length() > 3)
+				.collect(Collectors.groupingBy(p -> p.name, Collectors.summarizingInt(p -> p.age)));
+
+		try (StreamExecutor executor = new StreamExecutor("columns", 4)) {
+			for (Query query : Arrays.asList(adults, adults.parallel(), adults.parallel(executor))) {
+				Map<String, IntSummaryStatistics> byName = query.groupBy(name).summarizing(age);
+				assertThat(byName.keySet(), equalTo(expected.keySet()));
+				for (String key : expected.keySet()) {
+					assertThat(byName.get(key).toString(), equalTo(expected.get(key).toString()));
+				}
+				assertThat(query.rows().length, is((int) expected.values().stream().mapToLong(IntSummaryStatistics::getCount).sum()));
+			}
+		}
+
+		DoubleSummaryStatistics salaries = table.query().parallel().where(age.between(30, 39)).summarizing(table.doubleColumn("salary"));
+		DoubleSummaryStatistics expectedSalaries = many.stream().filter(p -> p.age >= 30 && p.age <= 39)
+				.collect(Collectors.summarizingDouble(p -> p.salary));
+		assertThat(salaries.getCount(), is(expectedSalaries.getCount()));
+		assertThat(salaries.getSum(), is(expectedSalaries.getSum()));
+		assertThat(salaries.getMax(), is(expectedSalaries.getMax()));
+	}
+
+	@Test
+	public void doubleSumsAreCompensatedLikeSummarizingDouble() throws Exception {
+		String[] names = {"Max", "Ewa", "Ola"};
+		List<Person> many = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			many.add(new Person(names[i % names.length], i % 50, 0.1 * (i % 7) + 1e8 * (i % 2)));
+		}
+		ColumnTable table = table(many);
+		DoubleColumn salary = table.doubleColumn("salary");
+
+		DoubleSummaryStatistics total = table.query().summarizing(salary);
+		DoubleSummaryStatistics expected = many.stream().collect(Collectors.summarizingDouble(p -> p.salary));
+		assertThat(total.getSum(), is(expected.getSum()));
+		assertThat(total.getAverage(), is(expected.getAverage()));
+
+		Map<String, DoubleSummaryStatistics> byName = table.query().groupBy(table.stringColumn("name")).summarizing(salary);
+		Map<String, DoubleSummaryStatistics> expectedByName = many.stream()
+				.collect(Collectors.groupingBy(p -> p.name, Collectors.summarizingDouble(p -> p.salary)));
+		for (String name : names) {
+			assertThat(byName.get(name).getSum(), is(expectedByName.get(name).getSum()));
+		}
+
+		List<Person> infinite = Arrays.asList(new Person("Max", 1, Double.POSITIVE_INFINITY),
+				new Person("Max", 2, Double.POSITIVE_INFINITY), new Person("Ewa", 3, Double.NEGATIVE_INFINITY),
+				new Person("Ewa", 4, Double.POSITIVE_INFINITY), new Person("Ewa", 5, 1));
+		ColumnTable infiniteTable = table(infinite);
+		Map<String, DoubleSummaryStatistics> infiniteByName = infiniteTable.query()
+				.groupBy(infiniteTable.stringColumn("name")).summarizing(infiniteTable.doubleColumn("salary"));
+		assertThat(infiniteByName.get("Max").getSum(), is(Double.POSITIVE_INFINITY));
+		assertThat(infiniteByName.get("Ewa").toString(), is(infinite.stream().filter(p -> p.name.equals("Ewa"))
+				.collect(Collectors.summarizingDouble(p -> p.salary)).toString()));
+	}
+
+	@Test
+	public void wideRangeOfKeysIsGroupedByNumbers() throws Exception {
+		Random random = new Random(7);
+		List<Person> many = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			many.add(new Person("P", random.nextInt(50) * 1_000_000 - 25_000_000));
+		}
+		ColumnTable table = table(many);
+		IntColumn age = table.intColumn("age");
+
+		assertThat(table.query().parallel().groupBy(age).count(), equalTo(many.stream()
+				.collect(Collectors.groupingBy(p -> p.age, Collectors.counting()))));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void columnOfOtherTableIsRejected() throws Exception {
+		IntColumn other = table(persons).intColumn("age");
+		table(persons).query().summarizing(other);
+	}
+}
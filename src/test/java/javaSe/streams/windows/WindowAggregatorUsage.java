@@ -0,0 +1,121 @@
+package javaSe.streams.windows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Hours;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class WindowAggregatorUsage {
+	private static final long SECOND = 1000;
+	private static final DateTimeZone WARSAW = DateTimeZone.forID("Europe/Warsaw");
+
+	private final List<WindowResult> results = new ArrayList<>();
+
+	@Test
+	public void tumblingWindowIsEmittedWhenNextOneStarts() throws Exception {
+		WindowAggregator<long[]> perMinute = new WindowAggregator<>(Windows.tumbling(1, TimeUnit.MINUTES),
+				event -> event[0], event -> event[1], 0, TimeUnit.SECONDS, results::add);
+
+		perMinute.accept(new long[]{0, 5});
+		perMinute.accept(new long[]{30 * SECOND, 7});
+		perMinute.accept(new long[]{59 * SECOND, 3});
+		assertThat(results.size(), is(0));
+
+		perMinute.accept(new long[]{61 * SECOND, 10});
+		assertThat(results.toString(), equalTo("[[0, 60000) {count=3, sum=15, min=3, max=7}]"));
+
+		perMinute.flush();
+		assertThat(results.get(1).toString(), equalTo("[60000, 120000) {count=1, sum=10, min=10, max=10}"));
+	}
+
+	@Test
+	public void eventBelongsToSizeBySlideWindows() throws Exception {
+		WindowAggregator<long[]> sliding = new WindowAggregator<>(Windows.sliding(10, 5, TimeUnit.SECONDS),
+				event -> event[0], event -> event[1], 0, TimeUnit.SECONDS, results::add);
+
+		sliding.accept(7 * SECOND, 1);
+		sliding.accept(12 * SECOND, 2);
+		sliding.flush();
+
+		assertThat(results.size(), is(3));
+		assertThat(results.get(0).toString(), equalTo("[0, 10000) {count=1, sum=1, min=1, max=1}"));
+		assertThat(results.get(1).toString(), equalTo("[5000, 15000) {count=2, sum=3, min=1, max=2}"));
+		assertThat(results.get(2).toString(), equalTo("[10000, 20000) {count=1, sum=2, min=2, max=2}"));
+	}
+
+	@Test
+	public void eventsWithinLatenessAreCountedAndLaterAreDropped() throws Exception {
+		WindowAggregator<long[]> perMinute = new WindowAggregator<>(Windows.tumbling(1, TimeUnit.MINUTES),
+				event -> event[0], event -> event[1], 10, TimeUnit.SECONDS, results::add);
+
+		perMinute.accept(50 * SECOND, 1);
+		perMinute.accept(65 * SECOND, 1);
+		assertThat(perMinute.accept(55 * SECOND, 1), is(true));   //the first minute is still open
+		perMinute.accept(75 * SECOND, 1);
+		assertThat(perMinute.accept(58 * SECOND, 1), is(false));
+
+		assertThat(results.get(0).getCount(), is(2L));
+		assertThat(perMinute.getLateEvents(), is(1L));
+	}
+
+	@Test
+	public void sessionsGrowAndMerge() throws Exception {
+		WindowAggregator<long[]> sessions = new WindowAggregator<>(Windows.sessions(10, TimeUnit.SECONDS),
+				event -> event[0], event -> event[1], 30, TimeUnit.SECONDS, results::add);
+
+		sessions.accept(0, 1);
+		sessions.accept(5 * SECOND, 1);
+		sessions.accept(22 * SECOND, 1);
+		assertThat(sessions.getOpenWindows(), is(2));
+
+		//a late event fills the gap between both sessions
+		sessions.accept(14 * SECOND, 1);
+		assertThat(sessions.getOpenWindows(), is(1));
+
+		sessions.flush();
+		assertThat(results.toString(), equalTo("[[0, 32000) {count=4, sum=4, min=1, max=1}]"));
+	}
+
+	@Test
+	public void daysOfZoneFollowDaylightSavingTime() throws Exception {
+		WindowAggregator<DateTime> perDay = new WindowAggregator<>(Windows.days(WARSAW),
+				DateTime::getMillis, event -> 1, 1, TimeUnit.HOURS, results::add);
+
+		DateTime changeDay = new DateTime(2015, 3, 29, 10, 0, WARSAW);
+		perDay.accept(changeDay);
+		perDay.accept(changeDay.plusDays(1));
+		perDay.flush();
+
+		WindowResult shortDay = results.get(0);
+		assertThat(new DateTime(shortDay.getStart(), WARSAW), equalTo(changeDay.withTimeAtStartOfDay()));
+		assertThat(Hours.hoursBetween(new DateTime(shortDay.getStart()), new DateTime(shortDay.getEnd())).getHours(), is(23));
+		assertThat(Hours.hoursBetween(new DateTime(results.get(1).getStart()), new DateTime(results.get(1).getEnd())).getHours(), is(24));
+	}
+
+	@Test
+	public void memoryDoesNotGrowWithTheStream() throws Exception {
+		long[] emitted = {0};
+		WindowAggregator<long[]> sliding = new WindowAggregator<>(Windows.sliding(10, 1, TimeUnit.SECONDS),
+				event -> event[0], event -> event[1], 2, TimeUnit.SECONDS, result -> emitted[0]++);
+		Random random = new Random(42);
+
+		long time = 0;
+		for (int i = 0; i < 1_000_000; i++) {
+			time += random.nextInt(100);
+			sliding.accept(time - random.nextInt(1000), i);
+		}
+
+		assertTrue(sliding.getCapacity() <= 16);
+		assertTrue(emitted[0] > 40_000);
+	}
+}
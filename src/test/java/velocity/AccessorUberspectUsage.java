@@ -0,0 +1,164 @@
+package velocity;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.exception.MethodInvocationException;
+import org.apache.velocity.runtime.RuntimeConstants;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AccessorUberspectUsage {
+	public static class Person {
+		private final String name;
+		private final int age;
+
+		public Person(String name, int age) {
+			this.name = name;
+			this.age = age;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getAge() {
+			return age;
+		}
+
+		public boolean isAdult() {
+			return age >= 18;
+		}
+	}
+
+	public static class Settings {
+		public String getfoo() {
+			return "lower";
+		}
+
+		public String getFoo() {
+			return "upper";
+		}
+
+		public String get(String key) {
+			return "get:" + key;
+		}
+
+		public boolean isActive() {
+			return true;
+		}
+	}
+
+	public static class Wide {
+		public int getValue() {
+			return 1;
+		}
+	}
+
+	public static class Broken {
+		public String getName() {
+			throw new IllegalArgumentException("no name");
+		}
+
+		public int getAge() {
+			throw new IllegalStateException("no age");
+		}
+	}
+
+	private static String render(VelocityEngine engine, Object person) {
+		VelocityContext context = new VelocityContext();
+		context.put("person", person);
+		StringWriter writer = new StringWriter();
+		engine.getTemplate("velocity/Person.vm").merge(context, writer);
+		return writer.toString();
+	}
+
+	private static VelocityEngine reflectionEngine() {
+		VelocityEngine ve = new VelocityEngine();
+		ve.setProperty(RuntimeConstants.RESOURCE_LOADER, "class");
+		ve.setProperty("class.resource.loader.class",
+		               "org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader");
+		ve.init();
+		return ve;
+	}
+
+	@Test
+	public void rendersLikeTheDefaultUberspector() {
+		VelocityEngine accessors = TemplateRegistry.classpathEngine();
+		VelocityEngine reflection = reflectionEngine();
+
+		Person max = new Person("Max", 18);
+		assertThat(render(accessors, max), is("Max is 18 (adult), $person.nickname"));
+		assertThat(render(accessors, max), is(render(reflection, max)));
+
+		//maps are still read by the default uberspector
+		Map<String, Object> pamela = new HashMap<>();
+		pamela.put("name", "Pamela");
+		pamela.put("age", 17);
+		assertThat(render(accessors, pamela), is(render(reflection, pamela)));
+	}
+
+	@Test
+	public void accessorIsCreatedOncePerClassAndProperty() throws Exception {
+		AccessorUberspect.Accessor name = AccessorUberspect.accessorFor(Person.class, "name");
+
+		assertThat(name, is(notNullValue()));
+		assertThat(AccessorUberspect.accessorFor(Person.class, "name") == name, is(true));
+		assertThat(name.getMethodName(), is("getName"));
+		assertThat(name.invoke(new Person("Ewa", 24)), is((Object) "Ewa"));
+		assertThat(AccessorUberspect.accessorFor(Person.class, "age").invoke(new Person("Ewa", 24)), is((Object) 24));
+		assertThat(AccessorUberspect.accessorFor(Person.class, "nickname"), is(nullValue()));
+	}
+
+	@Test
+	public void getterIsChosenInTheOrderOfTheDefaultUberspector() throws Exception {
+		VelocityContext context = new VelocityContext();
+		context.put("settings", new Settings());
+		StringWriter accessors = new StringWriter();
+		StringWriter reflection = new StringWriter();
+
+		TemplateRegistry.classpathEngine().evaluate(context, accessors, "settings", "$settings.foo $settings.Foo $settings.active");
+		reflectionEngine().evaluate(context, reflection, "settings", "$settings.foo $settings.Foo $settings.active");
+
+		assertThat(accessors.toString(), is("lower upper get:active"));
+		assertThat(accessors.toString(), is(reflection.toString()));
+	}
+
+	private static String failure(VelocityEngine engine, String template) {
+		VelocityContext context = new VelocityContext();
+		context.put("b", new Broken());
+		try {
+			engine.evaluate(context, new StringWriter(), "broken", template);
+			return "no exception";
+		} catch (MethodInvocationException e) {
+			return e.getMethodName() + ": " + e.getCause();
+		}
+	}
+
+	@Test
+	public void getterExceptionsAreReportedLikeByTheDefaultUberspector() throws Exception {
+		VelocityEngine accessors = TemplateRegistry.classpathEngine();
+		VelocityEngine reflection = reflectionEngine();
+
+		assertThat(failure(accessors, "$b.name"), is("getName: java.lang.IllegalArgumentException: no name"));
+		assertThat(failure(accessors, "$b.name"), is(failure(reflection, "$b.name")));
+		assertThat(failure(accessors, "$b.age"), is("getAge: java.lang.IllegalStateException: no age"));
+		assertThat(failure(accessors, "$b.age"), is(failure(reflection, "$b.age")));
+	}
+
+	@Test
+	public void propertiesOverTheLimitAreNotGenerated() throws Exception {
+		for (int i = 0; i < AccessorUberspect.MAX_PROPERTIES_PER_CLASS; i++) {
+			assertThat(AccessorUberspect.accessorFor(Wide.class, "missing" + i), is(nullValue()));
+		}
+
+		assertThat(AccessorUberspect.accessorFor(Wide.class, "value"), is(nullValue()));
+	}
+}
@@ -92,4 +92,40 @@ public class BasicUsage {
 		template.merge(chainer2.getContext(), writer);
 		assertThat(writer2.toString(), is(""));
 	}
+
+	@Test
+	public void flattenedChainerKeepsTheSamePriority() {
+		Template template = createTemplate("velocity/ContextPriority.vm");
+		Map<String, Object> map1 = new HashMap<String, Object>();
+		Map<String, Object> map2 = new HashMap<String, Object>();
+		Map<String, Object> map3 = new HashMap<String, Object>();
+
+		map1.put("name", "Bob");
+		map2.put("name", "Alice");
+		map3.put("name", null);
+
+		//all layers are compiled into one table, a lookup does not walk through the chain
+		ContextChainer chainer = new ContextChainer(true);
+		chainer.chain(map1).chain(map2).chain(map3);
+		StringWriter writer = new StringWriter();
+
+		template.merge(chainer.getContext(), writer);
+		assertThat(writer.toString(), is("Alice"));
+
+		//changes of a layer are not visible until the layer is refreshed
+		map3.put("name", "John");
+		chainer.refresh(map3);
+		StringWriter writer2 = new StringWriter();
+
+		template.merge(chainer.getContext(), writer2);
+		assertThat(writer2.toString(), is("John"));
+
+		map3.remove("name");
+		map2.put("name", null);
+		chainer.refresh(map3).refresh(map2);
+		StringWriter writer3 = new StringWriter();
+
+		template.merge(chainer.getContext(), writer3);
+		assertThat(writer3.toString(), is("Bob"));
+	}
 }
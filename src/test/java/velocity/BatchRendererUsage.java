@@ -0,0 +1,128 @@
+package velocity;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.apache.velocity.Template;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class BatchRendererUsage {
+	private final Template template = TemplateRegistry.shared().getTemplate("velocity/Lazy.vm");
+
+	private static Stream<Map<String, Object>> customers(int count) {
+		return IntStream.range(0, count).mapToObj(i -> {
+			Map<String, Object> item = new HashMap<>();
+			item.put("name", "customer" + i);
+			return item;
+		});
+	}
+
+	private static ContextChainer base() {
+		Map<String, Object> defaults = new HashMap<>();
+		defaults.put("orders", 0);
+		return new ContextChainer().chain(defaults);
+	}
+
+	@Test
+	public void orderedResultsFollowTheStream() {
+		BatchRenderer renderer = new BatchRenderer(template, base().getContext());
+		List<String> outputs = new ArrayList<>();
+
+		long count = renderer.render(customers(5000), (index, item, output) -> outputs.add(output), true);
+
+		assertThat(count, is(5000L));
+		for (int i = 0; i < outputs.size(); i++) {
+			assertThat(outputs.get(i), is("Hello customer" + i + "! customer" + i + " has 0 orders."));
+		}
+	}
+
+	@Test
+	public void unorderedResultsComeAsTheyAreReady() {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		BatchRenderer renderer = new BatchRenderer(template, base().getContext(), executor, 16);
+		Map<Long, String> outputs = new HashMap<>();
+
+		renderer.render(customers(1000), (index, item, output) -> outputs.put(index, output), false);
+		executor.shutdown();
+
+		assertThat(outputs.size(), is(1000));
+		assertThat(outputs.get(999L), is("Hello customer999! customer999 has 0 orders."));
+	}
+
+	@Test
+	public void everyItemHasItsOwnSink() {
+		BatchRenderer renderer = new BatchRenderer(template, base().getContext());
+		Map<Object, StringWriter> sinks = new ConcurrentHashMap<>();
+
+		renderer.render(customers(100), item -> {
+			StringWriter writer = new StringWriter();
+			sinks.put(item.get("name"), writer);
+			return writer;
+		});
+
+		assertThat(sinks.size(), is(100));
+		assertThat(sinks.get("customer42").toString(), is("Hello customer42! customer42 has 0 orders."));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void firstFailureStopsTheBatch() {
+		BatchRenderer renderer = new BatchRenderer(template, base().getContext(), Executors.newCachedThreadPool(), 4);
+
+		renderer.render(customers(Integer.MAX_VALUE), (index, item, output) -> {
+			if (index == 100) {
+				throw new IllegalStateException("Mail server is down");
+			}
+		}, true);
+	}
+
+	@Test
+	public void rejectedItemWaitsForTheSubmittedOnes() {
+		AtomicInteger submitted = new AtomicInteger();
+		Executor executor = command -> {
+			if (submitted.incrementAndGet() > 3) {
+				throw new RejectedExecutionException("Queue is full");
+			}
+			new Thread(() -> {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				command.run();
+			}).start();
+		};
+		BatchRenderer renderer = new BatchRenderer(template, base().getContext(), executor, 16);
+		Map<Long, String> outputs = new ConcurrentHashMap<>();
+
+		try {
+			renderer.render(customers(10), (index, item, output) -> outputs.put(index, output), false);
+			fail();
+		} catch (RejectedExecutionException e) {
+			assertThat(outputs.size(), is(3));
+		}
+	}
+
+	@Test
+	public void emptyStreamRendersNothing() {
+		BatchRenderer renderer = new BatchRenderer(template, base().getContext());
+
+		assertThat(renderer.render(Stream.empty(), (index, item, output) -> { }, true), is(0L));
+		assertThat(renderer.render(Collections.<Map<String, Object>>emptyList().stream(), item -> new StringWriter()), is(0L));
+	}
+}
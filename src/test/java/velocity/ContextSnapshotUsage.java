@@ -0,0 +1,104 @@
+package velocity;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.context.Context;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ContextSnapshotUsage {
+	private static Map<String, Object> layer(String key, Object value) {
+		Map<String, Object> map = new HashMap<>();
+		map.put(key, value);
+		return map;
+	}
+
+	private static String render(Template template, Context context) {
+		StringWriter writer = new StringWriter();
+		template.merge(context, writer);
+		return writer.toString();
+	}
+
+	@Test
+	public void samePriorityAsContextChainer() {
+		Template template = TemplateRegistry.shared().getTemplate("velocity/ContextPriority.vm");
+
+		ContextSnapshot snapshot = ContextSnapshot.empty()
+				.chain(layer("name", "Bob"))
+				.chain(layer("name", "Alice"))
+				.chain(layer("name", null));
+
+		assertThat(render(template, snapshot.newRenderContext()), is("Alice"));
+		assertThat(snapshot.depth(), is(3));
+	}
+
+	@Test
+	public void parentIsNotChanged() {
+		ContextSnapshot base = ContextSnapshot.empty().chain(layer("company", "ACME"));
+
+		ContextSnapshot first = base.chain(layer("name", "Alice"));
+		ContextSnapshot second = base.chain(layer("company", "Initech"));
+
+		assertThat(base.get("name"), is(nullValue()));
+		assertThat(base.get("company"), is((Object) "ACME"));
+		assertThat(first.get("company"), is((Object) "ACME"));
+		assertThat(second.get("company"), is((Object) "Initech"));
+		assertThat(second.size(), is(1));
+	}
+
+	@Test
+	public void valuesSetByTheTemplateStayInTheRender() throws Exception {
+		Template template = TemplateRegistry.shared().getTemplate("velocity/Snapshot.vm");
+		ContextSnapshot base = ContextSnapshot.empty().chain(layer("company", "ACME"));
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		List<Callable<String>> renders = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			ContextSnapshot request = base.with("name", "user" + i);
+			renders.add(() -> render(template, request.newRenderContext()));
+		}
+		List<Future<String>> results = executor.invokeAll(renders);
+		executor.shutdown();
+
+		for (int i = 0; i < results.size(); i++) {
+			assertThat(results.get(i).get(), is("Hi user" + i + " from ACME"));
+		}
+		assertThat(base.get("greeting"), is(nullValue()));
+	}
+
+	@Test
+	public void behavesLikeHashMap() {
+		Map<String, Object> expected = new HashMap<>();
+		ContextSnapshot snapshot = ContextSnapshot.empty();
+		Random random = new Random(42);
+
+		//"Aa" and "BB" have the same hash code, so both go to a node for colliding keys
+		for (int i = 0; i < 20000; i++) {
+			String key = random.nextBoolean() ? "key" + random.nextInt(5000) : (random.nextBoolean() ? "Aa" : "BB") + random.nextInt(3);
+			expected.put(key, i);
+			snapshot = snapshot.with(key, i);
+		}
+
+		Map<String, Object> actual = new HashMap<>();
+		snapshot.forEach(actual::put);
+		assertThat(actual, is(equalTo(expected)));
+		assertThat(snapshot.size(), is(expected.size()));
+		for (String key : expected.keySet()) {
+			assertThat(snapshot.get(key), is(expected.get(key)));
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package velocity;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.velocity.Template;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class LazyLayerUsage {
+	private final Template template = TemplateRegistry.shared().getTemplate("velocity/Lazy.vm");
+	private final AtomicInteger computations = new AtomicInteger();
+
+	private Supplier<Object> counted(Object value) {
+		return () -> {
+			computations.incrementAndGet();
+			return value;
+		};
+	}
+
+	private LazyLayer customerLayer() {
+		Map<String, Supplier<Object>> suppliers = new LinkedHashMap<>();
+		suppliers.put("name", counted("Alice"));
+		suppliers.put("orders", counted(3));
+		suppliers.put("invoices", counted(Arrays.asList(1, 2)));
+		suppliers.put("address", counted("Main Street"));
+		return new LazyLayer(suppliers);
+	}
+
+	private static Set<String> asSet(String... keys) {
+		return new HashSet<>(Arrays.asList(keys));
+	}
+
+	private String render(ContextChainer chainer) {
+		StringWriter writer = new StringWriter();
+		template.merge(chainer.getContext(), writer);
+		return writer.toString();
+	}
+
+	@Test
+	public void onlyReadValuesAreComputed() {
+		LazyLayer layer = customerLayer();
+
+		String result = render(new ContextChainer().chain(layer));
+
+		assertThat(result, is("Hello Alice! Alice has 3 orders."));
+		//$name is read twice, but computed once
+		assertThat(computations.get(), is(2));
+		assertThat(layer.touchedKeys(), is(equalTo(asSet("name", "orders"))));
+	}
+
+	@Test
+	public void flattenedChainerDoesNotComputeTheLayer() {
+		LazyLayer layer = customerLayer();
+		Map<String, Object> defaults = new HashMap<>();
+		defaults.put("name", "nobody");
+		defaults.put("orders", 0);
+
+		String result = render(new ContextChainer(true).chain(defaults).chain(layer));
+
+		assertThat(result, is("Hello Alice! Alice has 3 orders."));
+		assertThat(computations.get(), is(2));
+	}
+
+	@Test
+	public void upperLayersWinOverTheLazyOne() {
+		LazyLayer layer = customerLayer();
+		Map<String, Object> overrides = new HashMap<>();
+		overrides.put("name", "Bob");
+
+		for (ContextChainer chainer : Arrays.asList(new ContextChainer(), new ContextChainer(true))) {
+			layer.reset();
+			assertThat(render(chainer.chain(layer).chain(overrides)), is("Hello Bob! Bob has 3 orders."));
+			assertThat(layer.touchedKeys().contains("name"), is(false));
+		}
+	}
+
+	@Test
+	public void resolverWithoutValueFallsThrough() {
+		Map<String, Object> defaults = new HashMap<>();
+		defaults.put("orders", 0);
+		LazyLayer layer = new LazyLayer(key -> key.equals("name") ? "Carol" : null);
+
+		for (ContextChainer chainer : Arrays.asList(new ContextChainer(), new ContextChainer(true))) {
+			layer.reset();
+			assertThat(render(chainer.chain(defaults).chain(layer)), is("Hello Carol! Carol has 0 orders."));
+			assertThat(layer.touchedKeys().contains("orders"), is(true));
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package velocity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class ReactiveRendererUsage {
+	private final ExecutorService executor = Executors.newSingleThreadExecutor();
+	private final Template template = TemplateRegistry.shared().getTemplate("velocity/HelloWorld.vm");
+
+	@After
+	public void tearDown() throws Exception {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void outputIsTheSameAsOfMerge() throws Exception {
+		VelocityContext context = new VelocityContext();
+		context.put("name", "\u017baneta");
+		StringWriter expected = new StringWriter();
+		template.merge(context, expected);
+
+		Collecting subscriber = new Collecting(Long.MAX_VALUE);
+		new ReactiveRenderer().render(template, context).subscribe(subscriber);
+
+		assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+		assertThat(subscriber.text(), equalTo(expected.toString()));
+	}
+
+	@Test
+	public void renderWaitsForDemand() throws Exception {
+		VelocityContext context = new VelocityContext();
+		context.put("name", String.join("", Collections.nCopies(10_000, "Ala ")));
+		Collecting subscriber = new Collecting(1);
+		new ReactiveRenderer(executor, StandardCharsets.UTF_8, 1024).render(template, context).subscribe(subscriber);
+
+		assertTrue(subscriber.received(1));
+		assertThat(subscriber.done.await(200, TimeUnit.MILLISECONDS), is(false));
+		assertThat(subscriber.chunks.size(), is(1));
+
+		subscriber.subscription.request(Long.MAX_VALUE);
+		assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+		assertThat(subscriber.text().length(), is(40_000 + "Hello ! Welcome to Velocity!".length()));
+		assertTrue(subscriber.chunks.size() > 30);
+	}
+
+	@Test
+	public void cancelStopsTheRender() throws Exception {
+		VelocityContext context = new VelocityContext();
+		context.put("name", String.join("", Collections.nCopies(10_000, "Ala ")));
+		Collecting subscriber = new Collecting(1);
+		new ReactiveRenderer(executor, StandardCharsets.UTF_8, 1024).render(template, context).subscribe(subscriber);
+
+		assertTrue(subscriber.received(1));
+		subscriber.subscription.cancel();
+
+		//the render thread is free again and nothing more was signalled
+		executor.submit(() -> null).get(5, TimeUnit.SECONDS);
+		assertThat(subscriber.chunks.size(), is(1));
+		assertThat(subscriber.done.getCount(), is(1L));
+	}
+
+	@Test
+	public void layersAreChainedWhenAllAreLoaded() throws Exception {
+		CompletableFuture<Map<String, Object>> defaults = new CompletableFuture<>();
+		CompletableFuture<Map<String, Object>> user = new CompletableFuture<>();
+		List<CompletableFuture<Map<String, Object>>> layers = Arrays.asList(defaults, user);
+		Collecting subscriber = new Collecting(Long.MAX_VALUE);
+		new ReactiveRenderer(executor, StandardCharsets.UTF_8, 1024)
+				.render(template, new ContextChainer(true), layers)
+				.subscribe(subscriber);
+
+		user.complete(map("name", "Ala"));
+		assertThat(subscriber.done.await(100, TimeUnit.MILLISECONDS), is(false));
+		defaults.complete(map("name", "guest"));
+
+		assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+		assertThat(subscriber.text(), equalTo("Hello Ala! Welcome to Velocity!"));
+	}
+
+	@Test
+	public void failedLayerIsSignalledAsError() throws Exception {
+		CompletableFuture<Map<String, Object>> failed = new CompletableFuture<>();
+		Collecting subscriber = new Collecting(Long.MAX_VALUE);
+		new ReactiveRenderer(executor, StandardCharsets.UTF_8, 1024)
+				.render(template, new ContextChainer(), Collections.singletonList(failed))
+				.subscribe(subscriber);
+
+		failed.completeExceptionally(new IllegalStateException("user service is down"));
+
+		assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+		assertThat(subscriber.error, instanceOf(IllegalStateException.class));
+	}
+
+	@Test
+	public void nonPositiveRequestIsAnError() throws Exception {
+		Collecting subscriber = new Collecting(0);
+		new ReactiveRenderer(executor, StandardCharsets.UTF_8, 1024).render(template, new VelocityContext()).subscribe(subscriber);
+
+		assertTrue(subscriber.done.await(5, TimeUnit.SECONDS));
+		assertThat(subscriber.error, instanceOf(IllegalArgumentException.class));
+	}
+
+	private static Map<String, Object> map(String key, Object value) {
+		Map<String, Object> map = new HashMap<>();
+		map.put(key, value);
+		return map;
+	}
+
+	private static final class Collecting implements Flow.Subscriber<ByteBuffer> {
+		private final long initialRequest;
+		final List<ByteBuffer> chunks = new CopyOnWriteArrayList<>();
+		final CountDownLatch done = new CountDownLatch(1);
+		volatile Flow.Subscription subscription;
+		volatile Throwable error;
+
+		Collecting(long initialRequest) {
+			this.initialRequest = initialRequest;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			subscription.request(initialRequest);
+		}
+
+		@Override
+		public void onNext(ByteBuffer item) {
+			chunks.add(item);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			error = throwable;
+			done.countDown();
+		}
+
+		@Override
+		public void onComplete() {
+			done.countDown();
+		}
+
+		boolean received(int count) throws InterruptedException {
+			for (int i = 0; i < 500 && chunks.size() < count; i++) {
+				Thread.sleep(10);
+			}
+			return chunks.size() >= count;
+		}
+
+		String text() {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			for (ByteBuffer chunk : chunks) {
+				bytes.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+			}
+			return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package velocity;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.velocity.VelocityContext;
+import org.junit.Test;
+
+import Date.ManualClock;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RenderCacheUsage {
+	private final TemplateRegistry registry = new TemplateRegistry(TemplateRegistry.classpathEngine());
+
+	@Test
+	public void outputIsReusedWhenReadValuesAreEqual() {
+		RenderCache cache = new RenderCache(registry, 10_000, RenderCache.NEVER_EXPIRE, TimeUnit.SECONDS);
+
+		assertThat(cache.render("velocity/HelloWorld.vm", context("Ala", 1)), equalTo("Hello Ala! Welcome to Velocity!"));
+		//the template does not read $orders, so it does not matter
+		assertThat(cache.render("velocity/HelloWorld.vm", context("Ala", 2)), equalTo("Hello Ala! Welcome to Velocity!"));
+		assertThat(cache.render("velocity/HelloWorld.vm", context("Ela", 1)), equalTo("Hello Ela! Welcome to Velocity!"));
+
+		assertThat(cache.getHits(), is(1L));
+		assertThat(cache.getMisses(), is(2L));
+		assertThat(cache.size(), is(2));
+	}
+
+	@Test
+	public void valuesAreResolvedThroughChainedLayers() {
+		RenderCache cache = new RenderCache(registry, 10_000, RenderCache.NEVER_EXPIRE, TimeUnit.SECONDS);
+		Map<String, Object> defaults = new HashMap<>();
+		defaults.put("name", "default");
+		Map<String, Object> request = new HashMap<>();
+		request.put("name", "Ala");
+
+		for (boolean flattened : new boolean[]{false, true}) {
+			StringWriter writer = new StringWriter();
+			cache.merge("velocity/ContextPriority.vm", new ContextChainer(flattened).chain(defaults).chain(request), writer);
+			assertThat(writer.toString(), equalTo("Ala"));
+		}
+		assertThat(cache.render("velocity/ContextPriority.vm", new ContextChainer().chain(defaults).getContext()),
+				equalTo("default"));
+		assertThat(cache.getHits(), is(1L));
+	}
+
+	@Test
+	public void missingValueIsAlsoAKey() {
+		RenderCache cache = new RenderCache(registry, 10_000, RenderCache.NEVER_EXPIRE, TimeUnit.SECONDS);
+
+		assertThat(cache.render("velocity/ContextPriority.vm", new VelocityContext()), equalTo("$name"));
+		assertThat(cache.render("velocity/ContextPriority.vm", new VelocityContext()), equalTo("$name"));
+		assertThat(cache.render("velocity/ContextPriority.vm", context("Ala", 1)), equalTo("Ala"));
+		assertThat(cache.getHits(), is(1L));
+	}
+
+	@Test
+	public void outputExpiresAfterTimeToLive() {
+		ManualClock clock = new ManualClock(0);
+		RenderCache cache = new RenderCache(registry, 10_000, 5, TimeUnit.SECONDS, clock);
+
+		cache.render("velocity/ContextPriority.vm", context("Ala", 1));
+		clock.advance(4, TimeUnit.SECONDS);
+		cache.render("velocity/ContextPriority.vm", context("Ala", 1));
+		clock.advance(1, TimeUnit.SECONDS);
+		cache.render("velocity/ContextPriority.vm", context("Ala", 1));
+
+		assertThat(cache.getHits(), is(1L));
+		assertThat(cache.getMisses(), is(2L));
+	}
+
+	@Test
+	public void leastRecentlyUsedOutputIsEvicted() {
+		RenderCache cache = new RenderCache(registry, 8, RenderCache.NEVER_EXPIRE, TimeUnit.SECONDS);
+
+		cache.render("velocity/ContextPriority.vm", context("Ala", 1));
+		cache.render("velocity/ContextPriority.vm", context("John", 1));
+		cache.render("velocity/ContextPriority.vm", context("Ala", 1));
+		cache.render("velocity/ContextPriority.vm", context("Ewa", 1));
+
+		assertThat(cache.weight(), is(6L));
+		assertThat(cache.getEvictions(), is(1L));
+		cache.render("velocity/ContextPriority.vm", context("Ala", 1));
+		assertThat(cache.getHits(), is(2L));
+	}
+
+	@Test
+	public void outputsOfReloadedTemplateAreDropped() {
+		RenderCache cache = new RenderCache(registry, 10_000, RenderCache.NEVER_EXPIRE, TimeUnit.SECONDS);
+		cache.render("velocity/ContextPriority.vm", context("Ala", 1));
+		cache.render("velocity/HelloWorld.vm", context("Ala", 1));
+
+		//the next getTemplate parses the template again, as after a modification
+		registry.invalidate("velocity/ContextPriority.vm");
+		cache.render("velocity/ContextPriority.vm", context("Ala", 1));
+
+		assertThat(cache.getHits(), is(0L));
+		assertThat(cache.size(), is(2));
+	}
+
+	@Test
+	public void mergeWhichSetsValuesIsNotCached() {
+		RenderCache cache = new RenderCache(registry, 10_000, RenderCache.NEVER_EXPIRE, TimeUnit.SECONDS);
+		VelocityContext context = new VelocityContext();
+		context.put("name", "Ala");
+		context.put("company", "ACME");
+
+		assertThat(cache.render("velocity/Snapshot.vm", context), equalTo("Hi Ala from ACME"));
+		assertThat(context.get("greeting"), equalTo((Object) "Hi Ala"));
+		assertThat(cache.size(), is(0));
+	}
+
+	private static VelocityContext context(String name, int orders) {
+		VelocityContext context = new VelocityContext();
+		context.put("name", name);
+		context.put("orders", orders);
+		return context;
+	}
+}
@@ -0,0 +1,74 @@
+package velocity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.velocity.Template;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RenderMetricsUsage {
+	@Test
+	public void mergesAreMeasuredPerTemplate() {
+		InMemoryRenderMetrics metrics = new InMemoryRenderMetrics();
+		MeasuredRenderer renderer = new MeasuredRenderer(metrics);
+		Template template = TemplateRegistry.shared().getTemplate("velocity/Lazy.vm");
+
+		Map<String, Object> defaults = new HashMap<>();
+		defaults.put("orders", 0);
+		Map<String, Object> customer = new HashMap<>();
+		customer.put("name", "Alice");
+		ContextChainer chainer = new ContextChainer().chain(defaults).chain(customer);
+
+		for (int i = 0; i < 10; i++) {
+			StringWriter writer = new StringWriter();
+			renderer.merge(template, chainer, writer);
+			assertThat(writer.toString(), is("Hello Alice! Alice has 0 orders."));
+		}
+
+		InMemoryRenderMetrics.TemplateStats stats = metrics.getStats("velocity/Lazy.vm");
+		assertThat(stats.getMerges(), is(10L));
+		assertThat(stats.getLatency().getCount(), is(10L));
+		assertThat(stats.getWrittenChars(), is(10L * "Hello Alice! Alice has 0 orders.".length()));
+		assertThat(stats.getWrittenBytes(), is(0L));
+		//$name twice and $orders once
+		assertThat(stats.getLookups(), is(30L));
+		assertThat(stats.getMisses(), is(0L));
+		assertThat(stats.getMaxChainDepth(), is(2L));
+	}
+
+	@Test
+	public void missingValuesAreCounted() throws Exception {
+		InMemoryRenderMetrics metrics = new InMemoryRenderMetrics();
+		Template template = TemplateRegistry.shared().getTemplate("velocity/HelloWorld.vm");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long written = new MeasuredRenderer(metrics).merge(template, new ContextChainer().getContext(), out);
+
+		InMemoryRenderMetrics.TemplateStats stats = metrics.getStats("velocity/HelloWorld.vm");
+		//$name is not in the context, every read of it is a miss
+		assertThat(stats.getMisses() > 0, is(true));
+		assertThat(stats.getMisses(), is(stats.getLookups()));
+		assertThat(stats.getWrittenBytes(), is(written));
+		assertThat(stats.getWrittenChars(), is(0L));
+		assertThat(written, is((long) out.size()));
+	}
+
+	@Test
+	public void registryReportsCacheHits() {
+		InMemoryRenderMetrics metrics = new InMemoryRenderMetrics();
+		TemplateRegistry registry = new TemplateRegistry(TemplateRegistry.classpathEngine());
+		registry.setMetrics(metrics);
+
+		registry.getTemplate("velocity/HelloWorld.vm");
+		registry.getTemplate("velocity/HelloWorld.vm");
+		registry.getTemplate("velocity/HelloWorld.vm");
+
+		assertThat(metrics.getCacheMisses(), is(1L));
+		assertThat(metrics.getCacheHits(), is(2L));
+	}
+}
@@ -0,0 +1,69 @@
+package velocity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class StreamingRendererUsage {
+	private final Template template = TemplateRegistry.shared().getTemplate("velocity/HelloWorld.vm");
+	private final StreamingRenderer renderer = new StreamingRenderer(StandardCharsets.UTF_8);
+
+	@Test
+	public void templateCanBeMergedIntoOutputStream() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		long written = renderer.merge(template, context("World"), out);
+
+		assertThat(out.toString("UTF-8"), is("Hello World! Welcome to Velocity!"));
+		assertThat(written, is((long) out.size()));
+	}
+
+	@Test
+	public void largeOutputIsEncodedInChunks() throws Exception {
+		//non ASCII characters and surrogate pairs are split between chunks of the writer
+		StringBuilder name = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			name.append("za\u017c\u00f3\u0142\u0107 \ud83d\ude00 ");
+		}
+		StringWriter expected = new StringWriter();
+		template.merge(context(name.toString()), expected);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		renderer.merge(template, context(name.toString()), Channels.newChannel(out));
+
+		assertThat(out.toString("UTF-8"), is(expected.toString()));
+	}
+
+	@Test
+	public void templateCanBeMergedIntoPooledBuffer() throws Exception {
+		ByteBufferPool pool = new ByteBufferPool(1024, 4);
+		ByteBuffer buffer = pool.acquire();
+
+		renderer.merge(template, context("Pool"), buffer);
+		buffer.flip();
+
+		assertThat(StandardCharsets.UTF_8.decode(buffer).toString(), is("Hello Pool! Welcome to Velocity!"));
+		pool.release(buffer);
+	}
+
+	@Test(expected = BufferOverflowException.class)
+	public void tooSmallBufferOverflows() throws Exception {
+		renderer.merge(template, context("World"), ByteBuffer.allocate(8));
+	}
+
+	private VelocityContext context(String name) {
+		VelocityContext context = new VelocityContext();
+		context.put("name", name);
+		return context;
+	}
+}
@@ -0,0 +1,106 @@
+package velocity;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TemplateCompilerUsage {
+	private final TemplateRegistry registry = TemplateRegistry.shared();
+
+	/**
+	 * Does at runtime what the precompile-templates profile does during the build.
+	 */
+	private CompiledTemplate compileAndLoad(String name) throws Exception {
+		String source = new TemplateCompiler().compile(registry.getTemplate(name));
+		assertThat(source, is(notNullValue()));
+
+		Path directory = Files.createTempDirectory("templates");
+		Path file = directory.resolve(TemplateCompiler.className(name).replace('.', '/') + ".java");
+		Files.createDirectories(file.getParent());
+		Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+
+		JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+		int result = javac.run(null, null, null, "-d", directory.toString(),
+				"-cp", System.getProperty("java.class.path"), file.toString());
+		assertThat(result, is(0));
+
+		ClassLoader loader = new URLClassLoader(new URL[] {directory.toUri().toURL()}, getClass().getClassLoader());
+		return new CompiledTemplates(registry, loader).get(name);
+	}
+
+	private static String interpreted(Template template, Map<String, Object> values) {
+		StringWriter writer = new StringWriter();
+		template.merge(new VelocityContext(new HashMap<>(values)), writer);
+		return writer.toString();
+	}
+
+	private static String compiled(CompiledTemplate template, Map<String, Object> values) throws IOException {
+		StringWriter writer = new StringWriter();
+		template.merge(new VelocityContext(new HashMap<>(values)), writer);
+		return writer.toString();
+	}
+
+	@Test
+	public void compiledHelloWorldRendersLikeTheInterpreter() throws Exception {
+		CompiledTemplate template = compileAndLoad("velocity/HelloWorld.vm");
+
+		Map<String, Object> values = new HashMap<>();
+		values.put("name", "World");
+
+		assertThat(compiled(template, values), is("Hello World! Welcome to Velocity!"));
+	}
+
+	@Test
+	public void missingValuesRenderLikeTheInterpreter() throws Exception {
+		Object nullText = new Object() {
+			@Override
+			public String toString() {
+				return null;
+			}
+		};
+		for (String name : Arrays.asList("velocity/HelloWorld.vm", "velocity/ContextPriority.vm", "velocity/References.vm")) {
+			CompiledTemplate template = compileAndLoad(name);
+			Template interpreted = registry.getTemplate(name);
+
+			Map<String, Object> values = new HashMap<>();
+			assertThat(compiled(template, values), is(interpreted(interpreted, values)));
+			values.put("name", "Alice");
+			values.put("title", "Dr.");
+			assertThat(compiled(template, values), is(interpreted(interpreted, values)));
+			values.put("name", nullText);
+			assertThat(compiled(template, values), is(interpreted(interpreted, values)));
+		}
+	}
+
+	@Test
+	public void directivesAreLeftToTheInterpreter() throws Exception {
+		assertThat(new TemplateCompiler().compile(registry.getTemplate("velocity/Snapshot.vm")), is(nullValue()));
+
+		CompiledTemplates templates = new CompiledTemplates(registry);
+		Map<String, Object> values = new HashMap<>();
+		values.put("name", "Bob");
+		values.put("company", "ACME");
+
+		assertThat(templates.isCompiled("velocity/Snapshot.vm"), is(false));
+		assertThat(compiled(templates.get("velocity/Snapshot.vm"), values), is("Hi Bob from ACME"));
+	}
+}
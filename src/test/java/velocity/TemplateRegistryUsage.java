@@ -0,0 +1,92 @@
+package velocity;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.runtime.RuntimeConstants;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TemplateRegistryUsage {
+	@Test
+	public void parsedTemplateIsReused() {
+		TemplateRegistry registry = TemplateRegistry.shared();
+
+		Template template = registry.getTemplate("velocity/HelloWorld.vm");
+
+		assertThat(registry.getTemplate("velocity/HelloWorld.vm"), is(sameInstance(template)));
+	}
+
+	@Test
+	public void manyThreadsGetTheSameTemplate() throws Exception {
+		TemplateRegistry registry = new TemplateRegistry(TemplateRegistry.classpathEngine());
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Callable<Template>> tasks = new ArrayList<>();
+		for (int i = 0; i < 32; i++) {
+			tasks.add(() -> registry.getTemplate("velocity/ContextPriority.vm"));
+		}
+
+		List<Future<Template>> templates = executor.invokeAll(tasks);
+		executor.shutdown();
+
+		//the template was parsed only once, so every thread got the same instance
+		for (Future<Template> template : templates) {
+			assertThat(template.get(), is(sameInstance(templates.get(0).get())));
+		}
+	}
+
+	@Test
+	public void leastRecentlyUsedTemplateIsEvicted() {
+		TemplateRegistry registry = new TemplateRegistry(TemplateRegistry.classpathEngine(), 1,
+				TemplateRegistry.NEVER_RELOAD);
+
+		Template helloWorld = registry.getTemplate("velocity/HelloWorld.vm");
+		registry.getTemplate("velocity/ContextPriority.vm");
+
+		assertThat(registry.size(), is(1));
+		assertThat(registry.isCached("velocity/HelloWorld.vm"), is(false));
+		assertThat(registry.getTemplate("velocity/HelloWorld.vm"), is(not(sameInstance(helloWorld))));
+	}
+
+	@Test
+	public void modifiedTemplateIsReloaded() throws Exception {
+		File directory = Files.createTempDirectory("templates").toFile();
+		File file = new File(directory, "Greeting.vm");
+		Files.write(file.toPath(), "Hello $name!".getBytes(StandardCharsets.UTF_8));
+
+		VelocityEngine engine = new VelocityEngine();
+		engine.setProperty(RuntimeConstants.FILE_RESOURCE_LOADER_PATH, directory.getAbsolutePath());
+		engine.init();
+		TemplateRegistry registry = new TemplateRegistry(engine, 16, 0);
+
+		assertThat(render(registry.getTemplate("Greeting.vm")), is("Hello World!"));
+
+		Files.write(file.toPath(), "Bye $name!".getBytes(StandardCharsets.UTF_8));
+		file.setLastModified(file.lastModified() + 10000);
+
+		assertThat(render(registry.getTemplate("Greeting.vm")), is("Bye World!"));
+	}
+
+	private String render(Template template) {
+		VelocityContext context = new VelocityContext();
+		context.put("name", "World");
+		StringWriter writer = new StringWriter();
+		template.merge(context, writer);
+		return writer.toString();
+	}
+}